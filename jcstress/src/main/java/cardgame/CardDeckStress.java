@@ -0,0 +1,113 @@
+package cardgame;
+
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.II_Result;
+import org.openjdk.jcstress.infra.results.III_Result;
+
+import static org.openjdk.jcstress.annotations.Expect.*;
+
+/*
+ CardDeck under a concurrent producer and consumer, and under two consumers: no card may be lost
+ or handed out twice, and cards leave in the order they arrived. Results are card values, 0 for
+ a draw that found the deck empty; the arbiter's value lists what is left, in deck order.
+ */
+public class CardDeckStress {
+
+        static int remaining(CardDeck deck) {
+                int digits = 0;
+                for (Card c; (c = deck.draw()) != null;)
+                        digits = digits * 10 + c.getDenomination();
+                return digits;
+        }
+
+        @JCStressTest
+        @Outcome(id = "0, 0, 12", expect = ACCEPTABLE, desc = "Both draws ran before the first add")
+        @Outcome(id = "0, 1, 2", expect = ACCEPTABLE, desc = "The first draw found the deck empty")
+        @Outcome(id = "1, 0, 2", expect = ACCEPTABLE, desc = "The second draw overtook the second add")
+        @Outcome(id = "1, 2, 0", expect = ACCEPTABLE, desc = "Both cards drawn in order")
+        @Outcome(expect = FORBIDDEN, desc = "A card was lost, duplicated or drawn out of order")
+        @State
+        public static class Fifo {
+                final CardDeck deck = new CardDeck(1);
+
+                @Actor
+                public void producer() {
+                        deck.addCard(new Card(1));
+                        deck.addCard(new Card(2));
+                }
+
+                @Actor
+                public void consumer(III_Result r) {
+                        Card a = deck.draw();
+                        Card b = deck.draw();
+                        r.r1 = a == null ? 0 : a.getDenomination();
+                        r.r2 = b == null ? 0 : b.getDenomination();
+                }
+
+                @Arbiter
+                public void rest(III_Result r) {
+                        r.r3 = remaining(deck);
+                }
+        }
+
+        @JCStressTest
+        @Outcome(id = "1, 2", expect = ACCEPTABLE, desc = "The first drawer won the head")
+        @Outcome(id = "2, 1", expect = ACCEPTABLE, desc = "The second drawer won the head")
+        @Outcome(expect = FORBIDDEN, desc = "Both drawers got the same card, or one got nothing")
+        @State
+        public static class ConcurrentDraws {
+                final CardDeck deck = new CardDeck(1, 2, 2);
+
+                public ConcurrentDraws() {
+                        deck.addCard(new Card(1));
+                        deck.addCard(new Card(2));
+                }
+
+                @Actor
+                public void first(II_Result r) {
+                        Card c = deck.draw();
+                        r.r1 = c == null ? 0 : c.getDenomination();
+                }
+
+                @Actor
+                public void second(II_Result r) {
+                        Card c = deck.draw();
+                        r.r2 = c == null ? 0 : c.getDenomination();
+                }
+        }
+
+        // A deck at its bound: the draw frees the slot the add then reuses, or the add is refused
+        @JCStressTest
+        @Outcome(id = "1, 23", expect = ACCEPTABLE, desc = "Draw first, the add reused the freed slot")
+        @Outcome(id = "1, 2", expect = ACCEPTABLE, desc = "Add first, refused by the full ring")
+        @Outcome(expect = FORBIDDEN, desc = "A card was lost, duplicated or reordered at the bound")
+        @State
+        public static class Bounded {
+                final CardDeck deck = new CardDeck(1, 2, 2);
+
+                public Bounded() {
+                        deck.addCard(new Card(1));
+                        deck.addCard(new Card(2));
+                }
+
+                @Actor
+                public void producer() {
+                        try {
+                                deck.addCard(new Card(3));
+                        } catch (IllegalStateException full) {
+                                // the ring was still full; the card never entered the deck
+                        }
+                }
+
+                @Actor
+                public void consumer(II_Result r) {
+                        Card c = deck.draw();
+                        r.r1 = c == null ? 0 : c.getDenomination();
+                }
+
+                @Arbiter
+                public void rest(II_Result r) {
+                        r.r2 = remaining(deck);
+                }
+        }
+}
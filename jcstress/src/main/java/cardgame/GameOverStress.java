@@ -0,0 +1,77 @@
+package cardgame;
+
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.I_Result;
+import org.openjdk.jcstress.infra.results.ZZ_Result;
+
+import static org.openjdk.jcstress.annotations.Expect.*;
+
+/*
+ Visibility of the end of the game. A player that sees the game over must also see who won, and
+ must not start another turn; a turn that had already checked the flag may still finish.
+ */
+public class GameOverStress {
+
+        // r1 is the winner a player reads once it sees the game over, 0 while it does not
+        @JCStressTest
+        @Outcome(id = "0", expect = ACCEPTABLE, desc = "The game was not over yet")
+        @Outcome(id = "3", expect = ACCEPTABLE, desc = "Saw the game over and its winner")
+        @Outcome(id = "-1", expect = FORBIDDEN, desc = "Saw the game over but not the winner")
+        @State
+        public static class WinnerVisible {
+                final CardGame game = new CardGame();
+
+                @Actor
+                public void winner() {
+                        game.declareWinner(3);
+                }
+
+                @Actor
+                public void observer(I_Result r) {
+                        r.r1 = game.isGameOver() ? game.getWinnerId() : 0;
+                }
+        }
+
+        // r1: the player saw the game over before its turn; r2: the turn moved a card anyway
+        @JCStressTest
+        @Outcome(id = { "false, false", "false, true", "true, false" }, expect = ACCEPTABLE, desc = "No turn after the game was seen over")
+        @Outcome(id = "true, true", expect = FORBIDDEN, desc = "A card moved after the player saw the game over")
+        @State
+        public static class NoTurnAfterLockingEnd extends RingState {
+                public NoTurnAfterLockingEnd() {
+                        super(TurnMode.LOCKING);
+                }
+
+                @Actor
+                public void winner() {
+                        game.declareWinner(3);
+                }
+
+                @Actor
+                public void player(ZZ_Result r) {
+                        r.r1 = game.isGameOver();
+                        r.r2 = p1.attemptAtomicTurn();
+                }
+        }
+
+        @JCStressTest
+        @Outcome(id = { "false, false", "false, true", "true, false" }, expect = ACCEPTABLE, desc = "No turn after the game was seen over")
+        @Outcome(id = "true, true", expect = FORBIDDEN, desc = "A card moved after the player saw the game over")
+        @State
+        public static class NoTurnAfterOptimisticEnd extends RingState {
+                public NoTurnAfterOptimisticEnd() {
+                        super(TurnMode.OPTIMISTIC);
+                }
+
+                @Actor
+                public void winner() {
+                        game.declareWinner(3);
+                }
+
+                @Actor
+                public void player(ZZ_Result r) {
+                        r.r1 = game.isGameOver();
+                        r.r2 = p1.attemptOptimisticTurn();
+                }
+        }
+}
@@ -0,0 +1,91 @@
+package cardgame;
+
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.III_Result;
+
+import static org.openjdk.jcstress.annotations.Expect.*;
+
+/*
+ HandoffQueue with its one producer and one consumer racing, once inside a chunk and once as the
+ producer links a new chunk: the consumer must never see an empty slot or a missing link, and
+ cards come out in the order they went in. Results are card values, 0 for an empty poll; the
+ arbiter's value lists what is left.
+ */
+public class HandoffQueueStress {
+
+        static int remaining(HandoffQueue queue) {
+                int digits = 0;
+                for (Card c; (c = queue.poll()) != null;)
+                        digits = digits * 10 + c.getDenomination();
+                return digits;
+        }
+
+        static int value(Card c) {
+                return c == null ? 0 : c.getDenomination();
+        }
+
+        @JCStressTest
+        @Outcome(id = "0, 0, 12", expect = ACCEPTABLE, desc = "Both polls ran before the first offer")
+        @Outcome(id = "0, 1, 2", expect = ACCEPTABLE, desc = "The first poll found the queue empty")
+        @Outcome(id = "1, 0, 2", expect = ACCEPTABLE, desc = "The second poll overtook the second offer")
+        @Outcome(id = "1, 2, 0", expect = ACCEPTABLE, desc = "Both cards handed over in order")
+        @Outcome(expect = FORBIDDEN, desc = "A card was lost, duplicated, reordered or seen before it was written")
+        @State
+        public static class WithinChunk {
+                final HandoffQueue queue = new HandoffQueue();
+
+                @Actor
+                public void producer() {
+                        queue.offer(new Card(1));
+                        queue.offer(new Card(2));
+                }
+
+                @Actor
+                public void consumer(III_Result r) {
+                        r.r1 = value(queue.poll());
+                        r.r2 = value(queue.poll());
+                }
+
+                @Arbiter
+                public void rest(III_Result r) {
+                        r.r3 = remaining(queue);
+                }
+        }
+
+        // Both sides start one slot short of the end of the first chunk, so the second offer links a new one
+        @JCStressTest
+        @Outcome(id = "0, 0, 12", expect = ACCEPTABLE, desc = "Both polls ran before the first offer")
+        @Outcome(id = "0, 1, 2", expect = ACCEPTABLE, desc = "The first poll found the queue empty")
+        @Outcome(id = "1, 0, 2", expect = ACCEPTABLE, desc = "The second poll ran before the new chunk was published")
+        @Outcome(id = "1, 2, 0", expect = ACCEPTABLE, desc = "The consumer followed the link to the new chunk")
+        @Outcome(expect = FORBIDDEN, desc = "The consumer saw a slot or link that was not there yet")
+        @State
+        public static class AcrossChunks {
+                final HandoffQueue queue = new HandoffQueue();
+
+                public AcrossChunks() {
+                        Card filler = new Card(9);
+                        for (int i = 0; i < HandoffQueue.CHUNK - 1; i++)
+                                queue.offer(filler);
+                        while (queue.poll() != null) {
+                        }
+                }
+
+                @Actor
+                public void producer() {
+                        queue.offer(new Card(1));
+                        queue.offer(new Card(2));
+                }
+
+                @Actor
+                public void consumer(III_Result r) {
+                        r.r1 = value(queue.poll());
+                        r.r2 = value(queue.poll());
+                }
+
+                @Arbiter
+                public void rest(III_Result r) {
+                        r.r3 = remaining(queue);
+                }
+        }
+}
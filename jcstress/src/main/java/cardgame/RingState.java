@@ -0,0 +1,65 @@
+package cardgame;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.*;
+
+/*
+ Shared setup for the turn stress tests: players 1 and 2 of a three-player ring, so player 1
+ discards onto the very deck player 2 draws from. No hand can win, every deck holds two cards,
+ and logs go nowhere. Each test instance is fresh, so one turn per actor is all there is.
+ */
+public class RingState {
+        static final PrintWriter NO_LOG = new PrintWriter(new Writer() {
+                @Override
+                public void write(char[] cbuf, int off, int len) {
+                }
+
+                @Override
+                public void flush() {
+                }
+
+                @Override
+                public void close() {
+                }
+        });
+
+        public final CardGame game = new CardGame();
+        public final CardDeck[] decks = new CardDeck[3];
+        public final Player p1;
+        public final Player p2;
+        private final int cards;
+
+        public RingState(TurnMode mode) {
+                game.turnMode = mode;
+                int value = 10;
+                for (int i = 0; i < decks.length; i++) {
+                        decks[i] = new CardDeck(i + 1);
+                        decks[i].addCard(new Card(value++));
+                        decks[i].addCard(new Card(value++));
+                }
+                p1 = new Player(1, decks[0], decks[1], game, NO_LOG);
+                p2 = new Player(2, decks[1], decks[2], game, NO_LOG);
+                p1.setInitialHand(Arrays.asList(new Card(5), new Card(6), new Card(7), new Card(8)));
+                p2.setInitialHand(Arrays.asList(new Card(5), new Card(6), new Card(7), new Card(8)));
+                cards = 2 * decks.length + 8;
+        }
+
+        // 1 when every card is in exactly one place and both hands still hold four cards, otherwise 0
+        public int accountedFor() {
+                Set<Card> seen = Collections.newSetFromMap(new IdentityHashMap<Card, Boolean>());
+                int total = 0;
+                for (Player p : new Player[] { p1, p2 }) {
+                        if (p.hand.size() != 4)
+                                return 0;
+                        seen.addAll(p.hand);
+                        total += p.hand.size();
+                }
+                for (CardDeck d : decks) {
+                        List<Card> contents = d.getContents();
+                        seen.addAll(contents);
+                        total += contents.size();
+                }
+                return total == cards && seen.size() == cards ? 1 : 0;
+        }
+}
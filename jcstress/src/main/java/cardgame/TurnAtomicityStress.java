@@ -0,0 +1,94 @@
+package cardgame;
+
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.III_Result;
+
+import static org.openjdk.jcstress.annotations.Expect.*;
+
+/*
+ Two neighbouring players taking a turn at the same time, with player 1 discarding onto the deck
+ player 2 draws from, under each turn protocol. Whatever the interleaving, a turn moves exactly
+ one card from the left deck to the right one through the hand, or nothing at all.
+ r1 and r2 are 1 when that player's turn moved a card; r3 is 1 when every card is accounted for.
+ */
+public class TurnAtomicityStress {
+
+        @JCStressTest
+        @Outcome(id = "1, 1, 1", expect = ACCEPTABLE, desc = "Both turns went through; nothing lost or duplicated")
+        @Outcome(id = { "0, 1, 1", "1, 0, 1" }, expect = ACCEPTABLE_INTERESTING, desc = "A tryLock timed out on the shared deck")
+        @Outcome(expect = FORBIDDEN, desc = "A card was lost or duplicated, or a turn failed without contention")
+        @State
+        public static class Locking extends RingState {
+                public Locking() {
+                        super(TurnMode.LOCKING);
+                }
+
+                @Actor
+                public void player1(III_Result r) {
+                        r.r1 = p1.attemptAtomicTurn() ? 1 : 0;
+                }
+
+                @Actor
+                public void player2(III_Result r) {
+                        r.r2 = p2.attemptAtomicTurn() ? 1 : 0;
+                }
+
+                @Arbiter
+                public void check(III_Result r) {
+                        r.r3 = accountedFor();
+                }
+        }
+
+        // The task engine's variant never waits, so losing the shared deck to the neighbour is routine
+        @JCStressTest
+        @Outcome(id = { "1, 1, 1", "0, 1, 1", "1, 0, 1" }, expect = ACCEPTABLE, desc = "Every card accounted for")
+        @Outcome(expect = FORBIDDEN, desc = "A card was lost or duplicated, or both turns failed")
+        @State
+        public static class NonBlocking extends RingState {
+                public NonBlocking() {
+                        super(TurnMode.LOCKING);
+                }
+
+                @Actor
+                public void player1(III_Result r) {
+                        r.r1 = p1.attemptTurnNow() ? 1 : 0;
+                }
+
+                @Actor
+                public void player2(III_Result r) {
+                        r.r2 = p2.attemptTurnNow() ? 1 : 0;
+                }
+
+                @Arbiter
+                public void check(III_Result r) {
+                        r.r3 = accountedFor();
+                }
+        }
+
+        // A conflicting commit is retried, so both turns should always get through
+        @JCStressTest
+        @Outcome(id = "1, 1, 1", expect = ACCEPTABLE, desc = "Both turns committed; nothing lost or duplicated")
+        @Outcome(id = { "0, 1, 1", "1, 0, 1" }, expect = ACCEPTABLE_INTERESTING, desc = "A player ran out of retries")
+        @Outcome(expect = FORBIDDEN, desc = "A card was lost or duplicated, or a stale peek was committed")
+        @State
+        public static class Optimistic extends RingState {
+                public Optimistic() {
+                        super(TurnMode.OPTIMISTIC);
+                }
+
+                @Actor
+                public void player1(III_Result r) {
+                        r.r1 = p1.attemptOptimisticTurn() ? 1 : 0;
+                }
+
+                @Actor
+                public void player2(III_Result r) {
+                        r.r2 = p2.attemptOptimisticTurn() ? 1 : 0;
+                }
+
+                @Arbiter
+                public void check(III_Result r) {
+                        r.r3 = accountedFor();
+                }
+        }
+}
@@ -0,0 +1,316 @@
+package cardgame;
+
+import java.util.Locale;
+
+/*
+ Plays many small independent games side by side for Monte Carlo work, one game per lane.
+ Every game has the same number of players and follows CompactEngine's schedule: seats take
+ one turn each in order, round after round, discarding as Player.selectDiscard does. In that
+ schedule all decks hold exactly four cards at the start of a round and move in lockstep, so
+ in round r every deck is drawn from slot r mod 8 and discarded onto at slot (r + 4) mod 8, in
+ every game alike. State is therefore laid out lane-innermost: element [x * lanes + lane] of
+ each array is hand card, deck slot or random state x of that lane's game, and a seat's turn
+ is the same straight-line code over contiguous lanes. That is what VectorBatchEngine (built
+ with -Pjava21) runs with jdk.incubator.vector; this class is the scalar version of the kernel.
+ A game that ends (a win, or maxRounds rounds without one) is recorded and its lane masked
+ out until the round ends, when the lane is dealt the next game. Game g is dealt packs.fill(g)
+ and seeded like CompactEngine(players, seed + g), so each result can be replayed on its own.
+ Usage: java cardgame.BatchEngine <players> <games> [--lanes=L] [--seed=s] [--max-rounds=r]
+            [--distribution=uniform|skewed|winnable|unwinnable] [--vector]
+ */
+public class BatchEngine {
+        static final int HAND = 4;
+        static final int DECK_SLOTS = 8;
+        static final int LANE_MULTIPLE = 16;
+
+        public interface PackSource {
+                // Fills pack with the 8n card values of game g, in dealing order
+                void fill(long game, int[] pack);
+        }
+
+        public static class Result {
+                public final int players;
+                public final int[] winners;
+                public final long[] turns;
+                public final long elapsedNanos;
+
+                Result(int players, int[] winners, long[] turns, long elapsedNanos) {
+                        this.players = players;
+                        this.winners = winners;
+                        this.turns = turns;
+                        this.elapsedNanos = elapsedNanos;
+                }
+
+                public double gamesPerSecond() {
+                        return winners.length * 1e9 / Math.max(1, elapsedNanos);
+                }
+
+                public String toReport() {
+                        long[] wins = new long[players + 1];
+                        long totalTurns = 0;
+                        for (int g = 0; g < winners.length; g++) {
+                                wins[Math.max(0, winners[g])]++;
+                                totalTurns += turns[g];
+                        }
+                        StringBuilder sb = new StringBuilder(String.format(Locale.ROOT,
+                                        "Games: %d in %d ms (%.0f games/s), %.1f turns per game%n", winners.length,
+                                        elapsedNanos / 1000000, gamesPerSecond(), winners.length == 0 ? 0.0 : (double) totalTurns / winners.length));
+                        for (int id = 1; id <= players; id++)
+                                sb.append(String.format(Locale.ROOT, "player %d wins %.4f%n", id, (double) wins[id] / Math.max(1, winners.length)));
+                        sb.append(String.format(Locale.ROOT, "no winner %.4f", (double) wins[0] / Math.max(1, winners.length)));
+                        return sb.toString();
+                }
+        }
+
+        public final int players;
+        public final int lanes;
+        public final long seed;
+        public final long maxRounds;
+        private final PackSource packs;
+        // [(seat * HAND + k) * lanes + lane]
+        final int[] hands;
+        // [(deck * DECK_SLOTS + slot) * lanes + lane]
+        final int[] decks;
+        // [seat * lanes + lane]
+        final long[] rng;
+        // 1 while the lane's game is running
+        final int[] active;
+        private final long[] gameOf;
+        private final long[] startRound;
+        private final int[] pack;
+        private int[] winners;
+        private long[] turns;
+        private long nextGame;
+        private long round;
+        // games ended since the last refill, and the first round at which a running game reaches maxRounds
+        private int idle;
+        private long nextLimitRound;
+
+        public BatchEngine(int players, int lanes, long seed, long maxRounds, PackSource packs) {
+                if (players <= 0) {
+                        throw new IllegalArgumentException("Number of players must be positive");
+                }
+                if (lanes <= 0) {
+                        throw new IllegalArgumentException("Number of lanes must be positive");
+                }
+                if (maxRounds <= 0) {
+                        throw new IllegalArgumentException("Round limit must be positive");
+                }
+                this.players = players;
+                // a whole number of vectors of any width, so kernels never need a tail loop
+                this.lanes = (lanes + LANE_MULTIPLE - 1) / LANE_MULTIPLE * LANE_MULTIPLE;
+                this.seed = seed;
+                this.maxRounds = maxRounds;
+                this.packs = packs;
+                this.hands = new int[players * HAND * this.lanes];
+                this.decks = new int[players * DECK_SLOTS * this.lanes];
+                this.rng = new long[players * this.lanes];
+                this.active = new int[this.lanes];
+                this.gameOf = new long[this.lanes];
+                this.startRound = new long[this.lanes];
+                this.pack = new int[8 * players];
+        }
+
+        // Packs from PackGenerator, seeded seed + g for game g
+        public static PackSource generated(int players, PackGenerator.Distribution distribution, long seed) {
+                return (game, pack) -> {
+                        int[] at = { 0 };
+                        new PackGenerator(players, distribution, 1, seed + game).forEachValue(v -> pack[at[0]++] = v);
+                };
+        }
+
+        // The vector engine when asked for and built, otherwise the scalar one
+        public static BatchEngine create(int players, int lanes, long seed, long maxRounds, PackSource packs, boolean vector) {
+                if (!vector)
+                        return new BatchEngine(players, lanes, seed, maxRounds, packs);
+                try {
+                        return (BatchEngine) Class.forName("cardgame.VectorBatchEngine")
+                                        .getConstructor(int.class, int.class, long.class, long.class, PackSource.class)
+                                        .newInstance(players, lanes, seed, maxRounds, packs);
+                } catch (ReflectiveOperationException | LinkageError e) {
+                        throw new IllegalArgumentException("--vector needs a build with the java21 profile (mvn -Pjava21) on Java 21 or "
+                                        + "later, run with --add-modules jdk.incubator.vector");
+                }
+        }
+
+        public static void main(String[] args) {
+                if (args.length < 2) {
+                        System.out.println("Usage: java cardgame.BatchEngine <players> <games> [--lanes=L] [--seed=s] [--max-rounds=r] "
+                                        + "[--distribution=uniform|skewed|winnable|unwinnable] [--vector]");
+                        return;
+                }
+                try {
+                        int n = Integer.parseInt(args[0]);
+                        int games = Integer.parseInt(args[1]);
+                        int lanes = 1024;
+                        long seed = System.nanoTime();
+                        long maxRounds = 1000;
+                        boolean vector = false;
+                        PackGenerator.Distribution distribution = PackGenerator.Distribution.UNIFORM;
+                        for (int i = 2; i < args.length; i++) {
+                                String arg = args[i];
+                                String value = arg.indexOf('=') >= 0 ? arg.substring(arg.indexOf('=') + 1) : null;
+                                if (arg.startsWith("--lanes="))
+                                        lanes = Integer.parseInt(value);
+                                else if (arg.startsWith("--seed="))
+                                        seed = Long.parseLong(value);
+                                else if (arg.startsWith("--max-rounds="))
+                                        maxRounds = Long.parseLong(value);
+                                else if (arg.startsWith("--distribution="))
+                                        distribution = PackGenerator.Distribution.parse(value);
+                                else if (arg.equals("--vector"))
+                                        vector = true;
+                                else
+                                        throw new IllegalArgumentException("Unknown option: " + arg);
+                        }
+                        BatchEngine engine = create(n, lanes, seed, maxRounds, generated(n, distribution, seed), vector);
+                        System.out.println(engine.getClass().getSimpleName() + ", " + engine.lanes + " lanes");
+                        System.out.println(engine.run(games).toReport());
+                } catch (IllegalArgumentException e) {
+                        System.out.println("Batch run failed: " + e.getMessage());
+                }
+        }
+
+        // Plays games 0 .. games-1 to the end and returns every winner (-1 for none) and turn count
+        public Result run(int games) {
+                if (games < 0) {
+                        throw new IllegalArgumentException("Number of games cannot be negative");
+                }
+                long start = System.nanoTime();
+                winners = new int[games];
+                turns = new long[games];
+                nextGame = 0;
+                round = 0;
+                idle = 0;
+                nextLimitRound = 0;
+                java.util.Arrays.fill(active, 0);
+                int running = refill(games);
+                while (running > 0) {
+                        int drawSlot = (int) (round & (DECK_SLOTS - 1));
+                        int discardSlot = (int) ((round + HAND) & (DECK_SLOTS - 1));
+                        for (int seat = 0; seat < players; seat++)
+                                playSeat(seat, drawSlot, discardSlot);
+                        round++;
+                        // lanes only change when a game has ended or reached its round limit
+                        if (idle > 0 || round >= nextLimitRound)
+                                running = refill(games);
+                }
+                return new Result(players, winners, turns, System.nanoTime() - start);
+        }
+
+        // One turn of seat for every running game; the scalar form of the kernel VectorBatchEngine overrides
+        void playSeat(int seat, int drawSlot, int discardSlot) {
+                int preferred = seat + 1;
+                int h = seat * HAND * lanes;
+                int in = (seat * DECK_SLOTS + drawSlot) * lanes;
+                int out = ((seat + 1 == players ? 0 : seat + 1) * DECK_SLOTS + discardSlot) * lanes;
+                int r = seat * lanes;
+                for (int lane = 0; lane < lanes; lane++) {
+                        if (active[lane] == 0)
+                                continue;
+                        int drawn = decks[in + lane];
+                        int h0 = hands[h + lane], h1 = hands[h + lanes + lane];
+                        int h2 = hands[h + 2 * lanes + lane], h3 = hands[h + 3 * lanes + lane];
+                        boolean n0 = h0 != preferred, n1 = h1 != preferred, n2 = h2 != preferred, n3 = h3 != preferred;
+                        boolean n4 = drawn != preferred;
+                        int candidates = (n0 ? 1 : 0) + (n1 ? 1 : 0) + (n2 ? 1 : 0) + (n3 ? 1 : 0) + (n4 ? 1 : 0);
+                        int pick = nextRandom(r + lane, candidates == 0 ? HAND + 1 : candidates);
+                        // the pick-th card that is not the preferred value; when every card is preferred any pick discards that value
+                        int c1 = n0 ? 1 : 0, c2 = c1 + (n1 ? 1 : 0), c3 = c2 + (n2 ? 1 : 0);
+                        int discarded = n0 && pick == 0 ? h0 : n1 && pick == c1 ? h1 : n2 && pick == c2 ? h2 : n3 && pick == c3 ? h3 : drawn;
+                        // hand.remove drops the first card of that value; the later ones shift down and the drawn card goes last
+                        if (h0 == discarded) {
+                                h0 = h1;
+                                h1 = h2;
+                                h2 = h3;
+                                h3 = drawn;
+                        } else if (h1 == discarded) {
+                                h1 = h2;
+                                h2 = h3;
+                                h3 = drawn;
+                        } else if (h2 == discarded) {
+                                h2 = h3;
+                                h3 = drawn;
+                        } else if (h3 == discarded) {
+                                h3 = drawn;
+                        }
+                        hands[h + lane] = h0;
+                        hands[h + lanes + lane] = h1;
+                        hands[h + 2 * lanes + lane] = h2;
+                        hands[h + 3 * lanes + lane] = h3;
+                        decks[out + lane] = discarded;
+                        if (h0 == h1 && h0 == h2 && h0 == h3)
+                                won(lane, seat);
+                }
+        }
+
+        // Same SplitMix64 step and bounded mapping as Player.nextRandom
+        private int nextRandom(int index, int bound) {
+                long z = (rng[index] += CompactEngine.GOLDEN);
+                z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+                z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+                z ^= z >>> 31;
+                return (int) (((z >>> 32) * bound) >>> 32);
+        }
+
+        // Called by a kernel when seat has just won the game in lane during the current round
+        final void won(int lane, int seat) {
+                finish(lane, seat + 1, (round - startRound[lane]) * players + seat + 1);
+        }
+
+        private void finish(int lane, int winner, long turnCount) {
+                int game = (int) gameOf[lane];
+                winners[game] = winner;
+                turns[game] = turnCount;
+                active[lane] = 0;
+                gameOf[lane] = -1;
+                idle++;
+        }
+
+        // At a round boundary: ends games at their round limit and deals the next games into idle lanes; returns how many lanes run
+        private int refill(int games) {
+                int running = 0;
+                long limit = Long.MAX_VALUE;
+                for (int lane = 0; lane < lanes; lane++) {
+                        if (active[lane] != 0 && round - startRound[lane] >= maxRounds)
+                                finish(lane, -1, maxRounds * players);
+                        while (active[lane] == 0 && nextGame < games)
+                                deal(lane, nextGame++);
+                        if (active[lane] != 0) {
+                                running++;
+                                limit = Math.min(limit, startRound[lane] + maxRounds);
+                        }
+                }
+                idle = 0;
+                nextLimitRound = limit;
+                return running;
+        }
+
+        // Every deck starts the round at slot round mod 8, so a new game's four deck cards go from there
+        private void deal(int lane, long game) {
+                packs.fill(game, pack);
+                int n = players;
+                for (int k = 0, c = 0; k < HAND; k++)
+                        for (int seat = 0; seat < n; seat++)
+                                hands[(seat * HAND + k) * lanes + lane] = pack[c++];
+                for (int j = 0, c = HAND * n; c < pack.length; j++) {
+                        int slot = (int) ((round + j) & (DECK_SLOTS - 1));
+                        for (int deck = 0; deck < n; deck++)
+                                decks[(deck * DECK_SLOTS + slot) * lanes + lane] = pack[c++];
+                }
+                for (int seat = 0; seat < n; seat++)
+                        rng[seat * lanes + lane] = CompactEngine.seedFor(seed + game, seat + 1);
+                gameOf[lane] = game;
+                startRound[lane] = round;
+                active[lane] = 1;
+                // a hand dealt four of a kind wins at once, lowest seat first
+                for (int seat = 0; seat < n; seat++) {
+                        int h = seat * HAND * lanes + lane;
+                        int v = hands[h];
+                        if (hands[h + lanes] == v && hands[h + 2 * lanes] == v && hands[h + 3 * lanes] == v) {
+                                finish(lane, seat + 1, 0);
+                                return;
+                        }
+                }
+        }
+}
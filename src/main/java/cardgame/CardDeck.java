@@ -1,9 +1,7 @@
 package cardgame;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.TimeUnit;
@@ -11,16 +9,27 @@ import java.util.concurrent.TimeUnit;
 /*
  Thread-safe FIFO container for card objects.
  Implements fair locking to prevent thread starvation and provides atomic operations for card drawing and addition. 
-Each deck has a unique ID and maintains a queue of cards.
+Each deck has a unique ID and maintains a queue of cards in a bounded array ring.
+ For optimistic turns the deck also carries a version: even means free, odd means claimed by a
+ committing player, and every publish moves it to a new even value.
  */
 
 public class CardDeck {
         public final int id;
-        public final Queue<Card> cards = new LinkedList<>();
+        public final CardRing cards;
         public final ReentrantLock lock = new ReentrantLock(true);
+        public final AtomicLong version = new AtomicLong();
+        // Time spent in tryLock, successful or not; only recorded once a histogram is attached
+        public volatile LatencyHistogram lockWaitHistogram;
 
         public CardDeck(int id) {
+                this(id, 16, CardRing.UNBOUNDED);
+        }
+
+        // maxCards is the most cards this deck can ever hold; storage for initialCards is allocated up front
+        public CardDeck(int id, int initialCards, int maxCards) {
                 this.id = id;
+                this.cards = new CardRing(initialCards, maxCards);
         }
 
         public synchronized void addCard(Card card) {
@@ -37,13 +46,29 @@ public class CardDeck {
 
         public synchronized String getContentsString() {
                 StringBuilder sb = new StringBuilder("deck" + id + " contents: ");
-                for (Card c : cards)
-                        sb.append(c.getDenomination()).append(" ");
+                for (int i = 0; i < cards.size(); i++)
+                        sb.append(cards.get(i).getDenomination()).append(" ");
                 return sb.toString().trim();
         }
 
+        // Copies the values of up to into.length cards starting at position from; returns how many were copied
+        public synchronized int copyValues(int from, int[] into) {
+                int count = Math.max(0, Math.min(into.length, cards.size() - from));
+                for (int i = 0; i < count; i++)
+                        into[i] = cards.get(from + i).getDenomination();
+                return count;
+        }
+
         public synchronized List<Card> getContents() {
-                return new ArrayList<>(cards);
+                return cards.toList();
+        }
+
+        public synchronized Card peek() {
+                return cards.peek();
+        }
+
+        public synchronized int size() {
+                return cards.size();
         }
 
         public int getId() {
@@ -51,10 +76,64 @@ public class CardDeck {
         }
 
         public boolean tryLock(long timeout, TimeUnit unit) throws InterruptedException {
-                return lock.tryLock(timeout, unit);
+                LatencyHistogram histogram = lockWaitHistogram;
+                if (histogram == null)
+                        return lock.tryLock(timeout, unit);
+                long start = System.nanoTime();
+                try {
+                        return lock.tryLock(timeout, unit);
+                } finally {
+                        histogram.record(System.nanoTime() - start);
+                }
+        }
+
+        // Non-blocking variant used by the task engine, timed the same way
+        public boolean tryLock() {
+                LatencyHistogram histogram = lockWaitHistogram;
+                if (histogram == null)
+                        return lock.tryLock();
+                long start = System.nanoTime();
+                try {
+                        return lock.tryLock();
+                } finally {
+                        histogram.record(System.nanoTime() - start);
+                }
         }
 
         public void unlock() {
                 lock.unlock();
         }
+
+        public long readVersion() {
+                return version.get();
+        }
+
+        // Claims the deck only if nobody has committed to it since expectedVersion was read
+        public boolean tryClaim(long expectedVersion) {
+                return (expectedVersion & 1) == 0 && version.compareAndSet(expectedVersion, expectedVersion + 1);
+        }
+
+        public void release(long claimedVersion) {
+                version.set(claimedVersion);
+        }
+
+        public void publish() {
+                version.incrementAndGet();
+        }
+
+        // Blocks every turn protocol on this deck (locking and optimistic) until resume()
+        public void quiesce() {
+                lock.lock();
+                while (true) {
+                        long v = version.get();
+                        if ((v & 1) == 0 && version.compareAndSet(v, v + 1))
+                                return;
+                        Thread.yield();
+                }
+        }
+
+        public void resume() {
+                version.incrementAndGet();
+                lock.unlock();
+        }
 }
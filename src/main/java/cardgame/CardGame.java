@@ -2,6 +2,8 @@ package cardgame;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
 
 /*
  Main game controller. Initializes and manages the card game,handles player input, game setup, thread coordination, and output generation.
@@ -10,31 +12,217 @@ import java.util.*;
 public class CardGame {
         public volatile boolean gameOver = false;
         public volatile int winnerId = -1;
+        public volatile String abortReason;
         public CardPackLoader loader = new CardPackLoader();
 
         public final List<Player> players = new ArrayList<>();
         public final List<CardDeck> decks = new ArrayList<>();
 
+        public int turnQuantum = 1;
+        public TurnMode turnMode = TurnMode.LOCKING;
+        public int turnDelayMillis = 10;
+        public boolean printMetrics = false;
+        public boolean parallelSetup = false;
+        public EngineMode engineMode = EngineMode.THREADS;
+        public int workers = Runtime.getRuntime().availableProcessors();
+        public OutputArchive outputArchive;
+        public File archiveFile;
+        public double invariantSampleRate = 0;
+        public int invariantIntervalMillis = 100;
+        public InvariantChecker invariantChecker;
+        public File latencyCsv;
+        public int latencyIntervalMillis = 1000;
+        public LatencyReporter latencyReporter;
+        public GameEventListener events = GameEventListener.NONE;
+        public int metricsPort = -1;
+        public MetricsServer metricsServer;
+        public boolean accounting = false;
+        // Directory for player and deck output files; null means the working directory
+        public File outputDirectory;
+        public final Map<Integer, LogCounter> logCounters = new ConcurrentHashMap<>();
+        public File checkpointFile;
+        public int checkpointIntervalMillis = 60000;
+        public File resumeFile;
+        public CheckpointWriter checkpointWriter;
+        public int deckWriterThreads = 0;
+        // Set by whichever thread starts the game and read by the metrics server's thread
+        public volatile long startNanos;
+        public long endNanos;
+        public volatile long gameOverNanos;
+        private TaskEngine taskEngine;
+
         public static void main(String[] args) {
                 CardGame game = new CardGame();
+                try {
+                        game.configure(args);
+                } catch (IllegalArgumentException e) {
+                        System.out.println(e.getMessage());
+                        System.out.println("Options: --quantum=<k> --turn-mode=locking|optimistic --turn-delay=<ms> --archive=<file> --parallel-setup --engine=threads|tasks|segmented --workers=<n> --check-invariants=<rate> --check-interval=<ms> --latency-csv=<file> --latency-interval=<ms> --jfr --metrics-port=<port> --accounting --checkpoint=<file> --checkpoint-interval=<ms> --resume=<file> --stream-decks[=<threads>] --metrics");
+                        return;
+                }
                 game.runGame();
         }
 
+        // Applies --name=value options; the game itself is still set up interactively
+        public void configure(String[] args) {
+                for (String arg : args) {
+                        String name = arg;
+                        String value = null;
+                        int eq = arg.indexOf('=');
+                        if (eq >= 0) {
+                                name = arg.substring(0, eq);
+                                value = arg.substring(eq + 1);
+                        }
+                        switch (name) {
+                        case "--quantum":
+                                turnQuantum = parseOption(name, value, 1);
+                                break;
+                        case "--turn-delay":
+                                turnDelayMillis = parseOption(name, value, 0);
+                                break;
+                        case "--turn-mode":
+                                turnMode = TurnMode.parse(value);
+                                break;
+                        case "--archive":
+                                if (value == null || value.trim().isEmpty())
+                                        throw new IllegalArgumentException("Invalid value for --archive: expected a file name");
+                                archiveFile = new File(value.trim());
+                                break;
+                        case "--parallel-setup":
+                                parallelSetup = true;
+                                break;
+                        case "--engine":
+                                engineMode = EngineMode.parse(value);
+                                break;
+                        case "--workers":
+                                workers = parseOption(name, value, 1);
+                                break;
+                        case "--check-invariants":
+                                invariantSampleRate = value == null ? 1.0 : parseRate(name, value);
+                                break;
+                        case "--check-interval":
+                                invariantIntervalMillis = parseOption(name, value, 0);
+                                break;
+                        case "--latency-csv":
+                                if (value == null || value.trim().isEmpty())
+                                        throw new IllegalArgumentException("Invalid value for --latency-csv: expected a file name");
+                                latencyCsv = new File(value.trim());
+                                break;
+                        case "--latency-interval":
+                                latencyIntervalMillis = parseOption(name, value, 1);
+                                break;
+                        case "--jfr":
+                                events = loadJfrListener();
+                                break;
+                        case "--metrics-port":
+                                metricsPort = parseOption(name, value, 0);
+                                break;
+                        case "--accounting":
+                                if (!ThreadAccounting.enable())
+                                        throw new IllegalArgumentException("--accounting is not supported by this JVM");
+                                accounting = true;
+                                break;
+                        case "--checkpoint":
+                                checkpointFile = parseFile(name, value);
+                                break;
+                        case "--checkpoint-interval":
+                                checkpointIntervalMillis = parseOption(name, value, 1);
+                                break;
+                        case "--resume":
+                                resumeFile = parseFile(name, value);
+                                break;
+                        case "--stream-decks":
+                                deckWriterThreads = value == null ? Runtime.getRuntime().availableProcessors() : parseOption(name, value, 1);
+                                break;
+                        case "--metrics":
+                                printMetrics = true;
+                                break;
+                        default:
+                                throw new IllegalArgumentException("Unknown option: " + arg);
+                        }
+                }
+                if (archiveFile != null && (checkpointFile != null || resumeFile != null))
+                        throw new IllegalArgumentException("--checkpoint and --resume need plain output files, not --archive");
+                if (engineMode == EngineMode.SEGMENTED && (invariantSampleRate > 0 || checkpointFile != null))
+                        throw new IllegalArgumentException("--check-invariants and --checkpoint cannot see cards between segments; use --engine=threads or tasks");
+        }
+
+        private static File parseFile(String name, String value) {
+                if (value == null || value.trim().isEmpty())
+                        throw new IllegalArgumentException("Invalid value for " + name + ": expected a file name");
+                return new File(value.trim());
+        }
+
+        private static int parseOption(String name, String value, int min) {
+                try {
+                        int parsed = Integer.parseInt(value == null ? "" : value.trim());
+                        if (parsed >= min)
+                                return parsed;
+                } catch (NumberFormatException e) {
+                        // fall through to the error below
+                }
+                throw new IllegalArgumentException("Invalid value for " + name + ": expected an integer >= " + min);
+        }
+
+        // The JFR listener lives in the java11 build profile, so the Java 8 build can only find it by name
+        static GameEventListener loadJfrListener() {
+                try {
+                        return (GameEventListener) Class.forName("cardgame.JfrGameEventListener").getConstructor().newInstance();
+                } catch (ReflectiveOperationException | LinkageError e) {
+                        throw new IllegalArgumentException("--jfr needs a build with the java11 profile (mvn -Pjava11) on Java 11 or later");
+                }
+        }
+
+        private static double parseRate(String name, String value) {
+                try {
+                        double parsed = Double.parseDouble(value.trim());
+                        if (parsed >= 0 && parsed <= 1)
+                                return parsed;
+                } catch (NumberFormatException e) {
+                        // fall through to the error below
+                }
+                throw new IllegalArgumentException("Invalid value for " + name + ": expected a number between 0 and 1");
+        }
+
         public void runGame() {
                 try (Scanner sc = new Scanner(System.in)) {
-                        int numPlayers = getNumberOfPlayers(sc);
-                        File packFile = getPackFile(sc);
-                        List<Card> pack = loader.loadPack(packFile, numPlayers);
+                        List<Card> pack;
+                        if (resumeFile != null) {
+                                // A checkpoint already holds the ring, so there is nothing to ask for or deal
+                                pack = GameCheckpoint.resume(this, resumeFile);
+                                System.out.println("Resumed " + players.size() + " players from " + resumeFile);
+                        } else {
+                                int numPlayers = getNumberOfPlayers(sc);
+                                File packFile = getPackFile(sc);
+                                pack = loader.loadPack(packFile, numPlayers);
 
-                        if (pack == null) {
-                                System.out.println("Invalid pack. Game aborted.");
-                                return;
-                        }
+                                if (pack == null) {
+                                        System.out.println("Invalid pack. Game aborted.");
+                                        return;
+                                }
 
-                        initialiseGame(numPlayers, pack);
-                        startPlayers();
-                        waitForPlayersToFinish();
+                                if (archiveFile != null)
+                                        outputArchive = new OutputArchive(archiveFile);
+                                if (parallelSetup)
+                                        initialiseGameParallel(numPlayers, pack);
+                                else
+                                        initialiseGame(numPlayers, pack);
+                        }
+                        startInvariantChecker(pack);
+                        startLatencyReporter();
+                        startMetricsServer();
+                        startCheckpointWriter();
+                        playGame();
+                        stopCheckpointWriter();
+                        stopMetricsServer();
+                        stopLatencyReporter();
+                        stopInvariantChecker();
                         writeDeckOutputs();
+                        closeOutputArchive();
+                        if (printMetrics)
+                                System.out.println(getTurnMetrics().toReport());
+                        if (accounting)
+                                System.out.println(ThreadAccounting.report(players));
 
                 } catch (Exception e) {
                         System.out.println("Unexpected error: " + e.getMessage());
@@ -97,8 +285,10 @@ public class CardGame {
         }
 
         public void initialiseGame(int n, List<Card> pack) throws IOException {
+                int maxDeckCards = maxDeckCards(n, pack.size());
+                int initialDeckCards = initialDeckCapacity(n, pack.size());
                 for (int i = 1; i <= n; i++) {
-                        decks.add(new CardDeck(i));
+                        decks.add(new CardDeck(i, initialDeckCards, maxDeckCards));
                 }
 
                 for (int i = 1; i <= n; i++) {
@@ -111,6 +301,17 @@ public class CardGame {
                 distributeInitialHands(n, pack);
         }
 
+        // Hands always hold 4 cards each between turns, so no deck can hold more than the rest of the pack
+        public static int maxDeckCards(int n, int packSize) {
+                return (int) Math.max(1, Math.min(CardRing.UNBOUNDED, (long) packSize - 4L * n));
+        }
+
+        // Room for the dealt cards plus slack; a full maxDeckCards slot per deck would be quadratic in n
+        public static int initialDeckCapacity(int n, int packSize) {
+                long dealt = ((long) packSize - 4L * n + n - 1) / n;
+                return (int) Math.min(maxDeckCards(n, packSize), Math.max(16, 2 * dealt));
+        }
+
         public void distributeInitialHands(int n, List<Card> pack) throws IOException {
                 Iterator<Card> it = pack.iterator();
                 int requiredCards = players.size() * 4;
@@ -142,7 +343,89 @@ public class CardGame {
                 }
         }
 
+        // Builds the same ring as initialiseGame, but creates decks, players and their output sinks across
+        // cores and deals each hand and deck straight from the pack by index
+        public void initialiseGameParallel(int n, List<Card> pack) throws IOException {
+                if (pack.size() < 4 * n) {
+                        throw new IllegalStateException("Not enough cards in deck");
+                }
+                Card[] cards = pack.toArray(new Card[0]);
+                int maxDeckCards = maxDeckCards(n, cards.length);
+                int initialDeckCards = initialDeckCapacity(n, cards.length);
+                CardDeck[] deckArray = new CardDeck[n];
+                Player[] playerArray = new Player[n];
+
+                IntStream.range(0, n).parallel().forEach(i -> {
+                        CardDeck deck = new CardDeck(i + 1, initialDeckCards, maxDeckCards);
+                        for (int k = 4 * n + i; k < cards.length; k += n)
+                                deck.addCard(cards[k]);
+                        deckArray[i] = deck;
+                });
+                try {
+                        IntStream.range(0, n).parallel().forEach(i -> {
+                                try {
+                                        Player p = new Player(i + 1, deckArray[i], deckArray[(i + 1) % n], this);
+                                        for (int round = 0; round < 4; round++)
+                                                p.hand.add(cards[round * n + i]);
+                                        playerArray[i] = p;
+                                } catch (IOException e) {
+                                        throw new UncheckedIOException(e);
+                                }
+                        });
+                } catch (UncheckedIOException e) {
+                        throw e.getCause();
+                }
+
+                decks.addAll(Arrays.asList(deckArray));
+                players.addAll(Arrays.asList(playerArray));
+        }
+
+        // Lowest-numbered player dealt four of a kind, or -1 if nobody can win before the first turn
+        public int findInitialWinner() {
+                for (Player p : players)
+                        if (p.hasWinningHand())
+                                return p.id;
+                return -1;
+        }
+
+        // Runs the game to completion; a game decided by the deal never starts any player thread
+        public void playGame() {
+                int initialWinner = findInitialWinner();
+                if (initialWinner < 0) {
+                        if (engineMode == EngineMode.TASKS) {
+                                try {
+                                        taskEngine = new TaskEngine(this, workers);
+                                        taskEngine.run();
+                                } catch (InterruptedException e) {
+                                        Thread.currentThread().interrupt();
+                                        System.out.println("Game interrupted.");
+                                }
+                                return;
+                        }
+                        if (engineMode == EngineMode.SEGMENTED) {
+                                try {
+                                        new SegmentedEngine(this, workers).run();
+                                } catch (InterruptedException e) {
+                                        Thread.currentThread().interrupt();
+                                        System.out.println("Game interrupted.");
+                                }
+                                return;
+                        }
+                        startPlayers();
+                        waitForPlayersToFinish();
+                        return;
+                }
+                startNanos = System.nanoTime();
+                declareWinner(initialWinner);
+                players.parallelStream().forEach(p -> {
+                        p.logInitialHand();
+                        p.logGameEnd();
+                });
+                endNanos = System.nanoTime();
+        }
+
         public void startPlayers() {
+                startNanos = System.nanoTime();
                 for (Player p : players) {
                         p.start();
                 }
@@ -156,11 +439,157 @@ public class CardGame {
                                 System.out.println("Player thread interrupted.");
                         }
                 }
+                endNanos = System.nanoTime();
+        }
+
+        // Samples card conservation in the background while the game runs; off unless a rate is set
+        public void startInvariantChecker(List<Card> pack) {
+                if (invariantSampleRate <= 0)
+                        return;
+                invariantChecker = new InvariantChecker(this, pack, invariantSampleRate, invariantIntervalMillis);
+                invariantChecker.start();
+        }
+
+        // Stops the sampler and always checks the final state once
+        public void stopInvariantChecker() throws InterruptedException {
+                if (invariantChecker == null)
+                        return;
+                invariantChecker.interrupt();
+                invariantChecker.join();
+                if (invariantChecker.getFailure() == null)
+                        invariantChecker.checkNow();
+                System.out.println("Invariant checks: " + invariantChecker.checks + ", "
+                                + (invariantChecker.getFailure() == null ? "all passed" : "FAILED"));
+        }
+
+        // Histograms are only attached, and so only cost anything, when a CSV file was asked for
+        public void startLatencyReporter() throws IOException {
+                if (latencyCsv == null)
+                        return;
+                latencyReporter = new LatencyReporter(this, latencyCsv, latencyIntervalMillis);
+                latencyReporter.start();
+        }
+
+        public void stopLatencyReporter() throws InterruptedException {
+                if (latencyReporter == null)
+                        return;
+                latencyReporter.finish();
+                System.out.println("Latency histograms written to " + latencyCsv);
+        }
+
+        public void startMetricsServer() throws IOException {
+                if (metricsPort < 0)
+                        return;
+                metricsServer = new MetricsServer(this, metricsPort);
+                metricsServer.start();
+                System.out.println("Metrics at http://localhost:" + metricsServer.getPort() + "/metrics");
+        }
+
+        public void stopMetricsServer() {
+                if (metricsServer != null)
+                        metricsServer.stop();
+        }
+
+        public void startCheckpointWriter() {
+                if (checkpointFile == null)
+                        return;
+                checkpointWriter = new CheckpointWriter(this, checkpointFile, checkpointIntervalMillis);
+                checkpointWriter.start();
+        }
+
+        public void stopCheckpointWriter() throws InterruptedException {
+                if (checkpointWriter == null)
+                        return;
+                checkpointWriter.interrupt();
+                checkpointWriter.join();
+                System.out.println(checkpointWriter.summary());
+        }
+
+        public TurnMetrics getTurnMetrics() {
+                return new TurnMetrics(players, turnQuantum, endNanos - startNanos, getQuiesceNanos());
+        }
+
+        // Counts the characters handed to a player's log file; logs are ASCII, so this is also the file length
+        public static class LogCounter extends FilterWriter {
+                public volatile long count;
+
+                public LogCounter(Writer out, long initialCount) {
+                        super(out);
+                        this.count = initialCount;
+                }
+
+                @Override
+                public void write(int c) throws IOException {
+                        out.write(c);
+                        count++;
+                }
+
+                @Override
+                public void write(char[] cbuf, int off, int len) throws IOException {
+                        out.write(cbuf, off, len);
+                        count += len;
+                }
+
+                @Override
+                public void write(String str, int off, int len) throws IOException {
+                        out.write(str, off, len);
+                        count += len;
+                }
+        }
+
+        public File outputFile(String name) {
+                return outputDirectory == null ? new File(name) : new File(outputDirectory, name);
+        }
+
+        // Player logs go to their own file, or to an entry of the output archive when one is in use
+        public PrintWriter openPlayerLog(int id) throws IOException {
+                return openPlayerLog(id, -1);
+        }
+
+        // A non-negative resumeOffset keeps the first resumeOffset bytes of an existing log and appends after them
+        public PrintWriter openPlayerLog(int id, long resumeOffset) throws IOException {
+                String name = "player" + id + "_output.txt";
+                if (outputArchive != null)
+                        return outputArchive.openWriter(name);
+                File file = outputFile(name);
+                if (resumeOffset >= 0) {
+                        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                                if (raf.length() < resumeOffset)
+                                        throw new IOException("Cannot resume: " + name + " is shorter than the checkpoint");
+                                raf.setLength(resumeOffset);
+                        }
+                }
+                LogCounter counter = new LogCounter(new FileWriter(file, resumeOffset >= 0), Math.max(0, resumeOffset));
+                logCounters.put(id, counter);
+                return new PrintWriter(new BufferedWriter(counter), true);
+        }
+
+        // Bytes written to a player's log file so far, or -1 if the log is not a counted file
+        public long logOffset(int id) {
+                LogCounter counter = logCounters.get(id);
+                return counter == null ? -1 : counter.count;
+        }
+
+        public void closeOutputArchive() throws IOException {
+                if (outputArchive != null) {
+                        outputArchive.close();
+                        System.out.println("Outputs written to archive " + archiveFile);
+                }
         }
 
         public void writeDeckOutputs() {
+                if (outputArchive != null) {
+                        for (CardDeck d : decks)
+                                outputArchive.writeEntry("deck" + d.getId() + "_output.txt",
+                                                d.getContentsString() + System.lineSeparator());
+                        return;
+                }
+                if (deckWriterThreads > 0) {
+                        new DeckOutputWriter(deckWriterThreads).writeAll(this, decks);
+                        return;
+                }
                 for (CardDeck d : decks) {
-                        try (PrintWriter pw = new PrintWriter(new FileWriter("deck" + d.getId() + "_output.txt"))) {
+                        try (PrintWriter pw = new PrintWriter(new FileWriter(outputFile("deck" + d.getId() + "_output.txt")))) {
                                 pw.println(d.getContentsString());
                         } catch (IOException e) {
                                 System.out.println("Error writing deck file: " + e.getMessage());
@@ -170,12 +599,55 @@ public class CardGame {
 
         public synchronized void declareWinner(int id) {
                 if (!gameOver) {
-                        gameOver = true;
+                        gameOverNanos = System.nanoTime();
+                        // Winner first: whoever sees gameOver must also see who won
                         winnerId = id;
+                        gameOver = true;
                         System.out.println("player " + id + " wins");
+                        events.onWinnerDeclared(id);
+                        broadcastGameOver();
+                }
+        }
+
+        // Ends the game without a winner, e.g. when a runtime invariant no longer holds
+        public synchronized void abortGame(String reason) {
+                if (!gameOver) {
+                        abortReason = reason;
+                        gameOverNanos = System.nanoTime();
+                        gameOver = true;
+                        System.out.println("game aborted: " + reason);
+                        broadcastGameOver();
                 }
         }
 
+        public String getAbortReason() {
+                return abortReason;
+        }
+
+        // Cuts short every turn-delay sleep and pending tryLock wait so players see the game over at once,
+        // rather than at their next loop check; parked task-engine players are resubmitted
+        private void broadcastGameOver() {
+                Thread self = Thread.currentThread();
+                for (Player p : players)
+                        if (p != self && p.isAlive())
+                                p.interrupt();
+                if (taskEngine != null)
+                        taskEngine.wakeAll();
+        }
+
+        // Time from the game ending to the last player writing its final log lines, or -1 while players remain
+        public long getQuiesceNanos() {
+                if (!gameOver || players.isEmpty())
+                        return -1;
+                long last = 0;
+                for (Player p : players) {
+                        if (!p.exited)
+                                return -1;
+                        last = Math.max(last, p.exitNanos);
+                }
+                return Math.max(0, last - gameOverNanos);
+        }
+
         public boolean isGameOver() {
                 return gameOver;
         }
@@ -183,4 +655,20 @@ public class CardGame {
         public int getWinnerId() {
                 return winnerId;
         }
+
+        public int getTurnQuantum() {
+                return turnQuantum;
+        }
+
+        public boolean isAccounting() {
+                return accounting;
+        }
+
+        public TurnMode getTurnMode() {
+                return turnMode;
+        }
+
+        public int getTurnDelayMillis() {
+                return turnDelayMillis;
+        }
 }
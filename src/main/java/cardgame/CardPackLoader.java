@@ -8,6 +8,9 @@ import java.util.*;
 Separates the main game logic from file I/O concerns.
  */
 public class CardPackLoader {
+        // Binary packs: the bytes "CPK1", a big-endian long card count, then one big-endian int per card
+        public static final int BINARY_MAGIC = 0x43504B31;
+        public static final int BINARY_HEADER_BYTES = 12;
 
  
         public static List<Card> loadPack(File file, int numberOfPlayers) throws IOException {
@@ -23,6 +26,12 @@ public class CardPackLoader {
                 if (!file.canRead()) {
                         throw new IOException("Cannot read pack file: " + filename);
                 }
+                if (CompressedPackReader.isCompressed(file)) {
+                        return new CompressedPackReader(file).loadPack(numberOfPlayers);
+                }
+                if (isBinaryPack(file)) {
+                        return loadBinaryPack(file, numberOfPlayers);
+                }
 
                 List<Card> pack = new ArrayList<>();
                 int lineNumber = 0;
@@ -61,17 +70,54 @@ public class CardPackLoader {
                                         " cards for " + numberOfPlayers + " players, but found " + pack.size());
                 }
 
-                System.out.println("✓ Pack loaded successfully: " + pack.size() + " cards");
+                System.out.println("\u2713 Pack loaded successfully: " + pack.size() + " cards");
                 return pack;
         }
 
 
+        public static boolean isBinaryPack(File file) throws IOException {
+                if (file.length() < BINARY_HEADER_BYTES)
+                        return false;
+                try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+                        return in.readInt() == BINARY_MAGIC;
+                }
+        }
+
+        public static List<Card> loadBinaryPack(File file, int numberOfPlayers) throws IOException {
+                if (numberOfPlayers <= 0) {
+                        throw new IllegalArgumentException("Number of players must be positive");
+                }
+                int expectedSize = 8 * numberOfPlayers;
+                List<Card> pack = new ArrayList<>(expectedSize);
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                        if (in.readInt() != BINARY_MAGIC) {
+                                throw new IOException("Not a binary pack file: " + file.getName());
+                        }
+                        long count = in.readLong();
+                        if (count != expectedSize || file.length() != BINARY_HEADER_BYTES + 4 * count) {
+                                throw new IOException("Invalid pack size: expected " + expectedSize +
+                                                " cards for " + numberOfPlayers + " players, but found " + count);
+                        }
+                        for (int i = 1; i <= count; i++) {
+                                int cardValue = in.readInt();
+                                if (cardValue < 0) {
+                                        throw new IOException("Invalid card value at card " + i +
+                                                        ": " + cardValue + " (cannot be negative)");
+                                }
+                                pack.add(new Card(cardValue));
+                        }
+                } catch (EOFException e) {
+                        throw new IOException("Failed to read pack file: unexpected end of " + file.getName(), e);
+                }
+                System.out.println("\u2713 Pack loaded successfully: " + pack.size() + " cards");
+                return pack;
+        }
+
         public static void printPackStatistics(List<Card> pack, int numberOfPlayers) {
-                Map<Integer, Integer> frequency = new HashMap<>();
+                IntCountMap frequency = new IntCountMap();
 
                 for (Card card : pack) {
-                        int value = card.getDenomination();
-                        frequency.put(value, frequency.getOrDefault(value, 0) + 1);
+                        frequency.increment(card.getDenomination());
                 }
 
                 System.out.println("Pack Statistics:");
@@ -79,9 +125,14 @@ public class CardPackLoader {
                 System.out.println("Unique values: " + frequency.size());
                 System.out.println("Value frequencies:");
 
-                frequency.entrySet().stream()
-                                .sorted(Map.Entry.comparingByKey())
-                                .forEach(entry -> System.out.println(
-                                                "  Value " + entry.getKey() + ": " + entry.getValue() + " cards"));
+                for (int value : frequency.sortedKeys())
+                        System.out.println("  Value " + value + ": " + frequency.get(value) + " cards");
+        }
+
+        // Streams the file instead of loading it; see PackStatistics for the report format
+        public static void printPackStatistics(File file, int numberOfPlayers) throws IOException {
+                PrintWriter out = new PrintWriter(new OutputStreamWriter(System.out));
+                PackStatistics.compute(file, numberOfPlayers).writeReport(out);
+                out.flush();
         }
 }
@@ -0,0 +1,101 @@
+package cardgame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ Bounded FIFO ring of cards backed by a single array.
+ Adding and removing only move the head/size indices, so a deck in steady state allocates
+ nothing and walks memory sequentially. The backing array starts at the requested size and
+ doubles on demand up to the hard maximum, which for a game is the most cards any single
+ deck can ever hold. Not thread-safe; CardDeck guards it.
+ */
+public class CardRing {
+        public static final int UNBOUNDED = Integer.MAX_VALUE - 8;
+
+        private Card[] slots;
+        private final int maxCapacity;
+        private int head;
+        private int size;
+
+        public CardRing(int initialCapacity, int maxCapacity) {
+                if (maxCapacity <= 0) {
+                        throw new IllegalArgumentException("Deck capacity must be positive");
+                }
+                this.maxCapacity = maxCapacity;
+                this.slots = new Card[Math.max(1, Math.min(initialCapacity, maxCapacity))];
+        }
+
+        public boolean add(Card card) {
+                if (size == slots.length) {
+                        if (size == maxCapacity) {
+                                throw new IllegalStateException("Deck is full: capacity " + maxCapacity);
+                        }
+                        grow();
+                }
+                int tail = head + size;
+                if (tail >= slots.length)
+                        tail -= slots.length;
+                slots[tail] = card;
+                size++;
+                return true;
+        }
+
+        public Card poll() {
+                if (size == 0)
+                        return null;
+                Card card = slots[head];
+                slots[head] = null;
+                if (++head == slots.length)
+                        head = 0;
+                size--;
+                return card;
+        }
+
+        public Card peek() {
+                return size == 0 ? null : slots[head];
+        }
+
+        // i-th card from the front of the queue
+        public Card get(int i) {
+                if (i < 0 || i >= size) {
+                        throw new IndexOutOfBoundsException("Index " + i + ", size " + size);
+                }
+                int slot = head + i;
+                if (slot >= slots.length)
+                        slot -= slots.length;
+                return slots[slot];
+        }
+
+        public int size() {
+                return size;
+        }
+
+        public boolean isEmpty() {
+                return size == 0;
+        }
+
+        public int capacity() {
+                return slots.length;
+        }
+
+        public int maxCapacity() {
+                return maxCapacity;
+        }
+
+        public List<Card> toList() {
+                List<Card> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++)
+                        list.add(get(i));
+                return list;
+        }
+
+        private void grow() {
+                int newLength = (int) Math.min((long) slots.length * 2, maxCapacity);
+                Card[] bigger = new Card[newLength];
+                for (int i = 0; i < size; i++)
+                        bigger[i] = get(i);
+                slots = bigger;
+                head = 0;
+        }
+}
@@ -0,0 +1,66 @@
+package cardgame;
+
+import java.io.*;
+
+/*
+ Background thread that checkpoints a running game every interval until it is over.
+ Only the snapshot pauses the players; serialising and replacing the file happen while they
+ play on. A round where some player has not started yet is simply skipped.
+ */
+public class CheckpointWriter extends Thread {
+        public final CardGame game;
+        public final File file;
+        public final long intervalMillis;
+        public volatile long written;
+        public volatile long maxPauseNanos;
+        public volatile long lastPauseNanos;
+        private volatile IOException failure;
+
+        public CheckpointWriter(CardGame game, File file, long intervalMillis) {
+                super("checkpoint-writer");
+                this.game = game;
+                this.file = file;
+                this.intervalMillis = intervalMillis;
+                setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+                try {
+                        while (!game.isGameOver()) {
+                                Thread.sleep(Math.max(1, intervalMillis));
+                                if (!game.isGameOver())
+                                        checkpoint();
+                        }
+                } catch (InterruptedException e) {
+                        // stopped by the game
+                } catch (IOException e) {
+                        failure = e;
+                        System.out.println("Checkpointing stopped: " + e.getMessage());
+                }
+        }
+
+        // Returns false if the players were not all running yet
+        public boolean checkpoint() throws IOException {
+                GameSnapshot snapshot;
+                try {
+                        snapshot = GameCheckpoint.capture(game);
+                } catch (IllegalStateException e) {
+                        return false;
+                }
+                GameCheckpoint.write(snapshot, file);
+                lastPauseNanos = snapshot.pauseNanos;
+                maxPauseNanos = Math.max(maxPauseNanos, snapshot.pauseNanos);
+                written++;
+                return true;
+        }
+
+        public IOException getFailure() {
+                return failure;
+        }
+
+        public String summary() {
+                return "Checkpoints written to " + file + ": " + written + " (max pause "
+                                + String.format("%.3f", maxPauseNanos / 1e6) + " ms)";
+        }
+}
@@ -0,0 +1,270 @@
+package cardgame;
+
+import java.io.*;
+
+/*
+ Plays rings of tens of millions of seats with no per-seat objects at all.
+ The whole game lives in a few primitive arrays in struct-of-arrays layout: four hand slots per
+ seat, an 8-slot ring per deck with a byte head and a byte size, and one SplitMix64 state per
+ seat, about 58 bytes a seat against kilobytes for a Player with its thread, hand list, deck,
+ lock and log. Nothing is allocated once the pack is dealt, so a game never triggers a GC.
+ Seats take one turn each in ring order, round after round, on one thread, like the segmented
+ engine with one worker and a quantum of 1. Under that schedule a deck holds 4 cards when its
+ player comes to draw from it and 5 at most, which is what makes the fixed 8-slot ring enough
+ and why no per-seat turn counter is needed: seat i has played every completed round, plus one
+ more if it comes before the seat where the game stopped.
+ Discards follow Player.selectDiscard, including the order in which a hand keeps its cards, so a
+ seat seeded like a Player makes the same choices. There are no player logs; the result is the
+ winner, the number of rounds and the final hands and decks.
+ Usage: java cardgame.CompactEngine <players> (<pack file> | --generate=uniform|skewed|winnable|unwinnable)
+            [--seed=s] [--max-rounds=r]
+ */
+public class CompactEngine {
+        static final int HAND = 4;
+        static final int DECK_SLOTS = 8;
+        static final int DECK_MASK = DECK_SLOTS - 1;
+        static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+        public final int players;
+        private final int[] hands;
+        private final int[] deckSlots;
+        private final byte[] deckHead;
+        private final byte[] deckSize;
+        private final long[] rng;
+        private long dealt;
+        private long rounds;
+        private int stoppedAt;
+        private int winnerId = -1;
+
+        public CompactEngine(int players, long seed) {
+                if (players <= 0) {
+                        throw new IllegalArgumentException("Number of players must be positive");
+                }
+                if ((long) players * DECK_SLOTS > Integer.MAX_VALUE - 8) {
+                        throw new IllegalArgumentException("At most " + (Integer.MAX_VALUE - 8) / DECK_SLOTS + " players fit one engine");
+                }
+                this.players = players;
+                this.hands = new int[players * HAND];
+                this.deckSlots = new int[players * DECK_SLOTS];
+                this.deckHead = new byte[players];
+                this.deckSize = new byte[players];
+                this.rng = new long[players];
+                for (int i = 0; i < players; i++)
+                        rng[i] = seedFor(seed, i + 1);
+        }
+
+        // The discard stream of seat id; give a Player this rngState to have it make the same choices
+        public static long seedFor(long seed, int id) {
+                return seed ^ (id * GOLDEN);
+        }
+
+        public static int bytesPerSeat() {
+                return HAND * 4 + DECK_SLOTS * 4 + 1 + 1 + 8;
+        }
+
+        public static void main(String[] args) {
+                if (args.length < 2) {
+                        System.out.println("Usage: java cardgame.CompactEngine <players> (<pack file> | "
+                                        + "--generate=uniform|skewed|winnable|unwinnable) [--seed=s] [--max-rounds=r]");
+                        return;
+                }
+                try {
+                        int n = Integer.parseInt(args[0]);
+                        long seed = System.nanoTime();
+                        long maxRounds = Long.MAX_VALUE;
+                        for (int i = 2; i < args.length; i++) {
+                                String arg = args[i];
+                                if (arg.startsWith("--seed="))
+                                        seed = Long.parseLong(arg.substring("--seed=".length()));
+                                else if (arg.startsWith("--max-rounds="))
+                                        maxRounds = Long.parseLong(arg.substring("--max-rounds=".length()));
+                                else
+                                        throw new IllegalArgumentException("Unknown option: " + arg);
+                        }
+                        long start = System.nanoTime();
+                        CompactEngine engine = new CompactEngine(n, seed);
+                        if (args[1].startsWith("--generate=")) {
+                                PackGenerator.Distribution distribution = PackGenerator.Distribution.parse(args[1].substring("--generate=".length()));
+                                new PackGenerator(n, distribution, 1, seed).forEachValue(engine::deal);
+                        } else {
+                                engine.load(new File(args[1]));
+                        }
+                        long dealtAt = System.nanoTime();
+                        int winner = engine.play(maxRounds);
+                        long end = System.nanoTime();
+                        System.out.println(winner > 0 ? "player " + winner + " wins" : "no winner after " + engine.getRounds() + " rounds");
+                        long turns = engine.getTurns();
+                        System.out.printf("Seats: %d, state %d bytes/seat (%d MB), dealt in %d ms%n", n, bytesPerSeat(),
+                                        (long) n * bytesPerSeat() >> 20, (dealtAt - start) / 1000000);
+                        System.out.printf("Turns: %d in %d ms (%.0f turns/s)%n", turns, (end - dealtAt) / 1000000,
+                                        turns * 1e9 / Math.max(1, end - dealtAt));
+                } catch (IOException | IllegalArgumentException | IllegalStateException e) {
+                        System.out.println("Compact game failed: " + e.getMessage());
+                }
+        }
+
+        // Deals the next card of the pack: the first 4n round-robin into hands, the rest round-robin onto the decks
+        public void deal(int value) {
+                long k = dealt;
+                if (k >= 8L * players) {
+                        throw new IllegalStateException("Pack must contain exactly " + 8L * players + " cards");
+                }
+                if (k < (long) HAND * players) {
+                        hands[(int) (k % players) * HAND + (int) (k / players)] = value;
+                } else {
+                        int d = (int) ((k - (long) HAND * players) % players);
+                        addToDeck(d, value);
+                }
+                dealt = k + 1;
+        }
+
+        // Streams a text pack file into the engine without building cards
+        public void load(File file) throws IOException {
+                if (!file.exists()) {
+                        throw new FileNotFoundException("Pack file not found: " + file.getName());
+                }
+                PackParser parser = new PackParser(value -> {
+                        if (dealt < 8L * players)
+                                deal(value);
+                        else
+                                dealt++;
+                });
+                byte[] buffer = new byte[1 << 16];
+                try (InputStream in = new FileInputStream(file)) {
+                        for (int read; (read = in.read(buffer)) > 0;)
+                                parser.feed(buffer, 0, read);
+                        parser.finish();
+                }
+                if (dealt != 8L * players) {
+                        throw new IOException("Invalid pack size: expected " + 8L * players + " cards for " + players
+                                        + " players, found " + dealt);
+                }
+        }
+
+        // Plays until a seat holds four of a kind or maxRounds rounds have passed; returns the winner's id or -1
+        public int play(long maxRounds) {
+                if (dealt != 8L * players) {
+                        throw new IllegalStateException("Deal all " + 8L * players + " cards before playing; " + dealt + " dealt");
+                }
+                if (winnerId > 0)
+                        return winnerId;
+                for (int i = 0; i < players; i++) {
+                        if (isWinning(i))
+                                return winnerId = i + 1;
+                }
+                for (; rounds < maxRounds; rounds++) {
+                        for (int i = 0; i < players; i++) {
+                                takeTurn(i);
+                                if (isWinning(i)) {
+                                        stoppedAt = i + 1;
+                                        return winnerId = i + 1;
+                                }
+                        }
+                }
+                return -1;
+        }
+
+        private void takeTurn(int seat) {
+                int drawn = drawFromDeck(seat);
+                int base = seat * HAND;
+                int preferred = seat + 1;
+                // The hand as Player sees it after the draw: its four cards in order, then the drawn one
+                int h0 = hands[base], h1 = hands[base + 1], h2 = hands[base + 2], h3 = hands[base + 3];
+                int candidates = (h0 != preferred ? 1 : 0) + (h1 != preferred ? 1 : 0) + (h2 != preferred ? 1 : 0)
+                                + (h3 != preferred ? 1 : 0) + (drawn != preferred ? 1 : 0);
+                int position;
+                if (candidates == 0) {
+                        position = nextRandom(seat, HAND + 1);
+                } else {
+                        // position of the pick-th card that is not the preferred value
+                        int pick = nextRandom(seat, candidates);
+                        position = 0;
+                        for (int p = 0;; p++) {
+                                int v = p < HAND ? hands[base + p] : drawn;
+                                if (v != preferred && pick-- == 0) {
+                                        position = p;
+                                        break;
+                                }
+                        }
+                }
+                int discarded = position < HAND ? hands[base + position] : drawn;
+                // hand.remove(Card) drops the first card of equal value, and the later cards shift down over it
+                int first = 0;
+                while (first < HAND && hands[base + first] != discarded)
+                        first++;
+                if (first < HAND) {
+                        for (int p = first; p < HAND - 1; p++)
+                                hands[base + p] = hands[base + p + 1];
+                        hands[base + HAND - 1] = drawn;
+                }
+                addToDeck(seat + 1 == players ? 0 : seat + 1, discarded);
+        }
+
+        private boolean isWinning(int seat) {
+                int base = seat * HAND;
+                int v = hands[base];
+                return hands[base + 1] == v && hands[base + 2] == v && hands[base + 3] == v;
+        }
+
+        // Same SplitMix64 step and bounded mapping as Player.nextRandom
+        private int nextRandom(int seat, int bound) {
+                long z = (rng[seat] += GOLDEN);
+                z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+                z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+                z ^= z >>> 31;
+                return (int) (((z >>> 32) * bound) >>> 32);
+        }
+
+        private int drawFromDeck(int d) {
+                int size = deckSize[d];
+                if (size == 0) {
+                        throw new IllegalStateException("Deck " + (d + 1) + " is empty");
+                }
+                int head = deckHead[d];
+                int value = deckSlots[d * DECK_SLOTS + head];
+                deckHead[d] = (byte) ((head + 1) & DECK_MASK);
+                deckSize[d] = (byte) (size - 1);
+                return value;
+        }
+
+        private void addToDeck(int d, int value) {
+                int size = deckSize[d];
+                if (size == DECK_SLOTS) {
+                        throw new IllegalStateException("Deck " + (d + 1) + " is full: capacity " + DECK_SLOTS);
+                }
+                deckSlots[d * DECK_SLOTS + ((deckHead[d] + size) & DECK_MASK)] = value;
+                deckSize[d] = (byte) (size + 1);
+        }
+
+        public int getWinnerId() {
+                return winnerId;
+        }
+
+        // Completed rounds; a game won by the deal plays none
+        public long getRounds() {
+                return rounds;
+        }
+
+        public long getTurns() {
+                return rounds * players + stoppedAt;
+        }
+
+        // Turns seat id has taken, from the round count and where the game stopped
+        public long turnsOf(int id) {
+                return rounds + (id <= stoppedAt ? 1 : 0);
+        }
+
+        public int[] hand(int id) {
+                int[] hand = new int[HAND];
+                System.arraycopy(hands, (id - 1) * HAND, hand, 0, HAND);
+                return hand;
+        }
+
+        public int[] deck(int id) {
+                int d = id - 1;
+                int[] values = new int[deckSize[d]];
+                for (int i = 0; i < values.length; i++)
+                        values[i] = deckSlots[d * DECK_SLOTS + ((deckHead[d] + i) & DECK_MASK)];
+                return values;
+        }
+}
@@ -0,0 +1,127 @@
+package cardgame;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+
+/*
+ Loads gzip-compressed text packs (*.gz) without decompressing them to disk first.
+ A decompressor thread inflates the file into fixed-size chunks and hands them over a bounded
+ queue to the calling thread, which runs them through PackParser and builds the cards, so
+ inflating and parsing overlap. Chunk buffers go back to the decompressor through a second queue
+ and are reused. Errors and the size check read exactly as CardPackLoader's do for plain files.
+ */
+public class CompressedPackReader {
+        static final int DEFAULT_CHUNK_BYTES = 1 << 16;
+        static final int QUEUE_CHUNKS = 8;
+
+        private static final class Chunk {
+                final byte[] bytes;
+                int length;
+                IOException failure;
+
+                Chunk(int size) {
+                        bytes = new byte[size];
+                }
+        }
+
+        private final File file;
+        private final int chunkBytes;
+        private static final Chunk END = new Chunk(0);
+
+        public CompressedPackReader(File file) {
+                this(file, DEFAULT_CHUNK_BYTES);
+        }
+
+        CompressedPackReader(File file, int chunkBytes) {
+                this.file = file;
+                this.chunkBytes = chunkBytes;
+        }
+
+        public static boolean isCompressed(File file) {
+                return file.getName().toLowerCase(Locale.ROOT).endsWith(".gz");
+        }
+
+        public List<Card> loadPack(int numberOfPlayers) throws IOException {
+                if (numberOfPlayers <= 0) {
+                        throw new IllegalArgumentException("Number of players must be positive");
+                }
+                if (!file.exists()) {
+                        throw new FileNotFoundException("Pack file not found: " + file.getName());
+                }
+                if (!file.canRead()) {
+                        throw new IOException("Cannot read pack file: " + file.getName());
+                }
+                int expectedSize = 8 * numberOfPlayers;
+                List<Card> pack = new ArrayList<>(expectedSize);
+                // Cards past the expected size are only counted, so an oversized pack cannot exhaust memory
+                PackParser parser = new PackParser(v -> {
+                        if (pack.size() < expectedSize)
+                                pack.add(new Card(v));
+                });
+                BlockingQueue<Chunk> full = new ArrayBlockingQueue<>(QUEUE_CHUNKS);
+                BlockingQueue<Chunk> free = new ArrayBlockingQueue<>(QUEUE_CHUNKS + 1);
+                for (int i = 0; i <= QUEUE_CHUNKS; i++)
+                        free.add(new Chunk(chunkBytes));
+                Thread decompressor = new Thread(() -> decompress(full, free), "pack-decompressor");
+                decompressor.setDaemon(true);
+                decompressor.start();
+                try {
+                        while (true) {
+                                Chunk chunk = full.take();
+                                if (chunk == END)
+                                        break;
+                                if (chunk.failure != null)
+                                        throw chunk.failure;
+                                parser.feed(chunk.bytes, 0, chunk.length);
+                                free.put(chunk);
+                        }
+                        parser.finish();
+                } catch (IOException e) {
+                        throw new IOException("Failed to read pack file: " + e.getMessage(), e);
+                } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while reading " + file.getName());
+                } finally {
+                        decompressor.interrupt();
+                }
+
+                if (parser.getCardCount() != expectedSize) {
+                        throw new IOException("Invalid pack size: expected " + expectedSize +
+                                        " cards for " + numberOfPlayers + " players, but found " + parser.getCardCount());
+                }
+                System.out.println("\u2713 Pack loaded successfully: " + pack.size() + " cards");
+                return pack;
+        }
+
+        // Runs on the decompressor thread; a failure travels down the queue in place of data
+        private void decompress(BlockingQueue<Chunk> full, BlockingQueue<Chunk> free) {
+                try (InputStream in = new GZIPInputStream(new FileInputStream(file), chunkBytes)) {
+                        while (true) {
+                                Chunk chunk = free.take();
+                                int length = 0;
+                                int n;
+                                while (length < chunk.bytes.length && (n = in.read(chunk.bytes, length, chunk.bytes.length - length)) > 0)
+                                        length += n;
+                                if (length == 0) {
+                                        full.put(END);
+                                        return;
+                                }
+                                chunk.length = length;
+                                full.put(chunk);
+                        }
+                } catch (IOException e) {
+                        Chunk failed = new Chunk(0);
+                        failed.failure = e;
+                        try {
+                                full.put(failed);
+                        } catch (InterruptedException stopped) {
+                                // the parser has already given up
+                        }
+                } catch (InterruptedException e) {
+                        // the parser stopped early
+                }
+        }
+}
@@ -0,0 +1,107 @@
+package cardgame;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/*
+ Writes deck output files concurrently and in constant memory, for decks that hold millions of
+ cards after long games.
+ Each deck is copied out a chunk of values at a time (holding the deck's monitor only for the
+ copy), encoded straight to ASCII in a reused buffer and written to the file's channel, so no
+ deck is ever turned into one big String. A bounded pool writes several decks at once. The
+ bytes are the same as the plain println(getContentsString()) path produces.
+ */
+public class DeckOutputWriter {
+        static final int DEFAULT_CHUNK_CARDS = 8192;
+        static final int BUFFER_BYTES = 1 << 16;
+        // longest encoding of one value: a sign, ten digits and the separating space
+        private static final int MAX_VALUE_BYTES = 12;
+        private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+        public final int threads;
+        final int chunkCards;
+
+        public DeckOutputWriter(int threads) {
+                this(threads, DEFAULT_CHUNK_CARDS);
+        }
+
+        DeckOutputWriter(int threads, int chunkCards) {
+                this.threads = Math.max(1, threads);
+                this.chunkCards = Math.max(1, chunkCards);
+        }
+
+        // Writes deckN_output.txt for every deck via game.outputFile; a failed deck is reported and the rest still written
+        public void writeAll(CardGame game, List<CardDeck> decks) {
+                ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, decks.size())));
+                try {
+                        List<Future<?>> pending = new ArrayList<>();
+                        for (CardDeck d : decks)
+                                pending.add(pool.submit(() -> {
+                                        write(d, game.outputFile("deck" + d.getId() + "_output.txt"));
+                                        return null;
+                                }));
+                        for (Future<?> f : pending) {
+                                try {
+                                        f.get();
+                                } catch (ExecutionException e) {
+                                        System.out.println("Error writing deck file: " + e.getCause().getMessage());
+                                }
+                        }
+                } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        System.out.println("Deck output interrupted.");
+                } finally {
+                        pool.shutdownNow();
+                }
+        }
+
+        public void write(CardDeck deck, File file) throws IOException {
+                int[] values = new int[chunkCards];
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+                byte[] digits = new byte[MAX_VALUE_BYTES];
+                try (FileChannel channel = new FileOutputStream(file).getChannel()) {
+                        buffer.put(("deck" + deck.getId() + " contents:").getBytes(StandardCharsets.US_ASCII));
+                        for (int from = 0;;) {
+                                int count = deck.copyValues(from, values);
+                                if (count == 0)
+                                        break;
+                                from += count;
+                                for (int i = 0; i < count; i++) {
+                                        if (buffer.remaining() < MAX_VALUE_BYTES)
+                                                drain(buffer, channel);
+                                        buffer.put((byte) ' ');
+                                        int length = encode(values[i], digits);
+                                        buffer.put(digits, digits.length - length, length);
+                                }
+                        }
+                        if (buffer.remaining() < LINE_SEPARATOR.length)
+                                drain(buffer, channel);
+                        buffer.put(LINE_SEPARATOR);
+                        drain(buffer, channel);
+                }
+        }
+
+        private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+                buffer.flip();
+                while (buffer.hasRemaining())
+                        channel.write(buffer);
+                buffer.clear();
+        }
+
+        // Writes the decimal form of value right-aligned into digits; returns its length
+        static int encode(int value, byte[] digits) {
+                int at = digits.length;
+                long v = Math.abs((long) value);
+                do {
+                        digits[--at] = (byte) ('0' + v % 10);
+                        v /= 10;
+                } while (v > 0);
+                if (value < 0)
+                        digits[--at] = '-';
+                return digits.length - at;
+        }
+}
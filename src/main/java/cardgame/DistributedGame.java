@@ -0,0 +1,326 @@
+package cardgame;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.zip.GZIPInputStream;
+
+/*
+ Coordinator of a game whose ring is split across several JVMs (DistributedNode), for rings too
+ big for one heap. Every node takes one contiguous segment of players and their left decks, as
+ in the segmented engine; the last player of a segment discards onto the first deck of the next
+ node, and those cards travel node to node over a loopback socket in batches.
+ The coordinator listens on the loopback interface. Each node connects, announces the port it
+ takes its incoming boundary deck on, and receives its setup (segment bounds, the next node's
+ port, turn quantum, output directory). The pack file (text, gzip or binary) is then streamed
+ once and every card is written straight to the node that owns its seat, dealt exactly as
+ CardGame does, so the coordinator never holds the pack, a hand or a deck. Each node reports
+ the first winning hand it was dealt and the coordinator answers with GO and the lowest of them.
+ The first node to report a winning hand wins: the coordinator sends STOP to every node, each
+ node flushes its boundary stream, waits for the previous node's, writes its own player and deck
+ output files and reports how many cards it moved.
+ Control messages are a type byte followed by ints; boundary batches are [int count][values],
+ and a count of -1 ends the stream.
+ Usage: java cardgame.DistributedGame coordinator <players> <pack file> --nodes=k [--port=p] [--spawn]
+            [--output=dir] [--quantum=q]
+        java cardgame.DistributedGame node <port>
+ */
+public class DistributedGame {
+        static final byte HELLO = 1;
+        static final byte WINNER = 2;
+        static final byte DONE = 3;
+        static final byte DEALT = 4;
+        static final byte SETUP = 10;
+        static final byte STOP = 11;
+        static final byte GO = 12;
+        static final int ACCEPT_TIMEOUT_MILLIS = 30000;
+
+        public final int nodes;
+        private final ServerSocket server;
+        private DataOutputStream[] toNode;
+        private boolean setupSent;
+        private boolean stopped;
+        public volatile int winnerId = -1;
+        public volatile String abortReason;
+        public long cardsMoved;
+
+        public DistributedGame(int nodes, int port) throws IOException {
+                if (nodes <= 0) {
+                        throw new IllegalArgumentException("Number of nodes must be positive");
+                }
+                this.nodes = nodes;
+                this.server = new ServerSocket(port, nodes, InetAddress.getLoopbackAddress());
+        }
+
+        public int getPort() {
+                return server.getLocalPort();
+        }
+
+        public static void main(String[] args) {
+                try {
+                        if (args.length == 2 && args[0].equals("node")) {
+                                new DistributedNode(Integer.parseInt(args[1])).play();
+                                return;
+                        }
+                        if (args.length < 3 || !args[0].equals("coordinator")) {
+                                System.out.println("Usage: java cardgame.DistributedGame coordinator <players> <pack file> --nodes=k "
+                                                + "[--port=p] [--spawn] [--output=dir] [--quantum=q]");
+                                System.out.println("       java cardgame.DistributedGame node <port>");
+                                return;
+                        }
+                        int n = Integer.parseInt(args[1]);
+                        int nodes = 1, port = 0, quantum = 1;
+                        boolean spawn = false;
+                        File output = null;
+                        for (int i = 3; i < args.length; i++) {
+                                String arg = args[i];
+                                if (arg.startsWith("--nodes="))
+                                        nodes = Integer.parseInt(arg.substring("--nodes=".length()));
+                                else if (arg.startsWith("--port="))
+                                        port = Integer.parseInt(arg.substring("--port=".length()));
+                                else if (arg.startsWith("--quantum="))
+                                        quantum = Integer.parseInt(arg.substring("--quantum=".length()));
+                                else if (arg.startsWith("--output="))
+                                        output = new File(arg.substring("--output=".length()));
+                                else if (arg.equals("--spawn"))
+                                        spawn = true;
+                                else
+                                        throw new IllegalArgumentException("Unknown option: " + arg);
+                        }
+                        File pack = new File(args[2]);
+                        DistributedGame game = new DistributedGame(nodes, port);
+                        List<Process> processes = spawn ? game.spawnNodes() : Collections.<Process>emptyList();
+                        if (!spawn)
+                                System.out.println("Waiting for " + nodes + " nodes on port " + game.getPort());
+                        game.play(n, pack, output, quantum);
+                        for (Process p : processes)
+                                p.waitFor();
+                        System.out.println("Cards moved: " + game.cardsMoved);
+                } catch (IOException | IllegalArgumentException e) {
+                        System.out.println("Distributed game failed: " + e.getMessage());
+                } catch (InterruptedException e) {
+                        System.out.println("Distributed game interrupted.");
+                }
+        }
+
+        // Starts every node as a JVM of its own, with this JVM's java binary and class path
+        public List<Process> spawnNodes() throws IOException {
+                String java = new File(new File(System.getProperty("java.home"), "bin"), "java").getPath();
+                List<Process> processes = new ArrayList<>();
+                for (int i = 0; i < nodes; i++)
+                        processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), "cardgame.DistributedGame",
+                                        "node", String.valueOf(getPort())).inheritIO().start());
+                return processes;
+        }
+
+        // Runs the whole game; returns the winner's id, or -1 if the game was aborted
+        public int play(int n, File pack, File outputDirectory, int turnQuantum) throws IOException, InterruptedException {
+                Socket[] sockets = new Socket[nodes];
+                DataInputStream[] fromNode = new DataInputStream[nodes];
+                int[] dataPorts = new int[nodes];
+                toNode = new DataOutputStream[nodes];
+                try {
+                        if (nodes > n) {
+                                throw new IllegalArgumentException("Cannot split " + n + " players across " + nodes + " nodes");
+                        }
+                        // Counted first, so a bad pack fails before any node is set up
+                        long[] count = { 0 };
+                        streamPack(pack, v -> count[0]++);
+                        if (count[0] != 8L * n) {
+                                throw new IOException("Invalid pack size: expected " + 8L * n + " cards for " + n
+                                                + " players, but found " + count[0]);
+                        }
+                        server.setSoTimeout(ACCEPT_TIMEOUT_MILLIS);
+                        for (int k = 0; k < nodes; k++) {
+                                try {
+                                        sockets[k] = server.accept();
+                                } catch (SocketTimeoutException e) {
+                                        throw new IOException("Only " + k + " of " + nodes + " nodes connected");
+                                }
+                                fromNode[k] = new DataInputStream(new BufferedInputStream(sockets[k].getInputStream()));
+                                toNode[k] = new DataOutputStream(new BufferedOutputStream(sockets[k].getOutputStream()));
+                                if (fromNode[k].readByte() != HELLO)
+                                        throw new IOException("Node " + k + " did not introduce itself");
+                                dataPorts[k] = fromNode[k].readInt();
+                        }
+
+                        int[] bounds = new int[nodes + 1];
+                        for (int k = 0; k <= nodes; k++)
+                                bounds[k] = (int) ((long) n * k / nodes);
+                        for (int k = 0; k < nodes; k++) {
+                                DataOutputStream out = toNode[k];
+                                out.writeByte(SETUP);
+                                out.writeInt(n);
+                                out.writeInt(bounds[k]);
+                                out.writeInt(bounds[k + 1]);
+                                out.writeInt(nodes == 1 ? -1 : dataPorts[(k + 1) % nodes]);
+                                out.writeInt(Math.max(1, turnQuantum));
+                                out.writeUTF(outputDirectory == null ? "" : outputDirectory.getAbsolutePath());
+                        }
+                        deal(pack, n, bounds);
+                        for (DataOutputStream out : toNode)
+                                out.flush();
+
+                        // Nodes answer in seat order, so the first dealt winner reported is the lowest id, as in CardGame
+                        int initialWinner = -1;
+                        for (int k = 0; k < nodes; k++) {
+                                if (fromNode[k].readByte() != DEALT)
+                                        throw new IOException("Node " + k + " did not confirm its deal");
+                                int dealtWinner = fromNode[k].readInt();
+                                if (initialWinner < 0)
+                                        initialWinner = dealtWinner;
+                        }
+                        for (DataOutputStream out : toNode) {
+                                out.writeByte(GO);
+                                out.writeInt(initialWinner);
+                                out.flush();
+                        }
+                        synchronized (this) {
+                                setupSent = true;
+                                if (stopped)
+                                        sendStop();
+                        }
+                        if (initialWinner >= 0)
+                                declareWinner(initialWinner);
+
+                        Thread[] readers = new Thread[nodes];
+                        IOException[] failures = new IOException[nodes];
+                        for (int k = 0; k < nodes; k++) {
+                                final int node = k;
+                                readers[k] = new Thread(() -> {
+                                        try {
+                                                readNode(node, fromNode[node]);
+                                        } catch (IOException e) {
+                                                failures[node] = e;
+                                                abort("node " + node + " failed: " + e.getMessage());
+                                        }
+                                }, "node-reader-" + k);
+                                readers[k].start();
+                        }
+                        for (Thread t : readers)
+                                t.join();
+                        for (IOException e : failures)
+                                if (e != null)
+                                        throw e;
+                } finally {
+                        for (Socket s : sockets)
+                                if (s != null)
+                                        s.close();
+                        server.close();
+                }
+                return winnerId;
+        }
+
+        // Card k of the pack goes to seat k mod n, first into the hands and then onto the decks, so each
+        // node receives its segment's cards round by round in the order it adds them
+        private void deal(File pack, int n, int[] bounds) throws IOException {
+                int[] seat = { 0 };
+                int[] node = { 0 };
+                try {
+                        streamPack(pack, value -> {
+                                if (seat[0] == n) {
+                                        seat[0] = 0;
+                                        node[0] = 0;
+                                }
+                                while (seat[0] >= bounds[node[0] + 1])
+                                        node[0]++;
+                                try {
+                                        toNode[node[0]].writeInt(value);
+                                } catch (IOException e) {
+                                        throw new UncheckedIOException(e);
+                                }
+                                seat[0]++;
+                        });
+                } catch (UncheckedIOException e) {
+                        throw e.getCause();
+                }
+        }
+
+        // Streams every value of a text, gzip or binary pack file without building cards
+        static void streamPack(File file, IntConsumer sink) throws IOException {
+                if (!file.exists()) {
+                        throw new FileNotFoundException("Pack file not found: " + file.getName());
+                }
+                if (!CompressedPackReader.isCompressed(file) && CardPackLoader.isBinaryPack(file)) {
+                        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                                in.readInt();
+                                long count = in.readLong();
+                                if (file.length() != CardPackLoader.BINARY_HEADER_BYTES + 4 * count) {
+                                        throw new IOException("Truncated binary pack: " + file.getName());
+                                }
+                                for (long i = 0; i < count; i++) {
+                                        int value = in.readInt();
+                                        if (value < 0) {
+                                                throw new IOException("Invalid card value at position " + (i + 1) + ": " + value
+                                                                + " (cannot be negative)");
+                                        }
+                                        sink.accept(value);
+                                }
+                        }
+                        return;
+                }
+                PackParser parser = new PackParser(sink);
+                byte[] buffer = new byte[1 << 16];
+                InputStream raw = new FileInputStream(file);
+                try (InputStream in = CompressedPackReader.isCompressed(file) ? new GZIPInputStream(raw) : raw) {
+                        for (int read; (read = in.read(buffer)) > 0;)
+                                parser.feed(buffer, 0, read);
+                        parser.finish();
+                }
+        }
+
+        private void readNode(int node, DataInputStream in) throws IOException {
+                while (true) {
+                        byte type = in.readByte();
+                        if (type == WINNER) {
+                                declareWinner(in.readInt());
+                        } else if (type == DONE) {
+                                long moved = in.readLong();
+                                synchronized (this) {
+                                        cardsMoved += moved;
+                                }
+                                return;
+                        } else {
+                                throw new IOException("Unexpected message " + type + " from node " + node);
+                        }
+                }
+        }
+
+        public synchronized void declareWinner(int id) {
+                if (stopped)
+                        return;
+                stopped = true;
+                winnerId = id;
+                System.out.println("player " + id + " wins");
+                if (setupSent)
+                        sendStop();
+        }
+
+        // Ends the game on every node without a winner
+        public synchronized void abort(String reason) {
+                if (stopped)
+                        return;
+                stopped = true;
+                abortReason = reason;
+                System.out.println("game aborted: " + reason);
+                if (setupSent)
+                        sendStop();
+        }
+
+        private void sendStop() {
+                for (DataOutputStream out : toNode) {
+                        try {
+                                out.writeByte(STOP);
+                                out.writeInt(winnerId);
+                                out.writeUTF(abortReason == null ? "" : abortReason);
+                                out.flush();
+                        } catch (IOException e) {
+                                // that node's reader reports the broken connection
+                        }
+                }
+        }
+}
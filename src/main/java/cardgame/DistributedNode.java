@@ -0,0 +1,234 @@
+package cardgame;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+
+/*
+ One JVM's share of a distributed game: a contiguous segment of players and their left decks.
+ A single thread plays the segment round-robin with plain deck access, as SegmentedEngine
+ does. The first deck is fed by the previous node: a receiver thread reads its batches into a
+ HandoffQueue. Discards of the last player are collected into batches that are sent when full,
+ when the segment runs dry, or at least every millisecond. With a single node the ring closes
+ locally and no data sockets are used.
+ A winning hand is reported to the coordinator; the node stops taking turns once it has found
+ one or been told to stop, ends its outgoing stream and waits for the incoming one to end, so
+ no card is in flight when it writes its players' and decks' output files itself.
+ */
+public class DistributedNode {
+        static final int BATCH = 512;
+        static final long FLUSH_NANOS = 1000000;
+
+        public final int coordinatorPort;
+        public final CardGame local = new CardGame();
+        private CardDeck[] decks;
+        private Player[] players;
+        private HandoffQueue incoming;
+        private DataOutputStream toNext;
+        private DataOutputStream control;
+        private volatile boolean wonHere;
+
+        public DistributedNode(int coordinatorPort) {
+                this.coordinatorPort = coordinatorPort;
+        }
+
+        public void play() throws IOException, InterruptedException {
+                InetAddress loopback = InetAddress.getLoopbackAddress();
+                try (Socket socket = new Socket(loopback, coordinatorPort);
+                                ServerSocket dataServer = new ServerSocket(0, 1, loopback)) {
+                        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                        control = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                        control.writeByte(DistributedGame.HELLO);
+                        control.writeInt(dataServer.getLocalPort());
+                        control.flush();
+
+                        if (in.readByte() != DistributedGame.SETUP)
+                                throw new IOException("Expected the game setup from the coordinator");
+                        int n = in.readInt();
+                        int from = in.readInt();
+                        int to = in.readInt();
+                        int nextPort = in.readInt();
+                        local.turnQuantum = in.readInt();
+                        String directory = in.readUTF();
+                        local.outputDirectory = directory.isEmpty() ? null : new File(directory);
+                        setUp(in, n, from, to, nextPort < 0);
+                        control.writeByte(DistributedGame.DEALT);
+                        control.writeInt(local.findInitialWinner());
+                        control.flush();
+                        if (in.readByte() != DistributedGame.GO)
+                                throw new IOException("Expected GO from the coordinator");
+                        int initialWinner = in.readInt();
+
+                        Socket next = null, previous = null;
+                        Thread receiver = null;
+                        try {
+                                if (nextPort >= 0) {
+                                        // Every node listens before the coordinator sends any setup, so connecting cannot miss
+                                        next = new Socket(loopback, nextPort);
+                                        next.setTcpNoDelay(true);
+                                        toNext = new DataOutputStream(new BufferedOutputStream(next.getOutputStream(), 4 * BATCH + 64));
+                                        // The previous node may have died, and then this one must not wait for it forever
+                                        dataServer.setSoTimeout(DistributedGame.ACCEPT_TIMEOUT_MILLIS);
+                                        try {
+                                                previous = dataServer.accept();
+                                        } catch (SocketTimeoutException e) {
+                                                throw new IOException("The previous node never connected its boundary stream");
+                                        }
+                                        DataInputStream fromPrevious = new DataInputStream(new BufferedInputStream(previous.getInputStream()));
+                                        incoming = new HandoffQueue();
+                                        for (Card c; (c = decks[0].draw()) != null;)
+                                                incoming.offer(c);
+                                        receiver = new Thread(() -> receive(fromPrevious), "boundary-receiver");
+                                        receiver.setDaemon(true);
+                                        receiver.start();
+                                }
+                                if (initialWinner >= 0)
+                                        wonHere = true;
+                                // Daemons, so a lost coordinator cannot leave the JVM running
+                                Thread worker = new Thread(this::runSegment, "segment-worker");
+                                worker.setDaemon(true);
+                                worker.start();
+
+                                if (in.readByte() != DistributedGame.STOP)
+                                        throw new IOException("Expected STOP from the coordinator");
+                                int winner = in.readInt();
+                                String reason = in.readUTF();
+                                local.winnerId = winner;
+                                if (winner < 0)
+                                        local.abortReason = reason;
+                                local.gameOver = true;
+                                worker.join();
+                                if (receiver != null)
+                                        receiver.join();
+                        } finally {
+                                if (next != null)
+                                        next.close();
+                                if (previous != null)
+                                        previous.close();
+                        }
+                        if (incoming != null)
+                                for (Card c; (c = incoming.poll()) != null;)
+                                        decks[0].addCard(c);
+
+                        long moved = 0;
+                        for (Player p : players) {
+                                p.logGameEnd();
+                                moved += p.cardsMoved;
+                        }
+                        local.writeDeckOutputs();
+                        control.writeByte(DistributedGame.DONE);
+                        control.writeLong(moved);
+                        control.flush();
+                }
+        }
+
+        // The coordinator deals round by round: four rounds of one card per hand, then four of one card per deck
+        private void setUp(DataInputStream in, int n, int from, int to, boolean closesRing) throws IOException {
+                int maxDeckCards = CardGame.maxDeckCards(n, 8 * n);
+                decks = new CardDeck[to - from];
+                for (int i = from; i < to; i++)
+                        decks[i - from] = new CardDeck(i + 1, 16, maxDeckCards);
+                int[][] hands = new int[to - from][4];
+                for (int round = 0; round < 4; round++)
+                        for (int[] hand : hands)
+                                hand[round] = in.readInt();
+                for (int round = 0; round < 4; round++)
+                        for (CardDeck d : decks)
+                                d.addCard(new Card(in.readInt()));
+                // The last player's right deck lives on the next node; here it only names that deck in the log
+                CardDeck after = closesRing ? decks[0] : new CardDeck(to % n + 1);
+                players = new Player[to - from];
+                for (int i = from; i < to; i++) {
+                        Player p = new Player(i + 1, decks[i - from], i + 1 < to ? decks[i + 1 - from] : after, local);
+                        for (int v : hands[i - from])
+                                p.hand.add(new Card(v));
+                        players[i - from] = p;
+                        local.players.add(p);
+                }
+                for (CardDeck d : decks)
+                        local.decks.add(d);
+        }
+
+        private void receive(DataInputStream in) {
+                try {
+                        for (int count; (count = in.readInt()) >= 0;)
+                                for (int i = 0; i < count; i++)
+                                        incoming.offer(new Card(in.readInt()));
+                } catch (IOException e) {
+                        System.out.println("Boundary stream failed: " + e.getMessage());
+                }
+        }
+
+        private void runSegment() {
+                int last = players.length - 1;
+                int quantum = Math.max(1, local.getTurnQuantum());
+                int[] batch = new int[BATCH];
+                int pending = 0;
+                long lastFlush = System.nanoTime();
+                try {
+                        for (Player p : players)
+                                p.logInitialHand();
+                        while (!local.isGameOver() && !wonHere) {
+                                boolean movedAny = false;
+                                for (int i = 0; i <= last && !wonHere; i++) {
+                                        Player p = players[i];
+                                        for (int k = 0; k < quantum; k++) {
+                                                Card drawn = i == 0 && incoming != null ? incoming.poll() : p.leftDeck.cards.poll();
+                                                if (drawn == null)
+                                                        break;
+                                                Card discarded = p.exchange(drawn);
+                                                if (i == last && toNext != null) {
+                                                        batch[pending++] = discarded.getDenomination();
+                                                        if (pending == BATCH) {
+                                                                send(batch, pending);
+                                                                pending = 0;
+                                                                lastFlush = System.nanoTime();
+                                                        }
+                                                } else {
+                                                        p.rightDeck.cards.add(discarded);
+                                                }
+                                                movedAny = true;
+                                                if (p.hasWinningHand()) {
+                                                        wonHere = true;
+                                                        reportWinner(p.id);
+                                                        break;
+                                                }
+                                        }
+                                }
+                                if (pending > 0 && (!movedAny || System.nanoTime() - lastFlush > FLUSH_NANOS)) {
+                                        send(batch, pending);
+                                        pending = 0;
+                                        lastFlush = System.nanoTime();
+                                }
+                                if (!movedAny)
+                                        Thread.yield();
+                        }
+                        if (toNext != null) {
+                                send(batch, pending);
+                                toNext.writeInt(-1);
+                                toNext.flush();
+                        }
+                } catch (IOException e) {
+                        System.out.println("Node segment failed: " + e.getMessage());
+                }
+        }
+
+        private void send(int[] batch, int count) throws IOException {
+                if (count == 0)
+                        return;
+                toNext.writeInt(count);
+                for (int i = 0; i < count; i++)
+                        toNext.writeInt(batch[i]);
+                toNext.flush();
+        }
+
+        private void reportWinner(int id) throws IOException {
+                synchronized (control) {
+                        control.writeByte(DistributedGame.WINNER);
+                        control.writeInt(id);
+                        control.flush();
+                }
+        }
+}
@@ -0,0 +1,18 @@
+package cardgame;
+
+/*
+ How player turns are scheduled onto Java threads.
+ THREADS gives every Player its own thread (the original design); TASKS multiplexes all
+ players as re-schedulable turn tasks on a small work-stealing pool; SEGMENTED splits the ring
+ into one contiguous segment per worker thread, with only the decks between segments shared.
+ */
+public enum EngineMode {
+        THREADS, TASKS, SEGMENTED;
+
+        public static EngineMode parse(String value) {
+                for (EngineMode mode : values())
+                        if (mode.name().equalsIgnoreCase(value == null ? "" : value.trim()))
+                                return mode;
+                throw new IllegalArgumentException("Invalid engine: " + value);
+        }
+}
@@ -0,0 +1,142 @@
+package cardgame;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/*
+ Compact binary checkpoint of an in-flight game, and the loader that restarts a game from one.
+ Players are only held while a GameSnapshot copies the decks and hands into int arrays; the
+ file is written after they have resumed, to a temporary file that then replaces the previous
+ checkpoint, so a crash mid-write never leaves a broken checkpoint behind.
+ Layout: int magic, int version, int players, then every deck as [int size][int values...],
+ then every player as [int hand size][int values...][long rng state][long log offset]
+ [long cards moved].
+ Player logs must be plain files (not an output archive): resuming cuts each log back to the
+ checkpointed offset and appends from there.
+ */
+public class GameCheckpoint {
+        public static final int MAGIC = 0x43474350;
+        public static final int VERSION = 1;
+
+        // Players log their initial hand before taking any lock, so refuse until all have done so
+        public static GameSnapshot capture(CardGame game) {
+                for (Player p : game.players)
+                        if (!p.initialHandLogged)
+                                throw new IllegalStateException("Players have not all started yet");
+                GameSnapshot snapshot = GameSnapshot.capture(game);
+                // Final log lines are written without deck locks, so a finished game has no stable offsets
+                if (game.isGameOver())
+                        throw new IllegalStateException("Game is already over");
+                for (long offset : snapshot.logOffsets)
+                        if (offset < 0)
+                                throw new IllegalStateException("Checkpoints need plain player log files");
+                return snapshot;
+        }
+
+        public static void write(GameSnapshot snapshot, File file) throws IOException {
+                File temp = new File(file.getPath() + ".tmp");
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16))) {
+                        out.writeInt(MAGIC);
+                        out.writeInt(VERSION);
+                        out.writeInt(snapshot.hands.length);
+                        for (int[] deck : snapshot.decks)
+                                writeValues(out, deck);
+                        for (int i = 0; i < snapshot.hands.length; i++) {
+                                writeValues(out, snapshot.hands[i]);
+                                out.writeLong(snapshot.rngStates[i]);
+                                out.writeLong(snapshot.logOffsets[i]);
+                                out.writeLong(snapshot.cardsMoved[i]);
+                        }
+                }
+                try {
+                        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                                        StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+        }
+
+        private static void writeValues(DataOutputStream out, int[] values) throws IOException {
+                out.writeInt(values.length);
+                for (int v : values)
+                        out.writeInt(v);
+        }
+
+        public static GameSnapshot read(File file) throws IOException {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+                        if (in.readInt() != MAGIC)
+                                throw new IOException("Not a game checkpoint: " + file.getName());
+                        int version = in.readInt();
+                        if (version != VERSION)
+                                throw new IOException("Unsupported checkpoint version " + version + ": " + file.getName());
+                        int n = in.readInt();
+                        if (n <= 0)
+                                throw new IOException("Invalid player count in checkpoint: " + n);
+                        int[][] decks = new int[n][];
+                        int[][] hands = new int[n][];
+                        long[] rngStates = new long[n];
+                        long[] logOffsets = new long[n];
+                        long[] cardsMoved = new long[n];
+                        for (int i = 0; i < n; i++)
+                                decks[i] = readValues(in);
+                        for (int i = 0; i < n; i++) {
+                                hands[i] = readValues(in);
+                                rngStates[i] = in.readLong();
+                                logOffsets[i] = in.readLong();
+                                cardsMoved[i] = in.readLong();
+                        }
+                        return new GameSnapshot(decks, hands, rngStates, logOffsets, cardsMoved, 0);
+                } catch (EOFException e) {
+                        throw new IOException("Truncated game checkpoint: " + file.getName(), e);
+                }
+        }
+
+        private static int[] readValues(DataInputStream in) throws IOException {
+                int length = in.readInt();
+                if (length < 0)
+                        throw new IOException("Invalid length in checkpoint: " + length);
+                int[] values = new int[length];
+                for (int i = 0; i < length; i++)
+                        values[i] = in.readInt();
+                return values;
+        }
+
+        // Rebuilds the ring of an empty game from a snapshot, reopening every log at its checkpointed offset
+        public static void restore(CardGame game, GameSnapshot snapshot) throws IOException {
+                if (!game.players.isEmpty() || !game.decks.isEmpty()) {
+                        throw new IllegalStateException("Game is already set up");
+                }
+                int n = snapshot.hands.length;
+                int total = (int) snapshot.totalCards();
+                int maxDeckCards = CardGame.maxDeckCards(n, total);
+                int initialDeckCards = CardGame.initialDeckCapacity(n, total);
+                for (int i = 0; i < n; i++) {
+                        CardDeck deck = new CardDeck(i + 1, Math.max(initialDeckCards, snapshot.decks[i].length), maxDeckCards);
+                        for (int v : snapshot.decks[i])
+                                deck.addCard(new Card(v));
+                        game.decks.add(deck);
+                }
+                for (int i = 0; i < n; i++) {
+                        if (snapshot.logOffsets[i] < 0)
+                                throw new IOException("Checkpoint has no log offset for player " + (i + 1));
+                        int id = i + 1;
+                        Player p = new Player(id, game.decks.get(i), game.decks.get(id % n), game,
+                                        game.openPlayerLog(id, snapshot.logOffsets[i]));
+                        p.logCounter = game.logCounters.get(id);
+                        for (int v : snapshot.hands[i])
+                                p.hand.add(new Card(v));
+                        p.rngState = snapshot.rngStates[i];
+                        p.cardsMoved = snapshot.cardsMoved[i];
+                        p.resumed = true;
+                        game.players.add(p);
+                }
+        }
+
+        public static List<Card> resume(CardGame game, File file) throws IOException {
+                GameSnapshot snapshot = read(file);
+                restore(game, snapshot);
+                return snapshot.cards();
+        }
+}
@@ -0,0 +1,23 @@
+package cardgame;
+
+/*
+ Hook for observing game behaviour from outside the game classes, e.g. as Java Flight Recorder
+ events. Players call it on their hot path, so the default NONE listener does nothing and
+ implementations must be cheap and thread-safe.
+ */
+public interface GameEventListener {
+        GameEventListener NONE = new GameEventListener() {
+        };
+
+        default void onTurn(Player player, int drawn, int discarded, int fromDeck, int toDeck) {
+        }
+
+        default void onLockFailure(Player player, CardDeck deck) {
+        }
+
+        default void onWinnerDeclared(int winnerId) {
+        }
+
+        default void onPlayerExit(Player player) {
+        }
+}
@@ -0,0 +1,103 @@
+package cardgame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ Consistent copy of every deck and hand in a running game, plus what a checkpoint needs to
+ continue each player: its random stream, how much of its log is written and its turn count.
+ Every deck is quiesced (lock held and version claimed) in ring order before anything is
+ copied. Each turn protocol only changes a hand, and writes its log, while it holds both of
+ that player's decks, so once all decks are held no card can be in flight between a deck and
+ a hand.
+ */
+public class GameSnapshot {
+        public final int[][] decks;
+        public final int[][] hands;
+        public final long[] rngStates;
+        public final long[] logOffsets;
+        public final long[] cardsMoved;
+        public final long pauseNanos;
+
+        GameSnapshot(int[][] decks, int[][] hands, long[] rngStates, long[] logOffsets, long[] cardsMoved,
+                        long pauseNanos) {
+                this.decks = decks;
+                this.hands = hands;
+                this.rngStates = rngStates;
+                this.logOffsets = logOffsets;
+                this.cardsMoved = cardsMoved;
+                this.pauseNanos = pauseNanos;
+        }
+
+        public static GameSnapshot capture(CardGame game) {
+                List<CardDeck> deckList = game.decks;
+                List<Player> playerList = game.players;
+                int[][] decks = new int[deckList.size()][];
+                int[][] hands = new int[playerList.size()][];
+                long[] rngStates = new long[hands.length];
+                long[] logOffsets = new long[hands.length];
+                long[] cardsMoved = new long[hands.length];
+                long start = System.nanoTime();
+                int held = 0;
+                try {
+                        for (CardDeck d : deckList) {
+                                d.quiesce();
+                                held++;
+                        }
+                        for (int i = 0; i < decks.length; i++) {
+                                CardRing ring = deckList.get(i).cards;
+                                int[] values = new int[ring.size()];
+                                for (int j = 0; j < values.length; j++)
+                                        values[j] = ring.get(j).getDenomination();
+                                decks[i] = values;
+                        }
+                        for (int i = 0; i < hands.length; i++) {
+                                Player p = playerList.get(i);
+                                List<Card> hand = p.hand;
+                                int[] values = new int[hand.size()];
+                                for (int j = 0; j < values.length; j++)
+                                        values[j] = hand.get(j).getDenomination();
+                                hands[i] = values;
+                                rngStates[i] = p.rngState;
+                                logOffsets[i] = p.logCounter == null ? -1 : p.logCounter.count;
+                                cardsMoved[i] = p.cardsMoved;
+                        }
+                } finally {
+                        for (int i = held - 1; i >= 0; i--)
+                                deckList.get(i).resume();
+                }
+                return new GameSnapshot(decks, hands, rngStates, logOffsets, cardsMoved, System.nanoTime() - start);
+        }
+
+        public long totalCards() {
+                long total = 0;
+                for (int[] d : decks)
+                        total += d.length;
+                for (int[] h : hands)
+                        total += h.length;
+                return total;
+        }
+
+        // Every card in the snapshot, decks first; the same multiset as the pack the game was dealt from
+        public List<Card> cards() {
+                List<Card> cards = new ArrayList<>((int) totalCards());
+                for (int[] d : decks)
+                        for (int v : d)
+                                cards.add(new Card(v));
+                for (int[] h : hands)
+                        for (int v : h)
+                                cards.add(new Card(v));
+                return cards;
+        }
+
+        public IntCountMap denominations() {
+                IntCountMap counts = new IntCountMap();
+                for (int[] d : decks)
+                        for (int v : d)
+                                counts.increment(v);
+                for (int[] h : hands)
+                        for (int v : h)
+                                counts.increment(v);
+                return counts;
+        }
+}
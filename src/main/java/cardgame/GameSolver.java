@@ -0,0 +1,679 @@
+package cardgame;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/*
+ Exact analysis of small games as an absorbing Markov chain, instead of noisy simulation.
+ Model: at every step one player, chosen uniformly among those whose left deck is not empty,
+ draws the top card and discards as Player.selectDiscard does (uniformly among the cards that
+ are not its preferred value, or among all five if every card is preferred). The game ends
+ as soon as the mover holds four of a kind, or before any turn if a dealt hand already does
+ (lowest seat first, like CardGame.findInitialWinner).
+ A state is every hand (as a sorted multiset) plus every deck queue, bit-packed into a few
+ longs. Values nobody prefers that occur fewer than four times can never matter to a discard
+ or a win, so they all share one code, which keeps the state space far smaller.
+ Reachable states are found by a level-synchronous parallel BFS into a striped primitive hash
+ table, and transitions are stored in CSR arrays. Win probabilities and expected turns are then
+ solved by parallel in-place (Gauss-Seidel style) sweeps. Every state is needed to solve the
+ chain, so memory is bounded by a hard state limit rather than by evicting states.
+ Usage: java cardgame.GameSolver <players> <pack file> [--max-states=N] [--threads=T]
+ */
+public class GameSolver {
+        static final int STRIPE_BITS = 6;
+        static final int STRIPES = 1 << STRIPE_BITS;
+        static final int DEFAULT_MAX_STATES = 2000000;
+        static final double TOLERANCE = 1e-12;
+        static final int MAX_SWEEPS = 1000000;
+        static final int CHUNK = 1024;
+
+        public final int players;
+        public final int maxStates;
+        public final int threads;
+
+        private final int[] codeOf;
+        private final int[] valueOfCode;
+        private final int[] preferredCode;
+        private final int junkCode;
+        private final int cardBits;
+        private final int lengthBits;
+        private final int width;
+        private final int[] initialHands;
+        private final int[] initialDecks;
+        private final int[] initialLengths;
+
+        private final Stripe[] stripes = new Stripe[STRIPES];
+        private final AtomicInteger stateCount = new AtomicInteger();
+
+        public static class Result {
+                public final int players;
+                public final int states;
+                public final long transitions;
+                public final double[] winProbability;
+                public final double expectedTurns;
+                public final int sweeps;
+                public final long elapsedNanos;
+
+                Result(int players, int states, long transitions, double[] winProbability, double expectedTurns, int sweeps,
+                                long elapsedNanos) {
+                        this.players = players;
+                        this.states = states;
+                        this.transitions = transitions;
+                        this.winProbability = winProbability;
+                        this.expectedTurns = expectedTurns;
+                        this.sweeps = sweeps;
+                        this.elapsedNanos = elapsedNanos;
+                }
+
+                // Probability that the game never ends
+                public double getNoWinnerProbability() {
+                        double sum = 0;
+                        for (double p : winProbability)
+                                sum += p;
+                        return Math.max(0, 1 - sum);
+                }
+
+                public String toReport() {
+                        StringBuilder sb = new StringBuilder("Exact solution for " + players + " players:\n");
+                        sb.append("  reachable states: ").append(states).append(", transitions: ").append(transitions).append('\n');
+                        for (int s = 0; s < players; s++)
+                                sb.append("  player ").append(s + 1).append(" wins with probability ")
+                                                .append(String.format("%.12f", winProbability[s])).append('\n');
+                        sb.append("  no winner with probability ").append(String.format("%.12f", getNoWinnerProbability())).append('\n');
+                        sb.append("  expected turns: ")
+                                        .append(Double.isInfinite(expectedTurns) ? "infinite" : String.format("%.6f", expectedTurns)).append('\n');
+                        sb.append("  solved in ").append(sweeps).append(" sweeps, ")
+                                        .append(String.format("%.1f", elapsedNanos / 1e6)).append(" ms");
+                        return sb.toString();
+                }
+        }
+
+        public GameSolver(int players, List<Card> pack) {
+                this(players, pack, DEFAULT_MAX_STATES, Runtime.getRuntime().availableProcessors());
+        }
+
+        public GameSolver(int players, List<Card> pack, int maxStates, int threads) {
+                if (players <= 0) {
+                        throw new IllegalArgumentException("Number of players must be positive");
+                }
+                if (pack.size() != 8 * players) {
+                        throw new IllegalArgumentException("Pack must contain exactly " + (8 * players) + " cards");
+                }
+                this.players = players;
+                this.maxStates = maxStates;
+                this.threads = Math.max(1, threads);
+
+                IntCountMap counts = new IntCountMap();
+                for (Card c : pack)
+                        counts.increment(c.getDenomination());
+                boolean hasJunk = false;
+                for (int v : counts.sortedKeys())
+                        if (isJunk(v, counts))
+                                hasJunk = true;
+                this.junkCode = hasJunk ? 0 : -1;
+                List<Integer> values = new ArrayList<>();
+                if (hasJunk)
+                        values.add(-1);
+                Map<Integer, Integer> codes = new HashMap<>();
+                for (int v : counts.sortedKeys()) {
+                        if (isJunk(v, counts))
+                                codes.put(v, junkCode);
+                        else {
+                                codes.put(v, values.size());
+                                values.add(v);
+                        }
+                }
+                this.valueOfCode = new int[values.size()];
+                for (int i = 0; i < valueOfCode.length; i++)
+                        valueOfCode[i] = values.get(i);
+                this.codeOf = new int[pack.size()];
+                for (int i = 0; i < pack.size(); i++)
+                        codeOf[i] = codes.get(pack.get(i).getDenomination());
+                this.preferredCode = new int[players];
+                for (int s = 0; s < players; s++) {
+                        Integer code = codes.get(s + 1);
+                        preferredCode[s] = code == null ? -1 : code;
+                }
+                this.cardBits = bitsFor(Math.max(1, valueOfCode.length - 1));
+                this.lengthBits = bitsFor(4 * players);
+                int bits = 4 * players * cardBits + players * lengthBits + 4 * players * cardBits;
+                this.width = (bits + 63) / 64;
+
+                // Deal exactly as CardGame does: round-robin hands, then the rest round-robin onto the decks
+                this.initialHands = new int[4 * players];
+                for (int k = 0; k < 4 * players; k++)
+                        initialHands[(k % players) * 4 + k / players] = codeOf[k];
+                this.initialLengths = new int[players];
+                this.initialDecks = new int[4 * players];
+                int[][] queues = new int[players][4 * players];
+                for (int k = 4 * players; k < pack.size(); k++) {
+                        int d = (k - 4 * players) % players;
+                        queues[d][initialLengths[d]++] = codeOf[k];
+                }
+                int at = 0;
+                for (int d = 0; d < players; d++)
+                        for (int j = 0; j < initialLengths[d]; j++)
+                                initialDecks[at++] = queues[d][j];
+                for (int i = 0; i < STRIPES; i++)
+                        stripes[i] = new Stripe();
+        }
+
+        private boolean isJunk(int value, IntCountMap counts) {
+                return (value < 1 || value > players) && counts.get(value) < 4;
+        }
+
+        private static int bitsFor(int max) {
+                return Math.max(1, 32 - Integer.numberOfLeadingZeros(max));
+        }
+
+        public static void main(String[] args) {
+                if (args.length < 2) {
+                        System.out.println("Usage: java cardgame.GameSolver <players> <pack file> [--max-states=N] [--threads=T]");
+                        return;
+                }
+                try {
+                        int n = Integer.parseInt(args[0]);
+                        int maxStates = DEFAULT_MAX_STATES;
+                        int threads = Runtime.getRuntime().availableProcessors();
+                        for (int i = 2; i < args.length; i++) {
+                                if (args[i].startsWith("--max-states="))
+                                        maxStates = Integer.parseInt(args[i].substring("--max-states=".length()));
+                                else if (args[i].startsWith("--threads="))
+                                        threads = Integer.parseInt(args[i].substring("--threads=".length()));
+                                else
+                                        throw new IllegalArgumentException("Unknown option: " + args[i]);
+                        }
+                        List<Card> pack = CardPackLoader.loadPack(new File(args[1]), n);
+                        System.out.println(new GameSolver(n, pack, maxStates, threads).solve().toReport());
+                } catch (IOException | IllegalArgumentException | IllegalStateException e) {
+                        System.out.println("Cannot solve game: " + e.getMessage());
+                }
+        }
+
+        // ---- state encoding ----
+
+        private static final class Scratch {
+                final int[] hands;
+                final int[] lengths;
+                final int[] decks;
+                final int[] nextHands;
+                final int[] nextLengths;
+                final int[] nextDecks;
+                final int[] hand5 = new int[5];
+                final long[] key;
+                final int[] targets;
+                final double[] probabilities;
+
+                Scratch(int n, int width) {
+                        hands = new int[4 * n];
+                        lengths = new int[n];
+                        decks = new int[4 * n];
+                        nextHands = new int[4 * n];
+                        nextLengths = new int[n];
+                        nextDecks = new int[4 * n];
+                        key = new long[width];
+                        targets = new int[5 * n];
+                        probabilities = new double[5 * n];
+                }
+        }
+
+        private void encode(int[] hands, int[] lengths, int[] decks, long[] key) {
+                Arrays.fill(key, 0);
+                int bit = 0;
+                for (int s = 0; s < players; s++) {
+                        int[] h = { hands[4 * s], hands[4 * s + 1], hands[4 * s + 2], hands[4 * s + 3] };
+                        Arrays.sort(h);
+                        for (int c : h)
+                                bit = put(key, bit, cardBits, c);
+                }
+                int cards = 0;
+                for (int d = 0; d < players; d++) {
+                        bit = put(key, bit, lengthBits, lengths[d]);
+                        cards += lengths[d];
+                }
+                for (int i = 0; i < cards; i++)
+                        bit = put(key, bit, cardBits, decks[i]);
+        }
+
+        private void decode(long[] store, int offset, int[] hands, int[] lengths, int[] decks) {
+                int bit = 0;
+                for (int i = 0; i < 4 * players; i++) {
+                        hands[i] = get(store, offset, bit, cardBits);
+                        bit += cardBits;
+                }
+                int cards = 0;
+                for (int d = 0; d < players; d++) {
+                        lengths[d] = get(store, offset, bit, lengthBits);
+                        bit += lengthBits;
+                        cards += lengths[d];
+                }
+                for (int i = 0; i < cards; i++) {
+                        decks[i] = get(store, offset, bit, cardBits);
+                        bit += cardBits;
+                }
+        }
+
+        private static int put(long[] key, int bit, int bits, int value) {
+                int word = bit >>> 6;
+                int shift = bit & 63;
+                key[word] |= (long) value << shift;
+                if (shift + bits > 64)
+                        key[word + 1] |= (long) value >>> (64 - shift);
+                return bit + bits;
+        }
+
+        private static int get(long[] store, int offset, int bit, int bits) {
+                int word = offset + (bit >>> 6);
+                int shift = bit & 63;
+                long value = store[word] >>> shift;
+                if (shift + bits > 64)
+                        value |= store[word + 1] << (64 - shift);
+                return (int) (value & ((1L << bits) - 1));
+        }
+
+        private static long hash(long[] key) {
+                long h = 0x9E3779B97F4A7C15L;
+                for (long k : key) {
+                        h ^= k * 0xBF58476D1CE4E5B9L;
+                        h = Long.rotateLeft(h, 29) * 0x94D049BB133111EBL;
+                }
+                return h ^ (h >>> 31);
+        }
+
+        // ---- transposition table: STRIPES independently locked open-addressing tables ----
+
+        private final class Stripe {
+                long[] keys = new long[64 * width];
+                int[] slots = new int[64];
+                int size;
+
+                Stripe() {
+                        Arrays.fill(slots, -1);
+                }
+
+                // Local index of the key, inserting it if asked; an inserted key comes back as -(index + 1)
+                synchronized int find(long[] key, long h, boolean insert) {
+                        int mask = slots.length - 1;
+                        for (int slot = (int) h & mask;; slot = (slot + 1) & mask) {
+                                int local = slots[slot];
+                                if (local < 0) {
+                                        if (!insert)
+                                                return Integer.MIN_VALUE;
+                                        if (stateCount.incrementAndGet() > maxStates)
+                                                throw new IllegalStateException("More than " + maxStates
+                                                                + " reachable states; raise --max-states or solve a smaller game");
+                                        if ((size + 1) * width > keys.length)
+                                                keys = Arrays.copyOf(keys, keys.length * 2);
+                                        System.arraycopy(key, 0, keys, size * width, width);
+                                        slots[slot] = size;
+                                        size++;
+                                        if (size * 2 > slots.length)
+                                                rehash();
+                                        return -size;
+                                }
+                                if (equalsAt(local, key))
+                                        return local;
+                        }
+                }
+
+                private boolean equalsAt(int local, long[] key) {
+                        int base = local * width;
+                        for (int i = 0; i < width; i++)
+                                if (keys[base + i] != key[i])
+                                        return false;
+                        return true;
+                }
+
+                private void rehash() {
+                        slots = new int[slots.length * 2];
+                        Arrays.fill(slots, -1);
+                        int mask = slots.length - 1;
+                        long[] key = new long[width];
+                        for (int local = 0; local < size; local++) {
+                                System.arraycopy(keys, local * width, key, 0, width);
+                                int slot = (int) hash(key) & mask;
+                                while (slots[slot] >= 0)
+                                        slot = (slot + 1) & mask;
+                                slots[slot] = local;
+                        }
+                }
+        }
+
+        // Global id = local index * STRIPES + stripe; returns -(id + 1) for a newly added state
+        private int intern(long[] key, boolean insert) {
+                long h = hash(key);
+                int stripe = (int) (h >>> (64 - STRIPE_BITS));
+                int local = stripes[stripe].find(key, h, insert);
+                if (local == Integer.MIN_VALUE)
+                        throw new IllegalStateException("State was not explored");
+                if (local < 0)
+                        return -((-local - 1) * STRIPES + stripe) - 1;
+                return local * STRIPES + stripe;
+        }
+
+        private void decodeId(int id, Scratch s) {
+                Stripe stripe = stripes[id & (STRIPES - 1)];
+                decode(stripe.keys, (id >>> STRIPE_BITS) * width, s.hands, s.lengths, s.decks);
+        }
+
+        // ---- transitions ----
+
+        private static boolean isWinning(int[] hands, int seat, int junk) {
+                int c = hands[4 * seat];
+                return c != junk && hands[4 * seat + 1] == c && hands[4 * seat + 2] == c && hands[4 * seat + 3] == c;
+        }
+
+        /*
+         Expands the decoded state in s. Successor states get ids in s.targets (a negative id -(seat + 1)
+         means that seat wins) with their probabilities in s.probabilities; returns the number of
+         distinct outcomes. With insert set, unseen successors are added and reported to discovered.
+         */
+        private int expand(Scratch s, boolean insert, IntList discovered) {
+                int movers = 0;
+                for (int d = 0; d < players; d++)
+                        if (s.lengths[d] > 0)
+                                movers++;
+                int outcomes = 0;
+                int[] deckStart = new int[players + 1];
+                for (int d = 0; d < players; d++)
+                        deckStart[d + 1] = deckStart[d] + s.lengths[d];
+                for (int p = 0; p < players; p++) {
+                        if (s.lengths[p] == 0)
+                                continue;
+                        int right = (p + 1) % players;
+                        int drawn = s.decks[deckStart[p]];
+                        for (int j = 0; j < 4; j++)
+                                s.hand5[j] = s.hands[4 * p + j];
+                        s.hand5[4] = drawn;
+                        int candidates = 0;
+                        for (int j = 0; j < 5; j++)
+                                if (s.hand5[j] != preferredCode[p])
+                                        candidates++;
+                        boolean anyCard = candidates == 0;
+                        if (anyCard)
+                                candidates = 5;
+                        double probability = 1.0 / movers / candidates;
+                        for (int j = 0; j < 5; j++) {
+                                if (!anyCard && s.hand5[j] == preferredCode[p])
+                                        continue;
+                                int discard = s.hand5[j];
+                                System.arraycopy(s.hands, 0, s.nextHands, 0, s.hands.length);
+                                for (int k = 0, at = 0; k < 5; k++)
+                                        if (k != j)
+                                                s.nextHands[4 * p + at++] = s.hand5[k];
+                                int target;
+                                if (isWinning(s.nextHands, p, junkCode)) {
+                                        target = -(p + 1);
+                                } else {
+                                        // left deck loses its head, right deck gains the discard at its tail
+                                        int at = 0;
+                                        for (int d = 0; d < players; d++) {
+                                                int from = deckStart[d] + (d == p ? 1 : 0);
+                                                for (int k = from; k < deckStart[d + 1]; k++)
+                                                        s.nextDecks[at++] = s.decks[k];
+                                                s.nextLengths[d] = s.lengths[d] - (d == p ? 1 : 0);
+                                                if (d == right) {
+                                                        s.nextDecks[at++] = discard;
+                                                        s.nextLengths[d]++;
+                                                }
+                                        }
+                                        encode(s.nextHands, s.nextLengths, s.nextDecks, s.key);
+                                        int id = intern(s.key, insert);
+                                        if (id < 0) {
+                                                id = -id - 1;
+                                                discovered.add(id);
+                                        }
+                                        target = id;
+                                }
+                                outcomes = merge(s, outcomes, target, probability);
+                        }
+                }
+                return outcomes;
+        }
+
+        private static int merge(Scratch s, int outcomes, int target, double probability) {
+                for (int i = 0; i < outcomes; i++)
+                        if (s.targets[i] == target) {
+                                s.probabilities[i] += probability;
+                                return outcomes;
+                        }
+                s.targets[outcomes] = target;
+                s.probabilities[outcomes] = probability;
+                return outcomes + 1;
+        }
+
+        static final class IntList {
+                int[] values = new int[16];
+                int size;
+
+                void add(int v) {
+                        if (size == values.length)
+                                values = Arrays.copyOf(values, size * 2);
+                        values[size++] = v;
+                }
+        }
+
+        // ---- solving ----
+
+        public Result solve() {
+                long start = System.nanoTime();
+                for (int s = 0; s < players; s++) {
+                        int c = initialHands[4 * s];
+                        if (c != junkCode && initialHands[4 * s + 1] == c && initialHands[4 * s + 2] == c
+                                        && initialHands[4 * s + 3] == c) {
+                                double[] win = new double[players];
+                                win[s] = 1;
+                                return new Result(players, 0, 0, win, 0, 0, System.nanoTime() - start);
+                        }
+                }
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                try {
+                        return pool.submit(() -> solveIn(start)).get();
+                } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while solving", e);
+                } catch (ExecutionException e) {
+                        // parallel streams rethrow a copy that wraps the original exception
+                        Throwable cause = e.getCause();
+                        while (cause.getCause() != null && cause.getCause().getClass() == cause.getClass())
+                                cause = cause.getCause();
+                        if (cause instanceof RuntimeException)
+                                throw (RuntimeException) cause;
+                        throw new IllegalStateException(cause);
+                } finally {
+                        pool.shutdownNow();
+                }
+        }
+
+        private Result solveIn(long start) {
+                long[] key = new long[width];
+                encode(initialHands, initialLengths, initialDecks, key);
+                int root = -intern(key, true) - 1;
+
+                // Level-synchronous BFS: every state is expanded once, by whichever chunk holds it
+                int[] frontier = { root };
+                while (frontier.length > 0) {
+                        int[] level = frontier;
+                        List<IntList> next = IntStream.range(0, (level.length + CHUNK - 1) / CHUNK).parallel().mapToObj(c -> {
+                                Scratch s = new Scratch(players, width);
+                                IntList discovered = new IntList();
+                                for (int i = c * CHUNK; i < Math.min(level.length, (c + 1) * CHUNK); i++) {
+                                        decodeId(level[i], s);
+                                        expand(s, true, discovered);
+                                }
+                                return discovered;
+                        }).collect(java.util.stream.Collectors.toList());
+                        int total = 0;
+                        for (IntList l : next)
+                                total += l.size;
+                        frontier = new int[total];
+                        int at = 0;
+                        for (IntList l : next) {
+                                System.arraycopy(l.values, 0, frontier, at, l.size);
+                                at += l.size;
+                        }
+                }
+
+                // Dense numbering: stripe by stripe
+                int[] base = new int[STRIPES + 1];
+                for (int i = 0; i < STRIPES; i++)
+                        base[i + 1] = base[i] + stripes[i].size;
+                int n = base[STRIPES];
+                int[] idOf = new int[n];
+                for (int st = 0; st < STRIPES; st++)
+                        for (int local = 0; local < stripes[st].size; local++)
+                                idOf[base[st] + local] = local * STRIPES + st;
+
+                // CSR rows: transient successors in (cols, probs), immediate wins per seat in winNow
+                int[] rowLength = new int[n + 1];
+                double[] winNow = new double[n * players];
+                IntStream.range(0, (n + CHUNK - 1) / CHUNK).parallel().forEach(c -> {
+                        Scratch s = new Scratch(players, width);
+                        for (int i = c * CHUNK; i < Math.min(n, (c + 1) * CHUNK); i++) {
+                                decodeId(idOf[i], s);
+                                int outcomes = expand(s, false, null);
+                                for (int k = 0; k < outcomes; k++) {
+                                        if (s.targets[k] < 0)
+                                                winNow[i * players + (-s.targets[k] - 1)] += s.probabilities[k];
+                                        else
+                                                rowLength[i + 1]++;
+                                }
+                        }
+                });
+                int[] rowStart = rowLength;
+                for (int i = 0; i < n; i++)
+                        rowStart[i + 1] += rowStart[i];
+                int edges = rowStart[n];
+                int[] cols = new int[edges];
+                double[] probs = new double[edges];
+                IntStream.range(0, (n + CHUNK - 1) / CHUNK).parallel().forEach(c -> {
+                        Scratch s = new Scratch(players, width);
+                        for (int i = c * CHUNK; i < Math.min(n, (c + 1) * CHUNK); i++) {
+                                decodeId(idOf[i], s);
+                                int outcomes = expand(s, false, null);
+                                int at = rowStart[i];
+                                for (int k = 0; k < outcomes; k++) {
+                                        int t = s.targets[k];
+                                        if (t >= 0) {
+                                                int st = t & (STRIPES - 1);
+                                                cols[at] = base[st] + (t >>> STRIPE_BITS);
+                                                probs[at++] = s.probabilities[k];
+                                        }
+                                }
+                        }
+                });
+                int rootIndex = base[root & (STRIPES - 1)] + (root >>> STRIPE_BITS);
+
+                double[] win = new double[n * players];
+                int sweeps = iterate(n, rowStart, cols, probs, (i, x) -> {
+                        double change = 0;
+                        for (int seat = 0; seat < players; seat++) {
+                                double v = winNow[i * players + seat];
+                                for (int e = rowStart[i]; e < rowStart[i + 1]; e++)
+                                        v += probs[e] * x[cols[e] * players + seat];
+                                change = Math.max(change, Math.abs(v - x[i * players + seat]));
+                                x[i * players + seat] = v;
+                        }
+                        return change;
+                }, win);
+
+                // Expected turns are finite only where no reachable state can avoid the game ending
+                boolean[] certain = certainAbsorption(n, rowStart, cols, winNow);
+                double expected;
+                if (!certain[rootIndex]) {
+                        expected = Double.POSITIVE_INFINITY;
+                } else {
+                        double[] turns = new double[n];
+                        sweeps = Math.max(sweeps, iterate(n, rowStart, cols, probs, (i, x) -> {
+                                if (!certain[i])
+                                        return 0;
+                                double v = 1;
+                                for (int e = rowStart[i]; e < rowStart[i + 1]; e++)
+                                        v += probs[e] * x[cols[e]];
+                                double change = Math.abs(v - x[i]) / Math.max(1, v);
+                                x[i] = v;
+                                return change;
+                        }, turns));
+                        expected = turns[rootIndex];
+                }
+                double[] rootWin = Arrays.copyOfRange(win, rootIndex * players, rootIndex * players + players);
+                return new Result(players, n, edges, rootWin, expected, sweeps, System.nanoTime() - start);
+        }
+
+        interface RowUpdate {
+                double apply(int row, double[] values);
+        }
+
+        // Parallel in-place sweeps until no value moves by more than TOLERANCE
+        private int iterate(int n, int[] rowStart, int[] cols, double[] probs, RowUpdate update, double[] values) {
+                int chunks = (n + CHUNK - 1) / CHUNK;
+                for (int sweep = 1; sweep <= MAX_SWEEPS; sweep++) {
+                        double change = IntStream.range(0, chunks).parallel().mapToDouble(c -> {
+                                double max = 0;
+                                for (int i = c * CHUNK; i < Math.min(n, (c + 1) * CHUNK); i++)
+                                        max = Math.max(max, update.apply(i, values));
+                                return max;
+                        }).max().orElse(0);
+                        if (change < TOLERANCE)
+                                return sweep;
+                }
+                throw new IllegalStateException("No convergence after " + MAX_SWEEPS + " sweeps");
+        }
+
+        // States from which the game ends with probability 1: they cannot reach any state that cannot end
+        private boolean[] certainAbsorption(int n, int[] rowStart, int[] cols, double[] winNow) {
+                int[] reverseStart = new int[n + 1];
+                for (int e = 0; e < cols.length; e++)
+                        reverseStart[cols[e] + 1]++;
+                for (int i = 0; i < n; i++)
+                        reverseStart[i + 1] += reverseStart[i];
+                int[] reverse = new int[cols.length];
+                int[] fill = Arrays.copyOf(reverseStart, n);
+                for (int i = 0; i < n; i++)
+                        for (int e = rowStart[i]; e < rowStart[i + 1]; e++)
+                                reverse[fill[cols[e]]++] = i;
+
+                boolean[] canEnd = new boolean[n];
+                IntList queue = new IntList();
+                for (int i = 0; i < n; i++) {
+                        double sum = 0;
+                        for (int s = 0; s < players; s++)
+                                sum += winNow[i * players + s];
+                        if (sum > 0) {
+                                canEnd[i] = true;
+                                queue.add(i);
+                        }
+                }
+                backwardClosure(queue, canEnd, reverseStart, reverse);
+
+                boolean[] mayNotEnd = new boolean[n];
+                queue = new IntList();
+                for (int i = 0; i < n; i++)
+                        if (!canEnd[i]) {
+                                mayNotEnd[i] = true;
+                                queue.add(i);
+                        }
+                backwardClosure(queue, mayNotEnd, reverseStart, reverse);
+                boolean[] certain = new boolean[n];
+                for (int i = 0; i < n; i++)
+                        certain[i] = !mayNotEnd[i];
+                return certain;
+        }
+
+        private static void backwardClosure(IntList queue, boolean[] marked, int[] reverseStart, int[] reverse) {
+                for (int head = 0; head < queue.size; head++) {
+                        int i = queue.values[head];
+                        for (int e = reverseStart[i]; e < reverseStart[i + 1]; e++) {
+                                int from = reverse[e];
+                                if (!marked[from]) {
+                                        marked[from] = true;
+                                        queue.add(from);
+                                }
+                        }
+                }
+        }
+}
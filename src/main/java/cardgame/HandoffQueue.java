@@ -0,0 +1,59 @@
+package cardgame;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ Unbounded single-producer single-consumer FIFO of cards, used for the decks that sit between
+ two segments of the segmented engine.
+ Cards live in a linked list of fixed-size arrays, so memory follows the number of cards queued
+ rather than the most a deck could ever hold. The producer fills a slot (and links a new array
+ when one is full) before publishing the new tail count with an ordered write, so the consumer
+ never sees a slot or link that is not there yet. Neither side ever takes a lock.
+ */
+public class HandoffQueue {
+        static final int CHUNK = 1024;
+
+        private static final class Chunk {
+                final Card[] slots = new Card[CHUNK];
+                volatile Chunk next;
+        }
+
+        private final AtomicLong tail = new AtomicLong();
+        private final AtomicLong head = new AtomicLong();
+        // Producer side
+        private Chunk tailChunk = new Chunk();
+        // Consumer side
+        private Chunk headChunk = tailChunk;
+
+        // Producer thread only
+        public void offer(Card card) {
+                long t = tail.get();
+                int slot = (int) (t & (CHUNK - 1));
+                if (slot == 0 && t > 0) {
+                        Chunk next = new Chunk();
+                        tailChunk.next = next;
+                        tailChunk = next;
+                }
+                tailChunk.slots[slot] = card;
+                tail.lazySet(t + 1);
+        }
+
+        // Consumer thread only; null when empty
+        public Card poll() {
+                long h = head.get();
+                if (h == tail.get())
+                        return null;
+                int slot = (int) (h & (CHUNK - 1));
+                if (slot == 0 && h > 0)
+                        headChunk = headChunk.next;
+                Card card = headChunk.slots[slot];
+                headChunk.slots[slot] = null;
+                head.lazySet(h + 1);
+                return card;
+        }
+
+        // Exact only while neither side is active
+        public int size() {
+                return (int) (tail.get() - head.get());
+        }
+}
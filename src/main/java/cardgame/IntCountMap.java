@@ -0,0 +1,149 @@
+package cardgame;
+
+import java.util.Arrays;
+
+/*
+ Primitive open-addressing histogram from card denomination to count.
+ Avoids boxing every value into a HashMap<Integer,Integer>; keys are non-negative
+ card values so -1 marks an empty slot. Not thread-safe - give each worker its own
+ map and merge them afterwards.
+ */
+public class IntCountMap {
+        private static final int EMPTY = -1;
+
+        private int[] keys;
+        private long[] counts;
+        private int size;
+        private int mask;
+
+        public IntCountMap() {
+                this(16);
+        }
+
+        public IntCountMap(int expectedKeys) {
+                int capacity = 16;
+                while (capacity < expectedKeys * 2)
+                        capacity <<= 1;
+                allocate(capacity);
+        }
+
+        private void allocate(int capacity) {
+                keys = new int[capacity];
+                counts = new long[capacity];
+                Arrays.fill(keys, EMPTY);
+                mask = capacity - 1;
+                size = 0;
+        }
+
+        private static int hash(int key) {
+                int h = key * 0x9E3779B9;
+                return h ^ (h >>> 16);
+        }
+
+        public void increment(int key) {
+                add(key, 1);
+        }
+
+        public void add(int key, long delta) {
+                if (key < 0) {
+                        throw new IllegalArgumentException("Card denomination cannot be negative");
+                }
+                int slot = hash(key) & mask;
+                while (true) {
+                        int k = keys[slot];
+                        if (k == key) {
+                                counts[slot] += delta;
+                                return;
+                        }
+                        if (k == EMPTY) {
+                                keys[slot] = key;
+                                counts[slot] = delta;
+                                if (++size * 2 > keys.length)
+                                        grow();
+                                return;
+                        }
+                        slot = (slot + 1) & mask;
+                }
+        }
+
+        public long get(int key) {
+                if (key < 0)
+                        return 0;
+                int slot = hash(key) & mask;
+                while (true) {
+                        int k = keys[slot];
+                        if (k == key)
+                                return counts[slot];
+                        if (k == EMPTY)
+                                return 0;
+                        slot = (slot + 1) & mask;
+                }
+        }
+
+        private void grow() {
+                int[] oldKeys = keys;
+                long[] oldCounts = counts;
+                allocate(oldKeys.length * 2);
+                for (int i = 0; i < oldKeys.length; i++)
+                        if (oldKeys[i] != EMPTY)
+                                add(oldKeys[i], oldCounts[i]);
+        }
+
+        public void addAll(IntCountMap other) {
+                for (int i = 0; i < other.keys.length; i++)
+                        if (other.keys[i] != EMPTY)
+                                add(other.keys[i], other.counts[i]);
+        }
+
+        public int size() {
+                return size;
+        }
+
+        public long total() {
+                long total = 0;
+                for (int i = 0; i < keys.length; i++)
+                        if (keys[i] != EMPTY)
+                                total += counts[i];
+                return total;
+        }
+
+        public void clear() {
+                Arrays.fill(keys, EMPTY);
+                Arrays.fill(counts, 0);
+                size = 0;
+        }
+
+        public int[] sortedKeys() {
+                int[] result = new int[size];
+                int j = 0;
+                for (int k : keys)
+                        if (k != EMPTY)
+                                result[j++] = k;
+                Arrays.sort(result);
+                return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+                if (this == obj)
+                        return true;
+                if (!(obj instanceof IntCountMap))
+                        return false;
+                IntCountMap other = (IntCountMap) obj;
+                if (size != other.size)
+                        return false;
+                for (int i = 0; i < keys.length; i++)
+                        if (keys[i] != EMPTY && other.get(keys[i]) != counts[i])
+                                return false;
+                return true;
+        }
+
+        @Override
+        public int hashCode() {
+                int h = 0;
+                for (int i = 0; i < keys.length; i++)
+                        if (keys[i] != EMPTY)
+                                h += keys[i] ^ Long.hashCode(counts[i]);
+                return h;
+        }
+}
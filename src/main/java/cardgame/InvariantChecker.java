@@ -0,0 +1,112 @@
+package cardgame;
+
+import java.io.*;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/*
+ Optional background check that no card has been lost or duplicated.
+ Every interval it samples (with the configured probability) a consistent GameSnapshot and
+ compares the total card count and the per-denomination multiset against the loaded pack.
+ The first mismatch aborts the game and writes a diagnostic dump, so a broken concurrency
+ mode fails fast instead of silently producing a wrong result.
+ */
+public class InvariantChecker extends Thread {
+        public final CardGame game;
+        public final double sampleRate;
+        public final long intervalMillis;
+        public File dumpFile = new File("invariant_failure.txt");
+
+        private final IntCountMap expected = new IntCountMap();
+        private final long expectedTotal;
+        private final SplittableRandom random = new SplittableRandom();
+        public volatile long checks;
+        public volatile long maxPauseNanos;
+        private volatile String failure;
+
+        public InvariantChecker(CardGame game, List<Card> pack, double sampleRate, long intervalMillis) {
+                super("invariant-checker");
+                if (sampleRate < 0 || sampleRate > 1) {
+                        throw new IllegalArgumentException("Sample rate must be between 0 and 1");
+                }
+                this.game = game;
+                this.sampleRate = sampleRate;
+                this.intervalMillis = intervalMillis;
+                for (Card c : pack)
+                        expected.increment(c.getDenomination());
+                this.expectedTotal = pack.size();
+                setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+                try {
+                        while (!game.isGameOver() && failure == null) {
+                                if (intervalMillis > 0)
+                                        Thread.sleep(intervalMillis);
+                                if (random.nextDouble() < sampleRate)
+                                        checkNow();
+                        }
+                } catch (InterruptedException e) {
+                        // stopped by the game
+                }
+        }
+
+        // Takes one snapshot and verifies it; returns false (after failing the game) on a violation
+        public boolean checkNow() {
+                GameSnapshot snapshot = GameSnapshot.capture(game);
+                checks++;
+                if (snapshot.pauseNanos > maxPauseNanos)
+                        maxPauseNanos = snapshot.pauseNanos;
+                long total = snapshot.totalCards();
+                IntCountMap actual = snapshot.denominations();
+                if (total == expectedTotal && actual.equals(expected))
+                        return true;
+                fail(describe(snapshot, total, actual));
+                return false;
+        }
+
+        public String getFailure() {
+                return failure;
+        }
+
+        private String describe(GameSnapshot snapshot, long total, IntCountMap actual) {
+                StringBuilder sb = new StringBuilder("Card conservation violated after " + checks + " checks\n");
+                sb.append("total cards: expected ").append(expectedTotal).append(", found ").append(total).append('\n');
+                IntCountMap all = new IntCountMap();
+                all.addAll(expected);
+                all.addAll(actual);
+                for (int value : all.sortedKeys()) {
+                        long want = expected.get(value);
+                        long got = actual.get(value);
+                        if (want != got)
+                                sb.append("value ").append(value).append(": expected ").append(want)
+                                                .append(", found ").append(got).append('\n');
+                }
+                for (int i = 0; i < snapshot.decks.length; i++)
+                        sb.append("deck").append(game.decks.get(i).getId()).append(": ")
+                                        .append(join(snapshot.decks[i])).append('\n');
+                for (int i = 0; i < snapshot.hands.length; i++)
+                        sb.append("player").append(game.players.get(i).id).append(" hand: ")
+                                        .append(join(snapshot.hands[i])).append('\n');
+                return sb.toString();
+        }
+
+        private static String join(int[] values) {
+                StringBuilder sb = new StringBuilder();
+                for (int v : values)
+                        sb.append(v).append(' ');
+                return sb.toString().trim();
+        }
+
+        private void fail(String dump) {
+                failure = dump;
+                System.err.print(dump);
+                try (PrintWriter pw = new PrintWriter(new FileWriter(dumpFile))) {
+                        pw.print(dump);
+                } catch (IOException e) {
+                        System.err.println("Could not write invariant dump: " + e.getMessage());
+                }
+                game.abortGame("card conservation invariant violated");
+        }
+}
@@ -0,0 +1,107 @@
+package cardgame;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ Fixed-size log-linear histogram of non-negative latencies in nanoseconds, in the style of
+ HdrHistogram. Values below 2^SUB_BUCKET_BITS are counted exactly; above that every power of two
+ is split into 2^(SUB_BUCKET_BITS-1) linear sub-buckets, so any recorded value is reported within
+ about 3% of its true value. Recording is lock-free and allocation-free, so one histogram can be
+ shared by both players of a deck. Histograms with the same layout merge by adding counts.
+ */
+public class LatencyHistogram {
+        static final int SUB_BUCKET_BITS = 6;
+        static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        static final int HALF = SUB_BUCKETS >> 1;
+        static final int LENGTH = (64 - SUB_BUCKET_BITS + 1) * HALF + HALF;
+
+        private final AtomicLongArray counts = new AtomicLongArray(LENGTH);
+        private final AtomicLong totalCount = new AtomicLong();
+        private final AtomicLong totalValue = new AtomicLong();
+        private final AtomicLong maxValue = new AtomicLong();
+
+        static int indexOf(long value) {
+                int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1));
+                return shift * HALF + (int) (value >>> shift);
+        }
+
+        static long lowestValueAt(int index) {
+                int shift = Math.max(0, index / HALF - 1);
+                return (long) (index - shift * HALF) << shift;
+        }
+
+        static long highestValueAt(int index) {
+                int shift = Math.max(0, index / HALF - 1);
+                return lowestValueAt(index) + (1L << shift) - 1;
+        }
+
+        public void record(long nanos) {
+                long value = Math.max(0, nanos);
+                counts.incrementAndGet(indexOf(value));
+                totalCount.incrementAndGet();
+                totalValue.addAndGet(value);
+                long max = maxValue.get();
+                while (value > max && !maxValue.compareAndSet(max, value))
+                        max = maxValue.get();
+        }
+
+        public long getTotalCount() {
+                return totalCount.get();
+        }
+
+        public long getMax() {
+                return maxValue.get();
+        }
+
+        public double getMean() {
+                long count = totalCount.get();
+                return count == 0 ? 0 : (double) totalValue.get() / count;
+        }
+
+        public long getCountAt(long value) {
+                return counts.get(indexOf(value));
+        }
+
+        // Smallest recorded bucket bound such that at least the given percentage of values are at or below it
+        public long getValueAtPercentile(double percentile) {
+                if (percentile < 0 || percentile > 100) {
+                        throw new IllegalArgumentException("Percentile must be between 0 and 100");
+                }
+                long count = 0;
+                for (int i = 0; i < LENGTH; i++)
+                        count += counts.get(i);
+                if (count == 0)
+                        return 0;
+                long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+                long seen = 0;
+                for (int i = 0; i < LENGTH; i++) {
+                        seen += counts.get(i);
+                        if (seen >= target)
+                                return Math.min(highestValueAt(i), getMax());
+                }
+                return getMax();
+        }
+
+        public void add(LatencyHistogram other) {
+                for (int i = 0; i < LENGTH; i++) {
+                        long c = other.counts.get(i);
+                        if (c != 0)
+                                counts.addAndGet(i, c);
+                }
+                totalCount.addAndGet(other.totalCount.get());
+                totalValue.addAndGet(other.totalValue.get());
+                long otherMax = other.getMax();
+                long max = maxValue.get();
+                while (otherMax > max && !maxValue.compareAndSet(max, otherMax))
+                        max = maxValue.get();
+        }
+
+        public void reset() {
+                for (int i = 0; i < LENGTH; i++)
+                        counts.set(i, 0);
+                totalCount.set(0);
+                totalValue.set(0);
+                maxValue.set(0);
+        }
+}
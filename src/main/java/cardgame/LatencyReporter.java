@@ -0,0 +1,101 @@
+package cardgame;
+
+import java.io.*;
+
+/*
+ Attaches LatencyHistograms to the decks (tryLock wait) and players (turn latency) and appends
+ their cumulative percentiles to a CSV file every interval while the game runs, plus a merged
+ row per kind. Up to MAX_ROWS decks or players each get their own histogram; beyond that a
+ contiguous arc of the ring shares one (rows like deck1-16.lock_wait), so memory and the cost
+ of a dump stay fixed however many players there are. Comparing deck rows shows hot spots in
+ the ring; the p99/p999 columns show what the fair lock costs in the tail.
+ */
+public class LatencyReporter extends Thread {
+        public static final String HEADER = "elapsed_ms,source,count,mean_ns,p50_ns,p90_ns,p99_ns,p999_ns,max_ns";
+        public static final int MAX_ROWS = 64;
+
+        public final CardGame game;
+        public final long intervalMillis;
+        private final PrintWriter out;
+        private final long startNanos = System.nanoTime();
+        private final LatencyHistogram[] deckHistograms;
+        private final LatencyHistogram[] playerHistograms;
+
+        public LatencyReporter(CardGame game, File csv, long intervalMillis) throws IOException {
+                super("latency-reporter");
+                this.game = game;
+                this.intervalMillis = intervalMillis;
+                this.deckHistograms = stripes(game.decks.size());
+                for (int i = 0; i < game.decks.size(); i++)
+                        game.decks.get(i).lockWaitHistogram = deckHistograms[stripeOf(i, game.decks.size())];
+                this.playerHistograms = stripes(game.players.size());
+                for (int i = 0; i < game.players.size(); i++)
+                        game.players.get(i).turnLatencyHistogram = playerHistograms[stripeOf(i, game.players.size())];
+                this.out = new PrintWriter(new BufferedWriter(new FileWriter(csv)));
+                out.println(HEADER);
+                setDaemon(true);
+        }
+
+        static LatencyHistogram[] stripes(int count) {
+                LatencyHistogram[] histograms = new LatencyHistogram[Math.min(count, MAX_ROWS)];
+                for (int i = 0; i < histograms.length; i++)
+                        histograms[i] = new LatencyHistogram();
+                return histograms;
+        }
+
+        // Histogram shared by the index-th of count decks or players
+        static int stripeOf(int index, int count) {
+                return (int) ((long) index * Math.min(count, MAX_ROWS) / count);
+        }
+
+        // Row name for a stripe: deck7 on its own, deck1-16 for an arc
+        static String label(String kind, int stripe, int count) {
+                int stripes = Math.min(count, MAX_ROWS);
+                long first = ((long) stripe * count + stripes - 1) / stripes;
+                long last = ((long) (stripe + 1) * count + stripes - 1) / stripes - 1;
+                return first == last ? kind + (first + 1) : kind + (first + 1) + "-" + (last + 1);
+        }
+
+        @Override
+        public void run() {
+                try {
+                        while (!game.isGameOver()) {
+                                Thread.sleep(Math.max(1, intervalMillis));
+                                dump();
+                        }
+                } catch (InterruptedException e) {
+                        // stopped by the game
+                }
+        }
+
+        public synchronized void dump() {
+                long elapsed = (System.nanoTime() - startNanos) / 1000000;
+                LatencyHistogram allDecks = new LatencyHistogram();
+                LatencyHistogram allPlayers = new LatencyHistogram();
+                for (int s = 0; s < deckHistograms.length; s++) {
+                        writeRow(elapsed, label("deck", s, game.decks.size()) + ".lock_wait", deckHistograms[s]);
+                        allDecks.add(deckHistograms[s]);
+                }
+                for (int s = 0; s < playerHistograms.length; s++) {
+                        writeRow(elapsed, label("player", s, game.players.size()) + ".turn", playerHistograms[s]);
+                        allPlayers.add(playerHistograms[s]);
+                }
+                writeRow(elapsed, "all_decks.lock_wait", allDecks);
+                writeRow(elapsed, "all_players.turn", allPlayers);
+                out.flush();
+        }
+
+        private void writeRow(long elapsed, String source, LatencyHistogram h) {
+                out.println(elapsed + "," + source + "," + h.getTotalCount() + "," + Math.round(h.getMean()) + ","
+                                + h.getValueAtPercentile(50) + "," + h.getValueAtPercentile(90) + ","
+                                + h.getValueAtPercentile(99) + "," + h.getValueAtPercentile(99.9) + "," + h.getMax());
+        }
+
+        // Stops the periodic dump and writes the final rows
+        public void finish() throws InterruptedException {
+                interrupt();
+                join();
+                dump();
+                out.close();
+        }
+}
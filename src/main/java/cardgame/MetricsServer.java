@@ -0,0 +1,152 @@
+package cardgame;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/*
+ Optional HTTP endpoint that serves a running game's state at /metrics in the Prometheus text
+ format, so long games can be scraped by an existing monitoring stack. It binds to the loopback
+ address only. Everything is computed at scrape time from the players' single-writer volatile
+ counters, so players do no extra work for it. Only monotonic _total counters are exported, never
+ rates, so any number of scrapers agree and Prometheus derives rates with rate() over its own window.
+ */
+public class MetricsServer {
+        public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+        public final CardGame game;
+        private final HttpServer server;
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        // Allocation counted so far, and what each live thread had allocated when last seen
+        private long allocatedTotal;
+        private Map<Long, Long> allocatedByThread = new HashMap<>();
+
+        public MetricsServer(CardGame game, int port) throws IOException {
+                this.game = game;
+                this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+                server.createContext("/metrics", this::handle);
+                // Threads already running are counted from here on, not from their own start
+                Map<Long, Long> existing = threadAllocations();
+                if (existing != null)
+                        allocatedByThread = existing;
+        }
+
+        public void start() {
+                server.start();
+        }
+
+        public void stop() {
+                server.stop(0);
+        }
+
+        public int getPort() {
+                return server.getAddress().getPort();
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+                try {
+                        if (!"GET".equals(exchange.getRequestMethod())) {
+                                exchange.sendResponseHeaders(405, -1);
+                                return;
+                        }
+                        byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+                        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                        exchange.sendResponseHeaders(200, body.length);
+                        try (OutputStream out = exchange.getResponseBody()) {
+                                out.write(body);
+                        }
+                } finally {
+                        exchange.close();
+                }
+        }
+
+        // Bytes allocated so far by each live thread, or null if the JVM cannot tell
+        private Map<Long, Long> threadAllocations() {
+                if (!(threads instanceof com.sun.management.ThreadMXBean))
+                        return null;
+                com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean) threads;
+                if (!sun.isThreadAllocatedMemorySupported() || !sun.isThreadAllocatedMemoryEnabled())
+                        return null;
+                long[] ids = threads.getAllThreadIds();
+                long[] bytes = sun.getThreadAllocatedBytes(ids);
+                Map<Long, Long> allocations = new HashMap<>(ids.length * 2);
+                for (int i = 0; i < ids.length; i++)
+                        if (bytes[i] >= 0)
+                                allocations.put(ids[i], bytes[i]);
+                return allocations;
+        }
+
+        // Bytes allocated since the server started, -1 if the JVM cannot tell. Threads that existed then count
+        // from their allocation at that moment, threads first seen later from zero, and each scrape adds every
+        // live thread's growth since it was last seen, so the total never drops when a thread exits. The JVM
+        // only reports live threads, so what a thread allocates after its last scrape is missed, and so is all
+        // of a thread that starts and exits between two scrapes
+        private long allocatedBytes() {
+                Map<Long, Long> now = threadAllocations();
+                if (now == null)
+                        return -1;
+                for (Map.Entry<Long, Long> e : now.entrySet()) {
+                        Long before = allocatedByThread.get(e.getKey());
+                        allocatedTotal += Math.max(0, e.getValue() - (before == null ? 0 : before));
+                }
+                allocatedByThread = now;
+                return allocatedTotal;
+        }
+
+        public synchronized String scrape() {
+                long turns = 0, acquisitions = 0, failures = 0;
+                int active = 0;
+                boolean started = game.startNanos != 0;
+                for (Player p : game.players) {
+                        turns += p.cardsMoved;
+                        acquisitions += p.lockAcquisitions;
+                        failures += p.lockFailures;
+                        if (started && !p.exited)
+                                active++;
+                }
+                long allocated = allocatedBytes();
+
+                StringBuilder sb = new StringBuilder();
+                metric(sb, "cardgame_turns_total", "counter", "Cards moved from a left deck to a right deck", turns);
+                metric(sb, "cardgame_active_players", "gauge", "Players that have started and not yet exited", active);
+                metric(sb, "cardgame_players", "gauge", "Players in the ring", game.players.size());
+                sb.append("# HELP cardgame_deck_depth Cards currently in each deck\n");
+                sb.append("# TYPE cardgame_deck_depth gauge\n");
+                for (CardDeck d : game.decks)
+                        sb.append("cardgame_deck_depth{deck=\"").append(d.getId()).append("\"} ").append(d.size()).append('\n');
+                metric(sb, "cardgame_lock_failures_total", "counter", "Deck lock attempts that timed out or were refused", failures);
+                metric(sb, "cardgame_lock_failure_ratio", "gauge", "Failed share of all deck lock attempts",
+                                acquisitions + failures == 0 ? 0 : (double) failures / (acquisitions + failures));
+                metric(sb, "cardgame_game_over", "gauge", "1 once a winner has been declared or the game aborted",
+                                game.isGameOver() ? 1 : 0);
+                metric(sb, "cardgame_winner", "gauge", "Winning player id, -1 while there is none", game.getWinnerId());
+                long quiesce = game.getQuiesceNanos();
+                if (quiesce >= 0)
+                        metric(sb, "cardgame_quiesce_seconds", "gauge", "Time from game over to the last player exit",
+                                        quiesce / 1e9);
+                if (allocated >= 0)
+                        metric(sb, "cardgame_jvm_allocated_bytes_total", "counter",
+                                        "Bytes allocated by JVM threads since the metrics server started, as seen by scrapes", allocated);
+                return sb.toString();
+        }
+
+        private static void metric(StringBuilder sb, String name, String type, String help, double value) {
+                sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+                sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+                sb.append(name).append(' ');
+                if (value == Math.rint(value) && Math.abs(value) < 1e15)
+                        sb.append((long) value);
+                else
+                        sb.append(String.format(Locale.ROOT, "%.6f", value));
+                sb.append('\n');
+        }
+}
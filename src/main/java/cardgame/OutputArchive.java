@@ -0,0 +1,415 @@
+package cardgame;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ Single-file replacement for the per-player and per-deck output files.
+ Every logical file (e.g. player3_output.txt) is an entry whose bytes are buffered in memory
+ and handed to one writer thread in segments of at most SEGMENT_BYTES. All entries share one
+ buffer budget: once it is spent, a writer hands over its partial segment instead of growing it,
+ so thousands of open entries cannot hold more than the budget between them. The writer
+ appends queued segments to the archive with gathering writes on a single FileChannel and
+ records where each one landed.
+ On close an index of entry names and segment offsets is appended, followed by a trailer
+ pointing at it, so any entry can be materialised again on demand.
+ Layout: magic, version, segment data..., index, index offset, magic.
+ Usage: java cardgame.OutputArchive <archive> [--list | --all <dir> | <entry name> [dir]]
+ */
+public class OutputArchive implements Closeable {
+        static final int MAGIC = 0x43474131;
+        static final int VERSION = 1;
+        static final int HEADER_BYTES = 8;
+        static final int TRAILER_BYTES = 12;
+        static final int SEGMENT_BYTES = 1 << 13;
+        static final int FIRST_BUFFER_BYTES = 256;
+        static final long BUFFER_BUDGET = 1L << 26;
+        static final int MAX_BATCH = 1024;
+
+        private static final Segment END = new Segment(-1, new byte[0], 0);
+
+        private final FileChannel channel;
+        private final List<String> names = new ArrayList<>();
+        private final List<long[]> segmentOffsets = new ArrayList<>();
+        private final List<int[]> segmentLengths = new ArrayList<>();
+        private int[] segmentCounts = new int[16];
+        private final List<EntryWriter> writers = new ArrayList<>();
+        private final BlockingQueue<Segment> queue = new ArrayBlockingQueue<>(4096);
+        private final Thread writer;
+        private final long bufferBudget;
+        private final AtomicLong buffered = new AtomicLong();
+        private volatile IOException failure;
+        private long position = HEADER_BYTES;
+        private boolean closed;
+        public volatile long writeCalls;
+
+        private static final class Segment {
+                final int entry;
+                final byte[] data;
+                final int length;
+
+                Segment(int entry, byte[] data, int length) {
+                        this.entry = entry;
+                        this.data = data;
+                        this.length = length;
+                }
+        }
+
+        public OutputArchive(File file) throws IOException {
+                this(file, BUFFER_BUDGET);
+        }
+
+        // bufferBudget caps the bytes held by all unfinished segments together
+        public OutputArchive(File file, long bufferBudget) throws IOException {
+                this.bufferBudget = bufferBudget;
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                StandardOpenOption.TRUNCATE_EXISTING);
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(MAGIC).putInt(VERSION).flip();
+                writeFully(header);
+                writer = new Thread(this::writeLoop, "output-archive-writer");
+                writer.setDaemon(true);
+                writer.start();
+        }
+
+        // Returns a line-flushing writer like the one Player used for its own file
+        public PrintWriter openWriter(String name) {
+                EntryWriter entryWriter = new EntryWriter(register(name));
+                synchronized (this) {
+                        writers.add(entryWriter);
+                }
+                return new PrintWriter(entryWriter, true);
+        }
+
+        public void writeEntry(String name, String text) {
+                byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                submit(new Segment(register(name), bytes, bytes.length));
+        }
+
+        private synchronized int register(String name) {
+                if (closed) {
+                        throw new IllegalStateException("Output archive is closed");
+                }
+                names.add(name);
+                if (names.size() > segmentCounts.length)
+                        segmentCounts = Arrays.copyOf(segmentCounts, segmentCounts.length * 2);
+                segmentOffsets.add(new long[2]);
+                segmentLengths.add(new int[2]);
+                return names.size() - 1;
+        }
+
+        // Bytes currently held in entry buffers, not counting segments already queued for the writer
+        public long bufferedBytes() {
+                return buffered.get();
+        }
+
+        private void submit(Segment segment) {
+                boolean interrupted = false;
+                while (true) {
+                        try {
+                                queue.put(segment);
+                                break;
+                        } catch (InterruptedException e) {
+                                interrupted = true;
+                        }
+                }
+                if (interrupted)
+                        Thread.currentThread().interrupt();
+        }
+
+        private void writeLoop() {
+                List<Segment> batch = new ArrayList<>(MAX_BATCH);
+                boolean done = false;
+                while (!done) {
+                        try {
+                                batch.add(queue.take());
+                        } catch (InterruptedException e) {
+                                continue;
+                        }
+                        queue.drainTo(batch, MAX_BATCH - 1);
+                        ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+                        int used = 0;
+                        for (Segment s : batch) {
+                                if (s == END) {
+                                        done = true;
+                                        continue;
+                                }
+                                if (failure != null || s.length == 0)
+                                        continue;
+                                synchronized (this) {
+                                        recordSegment(s.entry, position, s.length);
+                                }
+                                position += s.length;
+                                buffers[used++] = ByteBuffer.wrap(s.data, 0, s.length);
+                        }
+                        batch.clear();
+                        if (used > 0 && failure == null) {
+                                try {
+                                        writeFully(Arrays.copyOf(buffers, used));
+                                } catch (IOException e) {
+                                        failure = e;
+                                }
+                        }
+                }
+        }
+
+        private void recordSegment(int entry, long offset, int length) {
+                int index = segmentCounts[entry]++;
+                long[] offsets = segmentOffsets.get(entry);
+                int[] lengths = segmentLengths.get(entry);
+                if (index == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, index * 2);
+                        lengths = Arrays.copyOf(lengths, index * 2);
+                        segmentOffsets.set(entry, offsets);
+                        segmentLengths.set(entry, lengths);
+                }
+                offsets[index] = offset;
+                lengths[index] = length;
+        }
+
+        private void writeFully(ByteBuffer... buffers) throws IOException {
+                long remaining = 0;
+                for (ByteBuffer b : buffers)
+                        remaining += b.remaining();
+                while (remaining > 0)
+                        remaining -= channel.write(buffers);
+                writeCalls++;
+        }
+
+        @Override
+        public void close() throws IOException {
+                synchronized (this) {
+                        if (closed)
+                                return;
+                        closed = true;
+                }
+                // Entries whose writer was never closed still keep what was written to them
+                for (EntryWriter w : writers)
+                        w.close();
+                submit(END);
+                boolean interrupted = false;
+                while (writer.isAlive()) {
+                        try {
+                                writer.join();
+                        } catch (InterruptedException e) {
+                                interrupted = true;
+                        }
+                }
+                if (interrupted)
+                        Thread.currentThread().interrupt();
+                try {
+                        if (failure != null)
+                                throw failure;
+                        writeIndex();
+                } finally {
+                        channel.close();
+                }
+        }
+
+        private synchronized void writeIndex() throws IOException {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeInt(names.size());
+                for (int e = 0; e < names.size(); e++) {
+                        int count = segmentCounts[e];
+                        out.writeUTF(names.get(e));
+                        out.writeInt(count);
+                        for (int s = 0; s < count; s++) {
+                                out.writeLong(segmentOffsets.get(e)[s]);
+                                out.writeInt(segmentLengths.get(e)[s]);
+                        }
+                }
+                out.writeLong(position);
+                out.writeInt(MAGIC);
+                out.flush();
+                writeFully(ByteBuffer.wrap(bytes.toByteArray()));
+        }
+
+        // Encodes straight into byte arrays of at most a segment, so an idle entry costs only its pending bytes
+        private final class EntryWriter extends Writer {
+                private final int entry;
+                private byte[] buffer = new byte[FIRST_BUFFER_BYTES];
+                private int length;
+
+                EntryWriter(int entry) {
+                        this.entry = entry;
+                        buffered.addAndGet(FIRST_BUFFER_BYTES);
+                }
+
+                @Override
+                public synchronized void write(char[] chars, int off, int len) {
+                        if (buffer == null)
+                                return;
+                        for (int i = off; i < off + len; i++) {
+                                char c = chars[i];
+                                if (c < 0x80) {
+                                        put((byte) c);
+                                } else {
+                                        int end = i + 1;
+                                        if (Character.isHighSurrogate(c) && end < off + len)
+                                                end++;
+                                        for (byte b : new String(chars, i, end - i).getBytes(StandardCharsets.UTF_8))
+                                                put(b);
+                                        i = end - 1;
+                                }
+                        }
+                }
+
+                private void put(byte b) {
+                        if (length == buffer.length) {
+                                if (buffer.length < SEGMENT_BYTES && buffered.get() < bufferBudget) {
+                                        buffered.addAndGet(buffer.length);
+                                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                                } else {
+                                        // A full segment, or the budget is spent: hand over what there is and start small again
+                                        submit(new Segment(entry, buffer, length));
+                                        buffered.addAndGet(FIRST_BUFFER_BYTES - buffer.length);
+                                        buffer = new byte[FIRST_BUFFER_BYTES];
+                                        length = 0;
+                                }
+                        }
+                        buffer[length++] = b;
+                }
+
+                // Bytes stay buffered until a segment fills or the entry is closed
+                @Override
+                public void flush() {
+                }
+
+                @Override
+                public synchronized void close() {
+                        if (buffer == null)
+                                return;
+                        submit(new Segment(entry, buffer, length));
+                        buffered.addAndGet(-buffer.length);
+                        buffer = null;
+                }
+        }
+
+        public static Map<String, long[][]> readIndex(File archive) throws IOException {
+                try (RandomAccessFile raf = new RandomAccessFile(archive, "r")) {
+                        if (raf.length() < HEADER_BYTES + TRAILER_BYTES || raf.readInt() != MAGIC) {
+                                throw new IOException("Not an output archive: " + archive.getName());
+                        }
+                        raf.seek(raf.length() - TRAILER_BYTES);
+                        long indexOffset = raf.readLong();
+                        if (raf.readInt() != MAGIC) {
+                                throw new IOException("Output archive is incomplete: " + archive.getName());
+                        }
+                        byte[] indexBytes = new byte[(int) (raf.length() - TRAILER_BYTES - indexOffset)];
+                        raf.seek(indexOffset);
+                        raf.readFully(indexBytes);
+                        DataInputStream in = new DataInputStream(new ByteArrayInputStream(indexBytes));
+                        Map<String, long[][]> index = new LinkedHashMap<>();
+                        int entries = in.readInt();
+                        for (int e = 0; e < entries; e++) {
+                                String name = in.readUTF();
+                                long[][] segments = new long[in.readInt()][2];
+                                for (long[] segment : segments) {
+                                        segment[0] = in.readLong();
+                                        segment[1] = in.readInt();
+                                }
+                                index.put(name, segments);
+                        }
+                        return index;
+                }
+        }
+
+        public static List<String> listEntries(File archive) throws IOException {
+                return new ArrayList<>(readIndex(archive).keySet());
+        }
+
+        public static void extract(File archive, String name, OutputStream out) throws IOException {
+                long[][] segments = readIndex(archive).get(name);
+                if (segments == null) {
+                        throw new FileNotFoundException("No entry " + name + " in " + archive.getName());
+                }
+                copySegments(archive, segments, out);
+        }
+
+        public static String readEntry(File archive, String name) throws IOException {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                extract(archive, name, out);
+                return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+
+        public static void extract(File archive, String name, File directory) throws IOException {
+                File target = entryFile(directory, name);
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(target))) {
+                        extract(archive, name, out);
+                }
+        }
+
+        public static void extractAll(File archive, File directory) throws IOException {
+                Map<String, long[][]> index = readIndex(archive);
+                // Check every name first so a bad archive writes nothing at all
+                for (String name : index.keySet())
+                        entryFile(directory, name);
+                for (Map.Entry<String, long[][]> e : index.entrySet()) {
+                        try (OutputStream out = new BufferedOutputStream(
+                                        new FileOutputStream(entryFile(directory, e.getKey())))) {
+                                copySegments(archive, e.getValue(), out);
+                        }
+                }
+        }
+
+        // Entry names come from the archive, so refuse any that would land outside the target directory
+        static File entryFile(File directory, String name) throws IOException {
+                File target = new File(directory, name);
+                Path root = directory.getCanonicalFile().toPath();
+                Path path = target.getCanonicalFile().toPath();
+                if (!path.startsWith(root) || path.equals(root)) {
+                        throw new IOException("Entry " + name + " would be extracted outside " + directory);
+                }
+                return target;
+        }
+
+        private static void copySegments(File archive, long[][] segments, OutputStream out) throws IOException {
+                try (FileChannel in = FileChannel.open(archive.toPath(), StandardOpenOption.READ)) {
+                        ByteBuffer buffer = ByteBuffer.allocate(SEGMENT_BYTES);
+                        for (long[] segment : segments) {
+                                long offset = segment[0];
+                                long remaining = segment[1];
+                                while (remaining > 0) {
+                                        buffer.clear();
+                                        buffer.limit((int) Math.min(buffer.capacity(), remaining));
+                                        int read = in.read(buffer, offset);
+                                        if (read < 0) {
+                                                throw new EOFException("Truncated output archive: " + archive.getName());
+                                        }
+                                        out.write(buffer.array(), 0, read);
+                                        offset += read;
+                                        remaining -= read;
+                                }
+                        }
+                }
+        }
+
+        public static void main(String[] args) {
+                if (args.length < 2) {
+                        System.out.println("Usage: java cardgame.OutputArchive <archive> [--list | --all <dir> | <entry name> [dir]]");
+                        return;
+                }
+                File archive = new File(args[0]);
+                try {
+                        if (args[1].equals("--list")) {
+                                for (String name : listEntries(archive))
+                                        System.out.println(name);
+                        } else if (args[1].equals("--all")) {
+                                extractAll(archive, new File(args.length > 2 ? args[2] : "."));
+                        } else {
+                                extract(archive, args[1], new File(args.length > 2 ? args[2] : "."));
+                        }
+                } catch (IOException e) {
+                        System.out.println("Error reading output archive: " + e.getMessage());
+                }
+        }
+}
@@ -0,0 +1,303 @@
+package cardgame;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.IntConsumer;
+
+/*
+ Generates packs of 8n cards straight to disk for testing and benchmarking.
+ The pack is cut into fixed-size chunks, each with its own SplittableRandom seeded from the
+ root seed, so output is reproducible for a given seed regardless of thread count. Chunks are
+ written in parallel into memory-mapped regions of one file: the binary format has fixed-width
+ records, while the text format first sizes every chunk and then writes at the prefix offsets.
+ A winnable pack lets the winning seat complete its hand with its first draw.
+ Usage: java cardgame.PackGenerator <players> <output file> [--distribution=uniform|skewed|winnable|unwinnable]
+        [--seat=k] [--seed=s] [--binary] [--threads=t]
+ */
+public class PackGenerator {
+        public enum Distribution {
+                UNIFORM, SKEWED, WINNABLE, UNWINNABLE;
+
+                public static Distribution parse(String value) {
+                        for (Distribution d : values())
+                                if (d.name().equalsIgnoreCase(value == null ? "" : value.trim()))
+                                        return d;
+                        throw new IllegalArgumentException("Invalid distribution: " + value);
+                }
+        }
+
+        static final int DEFAULT_CHUNK_CARDS = 1 << 20;
+        static final int WRITE_BUFFER = 1 << 16;
+
+        public final int players;
+        public final Distribution distribution;
+        public final int winningSeat;
+        public final long seed;
+        public final long cards;
+        private final int chunkCards;
+        private final long[] chunkSeeds;
+        private final long modulus;
+        private final long multiplier;
+        private final long offset;
+
+        public PackGenerator(int players, Distribution distribution, int winningSeat, long seed) {
+                this(players, distribution, winningSeat, seed, DEFAULT_CHUNK_CARDS);
+        }
+
+        PackGenerator(int players, Distribution distribution, int winningSeat, long seed, int chunkCards) {
+                if (players <= 0) {
+                        throw new IllegalArgumentException("Number of players must be positive");
+                }
+                if (distribution == Distribution.WINNABLE && (winningSeat < 1 || winningSeat > players)) {
+                        throw new IllegalArgumentException("Winning seat must be between 1 and " + players);
+                }
+                this.players = players;
+                this.distribution = distribution;
+                this.winningSeat = winningSeat;
+                this.seed = seed;
+                this.cards = 8L * players;
+                this.chunkCards = chunkCards;
+
+                SplittableRandom root = new SplittableRandom(seed);
+                this.chunkSeeds = new long[(int) ((cards + chunkCards - 1) / chunkCards)];
+                for (int i = 0; i < chunkSeeds.length; i++)
+                        chunkSeeds[i] = root.nextLong();
+
+                // Unwinnable packs use each value at most three times: value = 1 + (a * (i mod m) + b) mod m.
+                // a and b come after the chunk seeds, so other distributions skip them without changing their packs
+                this.modulus = (cards + 2) / 3;
+                if (distribution == Distribution.UNWINNABLE) {
+                        long a = 1 + root.nextLong(Math.max(1, modulus));
+                        while (gcd(a, modulus) != 1)
+                                a++;
+                        this.multiplier = a % modulus;
+                        this.offset = root.nextLong(modulus);
+                } else {
+                        this.multiplier = 0;
+                        this.offset = 0;
+                }
+        }
+
+        public static void main(String[] args) {
+                if (args.length < 2) {
+                        System.out.println("Usage: java cardgame.PackGenerator <players> <output file> "
+                                        + "[--distribution=uniform|skewed|winnable|unwinnable] [--seat=k] [--seed=s] [--binary] [--threads=t]");
+                        return;
+                }
+                try {
+                        int players = Integer.parseInt(args[0]);
+                        File out = new File(args[1]);
+                        Distribution distribution = Distribution.UNIFORM;
+                        int seat = 1;
+                        long seed = System.nanoTime();
+                        boolean binary = false;
+                        int threads = Runtime.getRuntime().availableProcessors();
+                        for (int i = 2; i < args.length; i++) {
+                                String arg = args[i];
+                                String value = arg.indexOf('=') >= 0 ? arg.substring(arg.indexOf('=') + 1) : null;
+                                if (arg.startsWith("--distribution="))
+                                        distribution = Distribution.parse(value);
+                                else if (arg.startsWith("--seat="))
+                                        seat = Integer.parseInt(value);
+                                else if (arg.startsWith("--seed="))
+                                        seed = Long.parseLong(value);
+                                else if (arg.equals("--binary"))
+                                        binary = true;
+                                else if (arg.startsWith("--threads="))
+                                        threads = Integer.parseInt(value);
+                                else
+                                        throw new IllegalArgumentException("Unknown option: " + arg);
+                        }
+                        PackGenerator generator = new PackGenerator(players, distribution, seat, seed);
+                        long start = System.nanoTime();
+                        if (binary)
+                                generator.writeBinary(out, threads);
+                        else
+                                generator.writeText(out, threads);
+                        System.out.println("Wrote " + generator.cards + " cards to " + out + " in "
+                                        + (System.nanoTime() - start) / 1000000 + " ms (seed " + seed + ")");
+                } catch (IOException | IllegalArgumentException e) {
+                        System.out.println("Error generating pack: " + e.getMessage());
+                }
+        }
+
+        private static long gcd(long a, long b) {
+                while (b != 0) {
+                        long t = a % b;
+                        a = b;
+                        b = t;
+                }
+                return a;
+        }
+
+        public int chunkCount() {
+                return chunkSeeds.length;
+        }
+
+        private long chunkStart(int chunk) {
+                return (long) chunk * chunkCards;
+        }
+
+        private long chunkEnd(int chunk) {
+                return Math.min(cards, chunkStart(chunk) + chunkCards);
+        }
+
+        // Value of the card at a given index, drawing from the chunk's own random stream
+        int valueAt(long index, SplittableRandom random) {
+                switch (distribution) {
+                case SKEWED:
+                        double u = random.nextDouble();
+                        return 1 + (int) Math.min(players - 1, (long) (players * u * u * u));
+                case WINNABLE:
+                        // The seat is dealt three of its value and a 0, and the top of its left deck is the fourth,
+                        // so it can win on its first turn but nobody has won at the deal
+                        int seat = (int) (index % players) + 1;
+                        long round = index / players;
+                        if (round < 4) {
+                                if (seat == winningSeat)
+                                        return round < 3 ? winningSeat : 0;
+                                // two 0s keep every other player at least two turns from four of a kind
+                                if (round < 2)
+                                        return 0;
+                        } else if (round == 4 && seat == winningSeat) {
+                                return winningSeat;
+                        }
+                        return 1 + random.nextInt(players);
+                case UNWINNABLE:
+                        return (int) (1 + (multiplier * (index % modulus) + offset) % modulus);
+                default:
+                        return 1 + random.nextInt(players);
+                }
+        }
+
+        // Generates the whole pack in memory; meant for small packs and tests
+        public List<Card> generateCards() {
+                List<Card> pack = new ArrayList<>((int) Math.min(cards, Integer.MAX_VALUE));
+                for (int c = 0; c < chunkCount(); c++) {
+                        SplittableRandom random = new SplittableRandom(chunkSeeds[c]);
+                        for (long i = chunkStart(c); i < chunkEnd(c); i++)
+                                pack.add(new Card(valueAt(i, random)));
+                }
+                return pack;
+        }
+
+        // Streams every value in pack order without building cards; used to deal huge packs straight into CompactEngine
+        public void forEachValue(IntConsumer sink) {
+                for (int c = 0; c < chunkCount(); c++) {
+                        SplittableRandom random = new SplittableRandom(chunkSeeds[c]);
+                        for (long i = chunkStart(c); i < chunkEnd(c); i++)
+                                sink.accept(valueAt(i, random));
+                }
+        }
+
+        private static int digits(int value) {
+                int d = 1;
+                while (value >= 10) {
+                        value /= 10;
+                        d++;
+                }
+                return d;
+        }
+
+        private long textChunkLength(int chunk) {
+                SplittableRandom random = new SplittableRandom(chunkSeeds[chunk]);
+                long length = 0;
+                for (long i = chunkStart(chunk); i < chunkEnd(chunk); i++)
+                        length += digits(valueAt(i, random)) + 1;
+                return length;
+        }
+
+        public void writeText(File file, int parallelism) throws IOException {
+                int chunks = chunkCount();
+                long[] offsets = new long[chunks + 1];
+                runChunks(parallelism, chunk -> {
+                        offsets[chunk + 1] = textChunkLength(chunk);
+                });
+                for (int c = 0; c < chunks; c++)
+                        offsets[c + 1] += offsets[c];
+
+                try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                        raf.setLength(0);
+                        raf.setLength(offsets[chunks]);
+                        FileChannel channel = raf.getChannel();
+                        runChunks(parallelism, chunk -> {
+                                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_WRITE, offsets[chunk],
+                                                offsets[chunk + 1] - offsets[chunk]);
+                                SplittableRandom random = new SplittableRandom(chunkSeeds[chunk]);
+                                byte[] buffer = new byte[WRITE_BUFFER];
+                                int used = 0;
+                                for (long i = chunkStart(chunk); i < chunkEnd(chunk); i++) {
+                                        if (used > WRITE_BUFFER - 12) {
+                                                region.put(buffer, 0, used);
+                                                used = 0;
+                                        }
+                                        int value = valueAt(i, random);
+                                        int end = used + digits(value);
+                                        for (int p = end - 1; p >= used; p--) {
+                                                buffer[p] = (byte) ('0' + value % 10);
+                                                value /= 10;
+                                        }
+                                        buffer[end] = '\n';
+                                        used = end + 1;
+                                }
+                                region.put(buffer, 0, used);
+                                region.force();
+                        });
+                }
+        }
+
+        public void writeBinary(File file, int parallelism) throws IOException {
+                long length = CardPackLoader.BINARY_HEADER_BYTES + 4 * cards;
+                try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                        raf.setLength(0);
+                        raf.setLength(length);
+                        raf.writeInt(CardPackLoader.BINARY_MAGIC);
+                        raf.writeLong(cards);
+                        FileChannel channel = raf.getChannel();
+                        runChunks(parallelism, chunk -> {
+                                long start = chunkStart(chunk);
+                                long end = chunkEnd(chunk);
+                                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_WRITE,
+                                                CardPackLoader.BINARY_HEADER_BYTES + 4 * start, 4 * (end - start));
+                                SplittableRandom random = new SplittableRandom(chunkSeeds[chunk]);
+                                for (long i = start; i < end; i++)
+                                        region.putInt(valueAt(i, random));
+                                region.force();
+                        });
+                }
+        }
+
+        private interface ChunkTask {
+                void run(int chunk) throws IOException;
+        }
+
+        private void runChunks(int parallelism, ChunkTask task) throws IOException {
+                int chunks = chunkCount();
+                ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, chunks)));
+                try {
+                        List<Future<?>> futures = new ArrayList<>();
+                        for (int c = 0; c < chunks; c++) {
+                                final int chunk = c;
+                                futures.add(pool.submit(() -> {
+                                        task.run(chunk);
+                                        return null;
+                                }));
+                        }
+                        for (Future<?> f : futures)
+                                f.get();
+                } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted while generating pack", e);
+                } catch (ExecutionException e) {
+                        Throwable cause = e.getCause();
+                        if (cause instanceof IOException)
+                                throw (IOException) cause;
+                        throw new IOException("Failed to generate pack: " + cause, cause);
+                } finally {
+                        pool.shutdownNow();
+                }
+        }
+}
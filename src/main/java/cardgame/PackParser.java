@@ -0,0 +1,109 @@
+package cardgame;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.IntConsumer;
+
+/*
+ Incremental byte-level parser for the text pack format (one integer per line).
+ Bytes can be fed in arbitrary pieces, so callers can stream a file or a chunk of it
+ without materialising lines or Card objects. Mirrors the rules of CardPackLoader:
+ lines are trimmed, blank lines skipped, and values must be non-negative ints.
+ */
+public class PackParser {
+        private final IntConsumer sink;
+        private byte[] line = new byte[32];
+        private int lineLength;
+        private long lineNumber;
+        private long cardCount;
+        private boolean pendingCarriageReturn;
+
+        public PackParser(IntConsumer sink) {
+                this.sink = sink;
+        }
+
+        public void feed(byte[] buffer, int offset, int length) throws IOException {
+                int end = offset + length;
+                for (int i = offset; i < end; i++) {
+                        byte b = buffer[i];
+                        if (pendingCarriageReturn) {
+                                pendingCarriageReturn = false;
+                                if (b == '\n')
+                                        continue;
+                        }
+                        if (b == '\n') {
+                                endLine();
+                        } else if (b == '\r') {
+                                endLine();
+                                pendingCarriageReturn = true;
+                        } else {
+                                if (lineLength == line.length) {
+                                        byte[] bigger = new byte[line.length * 2];
+                                        System.arraycopy(line, 0, bigger, 0, lineLength);
+                                        line = bigger;
+                                }
+                                line[lineLength++] = b;
+                        }
+                }
+        }
+
+        // Flushes a final line that has no terminator
+        public void finish() throws IOException {
+                if (lineLength > 0)
+                        endLine();
+        }
+
+        public long getCardCount() {
+                return cardCount;
+        }
+
+        public long getLineNumber() {
+                return lineNumber;
+        }
+
+        private void endLine() throws IOException {
+                lineNumber++;
+                int start = 0;
+                int end = lineLength;
+                lineLength = 0;
+                while (start < end && (line[start] & 0xFF) <= ' ')
+                        start++;
+                while (end > start && (line[end - 1] & 0xFF) <= ' ')
+                        end--;
+                if (start == end)
+                        return;
+
+                int i = start;
+                boolean negative = false;
+                if (line[i] == '-' || line[i] == '+') {
+                        negative = line[i] == '-';
+                        i++;
+                }
+                if (i == end)
+                        throw notAnInteger(start, end);
+
+                long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+                long value = 0;
+                for (; i < end; i++) {
+                        int digit = line[i] - '0';
+                        if (digit < 0 || digit > 9)
+                                throw notAnInteger(start, end);
+                        value = value * 10 + digit;
+                        if (value > limit)
+                                throw notAnInteger(start, end);
+                }
+
+                if (negative && value != 0) {
+                        throw new IOException("Invalid card value at line " + lineNumber +
+                                        ": " + (-value) + " (cannot be negative)");
+                }
+                cardCount++;
+                sink.accept((int) value);
+        }
+
+        private IOException notAnInteger(int start, int end) {
+                String text = new String(line, start, end - start, StandardCharsets.UTF_8);
+                return new IOException("Invalid card value at line " + lineNumber +
+                                ": '" + text + "' (must be an integer)");
+        }
+}
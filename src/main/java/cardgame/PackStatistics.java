@@ -0,0 +1,223 @@
+package cardgame;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+/*
+ Streaming statistics over a pack file, computed in a single pass without building a List<Card>.
+ The file is split into line-aligned byte ranges that are parsed in parallel, each into its own
+ primitive histogram, and the partial results are merged at the end. Memory is bounded by the
+ read buffers and the number of distinct values, not by the pack size.
+ Usage: java cardgame.PackStatistics <pack file> <number of players> [threads]
+ */
+public class PackStatistics {
+        static final int BUFFER_SIZE = 1 << 16;
+
+        public final int numberOfPlayers;
+        private final IntCountMap frequencies = new IntCountMap();
+        private long totalCards;
+        private int min = Integer.MAX_VALUE;
+        private int max = Integer.MIN_VALUE;
+
+        public PackStatistics(int numberOfPlayers) {
+                if (numberOfPlayers <= 0) {
+                        throw new IllegalArgumentException("Number of players must be positive");
+                }
+                this.numberOfPlayers = numberOfPlayers;
+        }
+
+        public static void main(String[] args) {
+                if (args.length < 2) {
+                        System.out.println("Usage: java cardgame.PackStatistics <pack file> <number of players> [threads]");
+                        return;
+                }
+                try {
+                        int threads = args.length > 2 ? Integer.parseInt(args[2])
+                                        : Runtime.getRuntime().availableProcessors();
+                        PackStatistics stats = compute(new File(args[0]), Integer.parseInt(args[1]), threads);
+                        PrintWriter out = new PrintWriter(new OutputStreamWriter(System.out));
+                        stats.writeReport(out);
+                        out.flush();
+                } catch (IOException | IllegalArgumentException e) {
+                        System.out.println("Error computing pack statistics: " + e.getMessage());
+                }
+        }
+
+        public static PackStatistics compute(File file, int numberOfPlayers) throws IOException {
+                return compute(file, numberOfPlayers, Runtime.getRuntime().availableProcessors());
+        }
+
+        public static PackStatistics compute(File file, int numberOfPlayers, int parallelism) throws IOException {
+                PackStatistics result = new PackStatistics(numberOfPlayers);
+                if (!file.exists()) {
+                        throw new FileNotFoundException("Pack file not found: " + file.getName());
+                }
+
+                try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                        long[] bounds = chunkBoundaries(channel, Math.max(1, parallelism));
+                        int chunks = bounds.length - 1;
+                        if (chunks == 1) {
+                                result.addAll(parseChunk(channel, 0, bounds[1], numberOfPlayers, false));
+                                return result;
+                        }
+
+                        ExecutorService pool = Executors.newFixedThreadPool(chunks);
+                        try {
+                                List<Future<PackStatistics>> parts = new ArrayList<>();
+                                for (int i = 0; i < chunks; i++) {
+                                        final long start = bounds[i];
+                                        final long end = bounds[i + 1];
+                                        parts.add(pool.submit(() -> parseChunk(channel, start, end, numberOfPlayers, true)));
+                                }
+                                for (Future<PackStatistics> part : parts)
+                                        result.addAll(part.get());
+                        } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                throw new IOException("Interrupted while computing pack statistics", e);
+                        } catch (ExecutionException e) {
+                                Throwable cause = e.getCause();
+                                if (cause instanceof IOException)
+                                        throw (IOException) cause;
+                                throw new IOException("Failed to compute pack statistics: " + cause, cause);
+                        } finally {
+                                pool.shutdownNow();
+                        }
+                }
+                return result;
+        }
+
+        // Splits the file into ranges that each start at the beginning of a line
+        static long[] chunkBoundaries(FileChannel channel, int parallelism) throws IOException {
+                long size = channel.size();
+                int chunks = (int) Math.max(1, Math.min(parallelism, size / BUFFER_SIZE));
+                long[] bounds = new long[chunks + 1];
+                bounds[chunks] = size;
+                ByteBuffer probe = ByteBuffer.allocate(256);
+                for (int i = 1; i < chunks; i++) {
+                        long pos = Math.max(bounds[i - 1], size / chunks * i);
+                        bounds[i] = nextLineStart(channel, pos, size, probe);
+                }
+                return bounds;
+        }
+
+        private static long nextLineStart(FileChannel channel, long pos, long size, ByteBuffer probe) throws IOException {
+                if (pos == 0)
+                        return 0;
+                long cursor = pos - 1;
+                while (cursor < size) {
+                        probe.clear();
+                        int read = channel.read(probe, cursor);
+                        if (read <= 0)
+                                break;
+                        for (int i = 0; i < read; i++)
+                                if (probe.get(i) == '\n')
+                                        return cursor + i + 1;
+                        cursor += read;
+                }
+                return size;
+        }
+
+        private static PackStatistics parseChunk(FileChannel channel, long start, long end, int numberOfPlayers,
+                        boolean describeChunk) throws IOException {
+                PackStatistics stats = new PackStatistics(numberOfPlayers);
+                PackParser parser = new PackParser(stats::accept);
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                long position = start;
+                try {
+                        while (position < end) {
+                                buffer.clear();
+                                buffer.limit((int) Math.min(BUFFER_SIZE, end - position));
+                                int read = channel.read(buffer, position);
+                                if (read < 0)
+                                        break;
+                                parser.feed(buffer.array(), 0, read);
+                                position += read;
+                        }
+                        parser.finish();
+                } catch (IOException e) {
+                        if (!describeChunk)
+                                throw e;
+                        throw new IOException("In chunk starting at byte " + start + ": " + e.getMessage(), e);
+                }
+                return stats;
+        }
+
+        public void accept(int value) {
+                frequencies.increment(value);
+                totalCards++;
+                if (value < min)
+                        min = value;
+                if (value > max)
+                        max = value;
+        }
+
+        public void addAll(PackStatistics other) {
+                frequencies.addAll(other.frequencies);
+                totalCards += other.totalCards;
+                min = Math.min(min, other.min);
+                max = Math.max(max, other.max);
+        }
+
+        public long getTotalCards() {
+                return totalCards;
+        }
+
+        public long getExpectedCards() {
+                return 8L * numberOfPlayers;
+        }
+
+        public boolean hasValidSize() {
+                return totalCards == getExpectedCards();
+        }
+
+        public int getMin() {
+                return totalCards == 0 ? -1 : min;
+        }
+
+        public int getMax() {
+                return totalCards == 0 ? -1 : max;
+        }
+
+        public int getUniqueValues() {
+                return frequencies.size();
+        }
+
+        public long getFrequency(int value) {
+                return frequencies.get(value);
+        }
+
+        // Player i prefers denomination i, so this is how many of its preferred cards exist in the pack
+        public long getPreferredCount(int seat) {
+                return frequencies.get(seat);
+        }
+
+        public int getSeatsWithFourPreferred() {
+                int seats = 0;
+                for (int value : frequencies.sortedKeys())
+                        if (value >= 1 && value <= numberOfPlayers && frequencies.get(value) >= 4)
+                                seats++;
+                return seats;
+        }
+
+        // Writes a key=value report that scripts can parse line by line
+        public void writeReport(PrintWriter out) {
+                int[] values = frequencies.sortedKeys();
+                out.println("players=" + numberOfPlayers);
+                out.println("cards=" + totalCards);
+                out.println("expectedCards=" + getExpectedCards());
+                out.println("validSize=" + hasValidSize());
+                out.println("min=" + getMin());
+                out.println("max=" + getMax());
+                out.println("uniqueValues=" + values.length);
+                out.println("seatsWithFourPreferred=" + getSeatsWithFourPreferred());
+                for (int value : values)
+                        out.println("value." + value + "=" + frequencies.get(value));
+                for (int value : values)
+                        if (value >= 1 && value <= numberOfPlayers)
+                                out.println("seat." + value + ".preferred=" + frequencies.get(value));
+        }
+}
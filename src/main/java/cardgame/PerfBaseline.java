@@ -0,0 +1,299 @@
+package cardgame;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+/*
+ Measurement, storage and comparison behind the performance suite (mvn -Pperf test).
+ A benchmark is timed as a series of samples, each the mean time per operation over a batch of
+ operations, after some warm-up samples that are thrown away. Baselines keep every sample in a
+ small versioned JSON file, so statistics can always be recomputed from the raw data. Timings
+ only compare on the same hardware and JDK, so each machine has its own baseline file, named by
+ machineKey().
+ A new run is compared with the baseline by Welch's t-based 95% confidence interval for the
+ difference of the means; it counts as a regression only when even the low end of that interval
+ is slower than the baseline mean by more than the threshold, so noise alone does not fail a build.
+ */
+public class PerfBaseline {
+        public static final int FORMAT_VERSION = 1;
+        static final double Z_975 = 1.959963984540054;
+
+        public interface Operation {
+                void run() throws Exception;
+        }
+
+        // Runs warmups + samples batches of opsPerSample operations and returns nanoseconds per operation for each sample
+        public static double[] measure(int warmups, int samples, int opsPerSample, Operation op) throws Exception {
+                double[] result = new double[samples];
+                for (int s = -warmups; s < samples; s++) {
+                        long start = System.nanoTime();
+                        for (int i = 0; i < opsPerSample; i++)
+                                op.run();
+                        long elapsed = System.nanoTime() - start;
+                        if (s >= 0)
+                                result[s] = (double) elapsed / opsPerSample;
+                }
+                return result;
+        }
+
+        public static class Stats {
+                public final int n;
+                public final double mean;
+                public final double stddev;
+
+                public Stats(double[] samples) {
+                        n = samples.length;
+                        double sum = 0;
+                        for (double v : samples)
+                                sum += v;
+                        mean = n == 0 ? 0 : sum / n;
+                        double squares = 0;
+                        for (double v : samples)
+                                squares += (v - mean) * (v - mean);
+                        stddev = n < 2 ? 0 : Math.sqrt(squares / (n - 1));
+                }
+
+                public double halfWidth() {
+                        return n < 2 ? 0 : tQuantile975(n - 1) * stddev / Math.sqrt(n);
+                }
+
+                @Override
+                public String toString() {
+                        return String.format(Locale.ROOT, "%.1f +/- %.1f ns/op (n=%d)", mean, halfWidth(), n);
+                }
+        }
+
+        public static class Comparison {
+                public final String name;
+                public final Stats baseline;
+                public final Stats current;
+                public final double low;
+                public final double high;
+                public final boolean regressed;
+
+                Comparison(String name, Stats baseline, Stats current, double low, double high, boolean regressed) {
+                        this.name = name;
+                        this.baseline = baseline;
+                        this.current = current;
+                        this.low = low;
+                        this.high = high;
+                        this.regressed = regressed;
+                }
+
+                @Override
+                public String toString() {
+                        return String.format(Locale.ROOT, "%s: %s vs baseline %s, change %+.1f%% (95%% CI %+.1f%% .. %+.1f%%)%s", name,
+                                        current, baseline, 100 * (current.mean - baseline.mean) / baseline.mean,
+                                        100 * low / baseline.mean, 100 * high / baseline.mean, regressed ? " REGRESSION" : "");
+                }
+        }
+
+        // threshold is the tolerated slowdown as a fraction of the baseline mean, e.g. 0.10 for 10%
+        public static Comparison compare(String name, double[] baseline, double[] current, double threshold) {
+                Stats a = new Stats(baseline);
+                Stats b = new Stats(current);
+                double va = a.n == 0 ? 0 : a.stddev * a.stddev / a.n;
+                double vb = b.n == 0 ? 0 : b.stddev * b.stddev / b.n;
+                double se = Math.sqrt(va + vb);
+                double df = welchDegreesOfFreedom(va, a.n, vb, b.n);
+                double diff = b.mean - a.mean;
+                double half = se == 0 ? 0 : tQuantile975(df) * se;
+                double low = diff - half;
+                return new Comparison(name, a, b, low, diff + half, low > threshold * a.mean);
+        }
+
+        static double welchDegreesOfFreedom(double va, int na, double vb, int nb) {
+                double denominator = (na > 1 ? va * va / (na - 1) : 0) + (nb > 1 ? vb * vb / (nb - 1) : 0);
+                if (denominator == 0)
+                        return Math.max(1, na + nb - 2);
+                return (va + vb) * (va + vb) / denominator;
+        }
+
+        // Two-sided 95% quantile of Student's t, by the Cornish-Fisher expansion around the normal quantile
+        static double tQuantile975(double df) {
+                if (df < 1)
+                        df = 1;
+                double z = Z_975;
+                double z3 = z * z * z, z5 = z3 * z * z, z7 = z5 * z * z, z9 = z7 * z * z;
+                return z + (z3 + z) / (4 * df) + (5 * z5 + 16 * z3 + 3 * z) / (96 * df * df)
+                                + (3 * z7 + 19 * z5 + 17 * z3 - 15 * z) / (384 * df * df * df)
+                                + (79 * z9 + 776 * z7 + 1482 * z5 - 1920 * z3 - 945 * z) / (92160 * df * df * df * df);
+        }
+
+        // ---- baseline file ----
+
+        // Operating system, architecture, JDK feature release and CPU count, e.g. linux-amd64-jdk17-8cpu
+        public static String machineKey() {
+                String spec = System.getProperty("java.specification.version", "unknown");
+                String jdk = spec.startsWith("1.") ? spec.substring(2) : spec;
+                String key = System.getProperty("os.name", "unknown") + "-" + System.getProperty("os.arch", "unknown") + "-jdk" + jdk
+                                + "-" + Runtime.getRuntime().availableProcessors() + "cpu";
+                return key.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9.]+", "-");
+        }
+
+        public static File baselineFile(File directory, String machineKey) {
+                return new File(directory, "baseline-" + machineKey + ".json");
+        }
+
+        public static void write(File file, Map<String, double[]> results) throws IOException {
+                StringBuilder sb = new StringBuilder("{\n  \"version\": ").append(FORMAT_VERSION).append(",\n");
+                sb.append("  \"machine\": \"").append(machineKey()).append("\",\n");
+                sb.append("  \"java\": \"").append(System.getProperty("java.version")).append("\",\n");
+                sb.append("  \"benchmarks\": {");
+                String separator = "\n";
+                for (Map.Entry<String, double[]> e : results.entrySet()) {
+                        sb.append(separator).append("    \"").append(e.getKey()).append("\": {\"unit\": \"ns/op\", \"samples\": [");
+                        double[] samples = e.getValue();
+                        for (int i = 0; i < samples.length; i++)
+                                sb.append(i == 0 ? "" : ", ").append(String.format(Locale.ROOT, "%.3f", samples[i]));
+                        sb.append("]}");
+                        separator = ",\n";
+                }
+                sb.append("\n  }\n}\n");
+                File parent = file.getAbsoluteFile().getParentFile();
+                if (parent != null)
+                        parent.mkdirs();
+                Files.write(file.toPath(), sb.toString().getBytes(StandardCharsets.US_ASCII));
+        }
+
+        @SuppressWarnings("unchecked")
+        public static Map<String, double[]> read(File file) throws IOException {
+                String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+                Object root;
+                try {
+                        JsonReader reader = new JsonReader(text);
+                        root = reader.value();
+                        reader.end();
+                } catch (IllegalArgumentException e) {
+                        throw new IOException("Malformed baseline " + file.getName() + ": " + e.getMessage());
+                }
+                if (!(root instanceof Map))
+                        throw new IOException("Malformed baseline " + file.getName() + ": expected an object");
+                Map<String, Object> top = (Map<String, Object>) root;
+                Object version = top.get("version");
+                if (!(version instanceof Double) || ((Double) version).intValue() != FORMAT_VERSION)
+                        throw new IOException("Unsupported baseline version " + version + " in " + file.getName());
+                Map<String, double[]> results = new LinkedHashMap<>();
+                Object benchmarks = top.get("benchmarks");
+                if (!(benchmarks instanceof Map))
+                        throw new IOException("Malformed baseline " + file.getName() + ": no benchmarks");
+                for (Map.Entry<String, Object> e : ((Map<String, Object>) benchmarks).entrySet()) {
+                        Object samples = e.getValue() instanceof Map ? ((Map<String, Object>) e.getValue()).get("samples") : null;
+                        if (!(samples instanceof List))
+                                throw new IOException("Malformed baseline " + file.getName() + ": no samples for " + e.getKey());
+                        List<Object> list = (List<Object>) samples;
+                        double[] values = new double[list.size()];
+                        for (int i = 0; i < values.length; i++)
+                                values[i] = (Double) list.get(i);
+                        results.put(e.getKey(), values);
+                }
+                return results;
+        }
+
+        // Just enough JSON for baseline files: objects, arrays, strings without escapes other than \" and \\, and numbers
+        static final class JsonReader {
+                private final String text;
+                private int at;
+
+                JsonReader(String text) {
+                        this.text = text;
+                }
+
+                Object value() {
+                        skipSpace();
+                        if (at >= text.length())
+                                throw new IllegalArgumentException("unexpected end");
+                        char c = text.charAt(at);
+                        if (c == '{') {
+                                at++;
+                                Map<String, Object> map = new LinkedHashMap<>();
+                                if (peek() == '}') {
+                                        at++;
+                                        return map;
+                                }
+                                do {
+                                        skipSpace();
+                                        String key = string();
+                                        expect(':');
+                                        map.put(key, value());
+                                } while (comma('}'));
+                                return map;
+                        }
+                        if (c == '[') {
+                                at++;
+                                List<Object> list = new ArrayList<>();
+                                if (peek() == ']') {
+                                        at++;
+                                        return list;
+                                }
+                                do {
+                                        list.add(value());
+                                } while (comma(']'));
+                                return list;
+                        }
+                        if (c == '"')
+                                return string();
+                        int start = at;
+                        while (at < text.length() && "+-.0123456789eE".indexOf(text.charAt(at)) >= 0)
+                                at++;
+                        try {
+                                return Double.valueOf(text.substring(start, at));
+                        } catch (NumberFormatException e) {
+                                throw new IllegalArgumentException("unexpected '" + c + "' at offset " + start);
+                        }
+                }
+
+                void end() {
+                        skipSpace();
+                        if (at != text.length())
+                                throw new IllegalArgumentException("trailing text at offset " + at);
+                }
+
+                private String string() {
+                        if (at >= text.length() || text.charAt(at) != '"')
+                                throw new IllegalArgumentException("expected a string at offset " + at);
+                        StringBuilder sb = new StringBuilder();
+                        for (at++; at < text.length(); at++) {
+                                char c = text.charAt(at);
+                                if (c == '"') {
+                                        at++;
+                                        return sb.toString();
+                                }
+                                if (c == '\\' && at + 1 < text.length())
+                                        c = text.charAt(++at);
+                                sb.append(c);
+                        }
+                        throw new IllegalArgumentException("unterminated string");
+                }
+
+                private boolean comma(char close) {
+                        char c = peek();
+                        at++;
+                        if (c == ',')
+                                return true;
+                        if (c == close)
+                                return false;
+                        throw new IllegalArgumentException("expected ',' or '" + close + "' at offset " + (at - 1));
+                }
+
+                private void expect(char c) {
+                        if (peek() != c)
+                                throw new IllegalArgumentException("expected '" + c + "' at offset " + at);
+                        at++;
+                }
+
+                private char peek() {
+                        skipSpace();
+                        if (at >= text.length())
+                                throw new IllegalArgumentException("unexpected end");
+                        return text.charAt(at);
+                }
+
+                private void skipSpace() {
+                        while (at < text.length() && Character.isWhitespace(text.charAt(at)))
+                                at++;
+                }
+        }
+}
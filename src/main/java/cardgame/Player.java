@@ -21,13 +21,44 @@ public class Player extends Thread {
         public final CardGame gameController;
         public PrintWriter log;
 
+        // Written only by this player's thread, read by metrics reporters
+        public volatile long lockAcquisitions;
+        public volatile long lockFailures;
+        public volatile long lockHolds;
+        public volatile long cardsMoved;
+        public volatile long optimisticCommits;
+        public volatile long optimisticConflicts;
+        // End-to-end latency of every turn attempt, recorded only once a histogram is attached
+        public volatile LatencyHistogram turnLatencyHistogram;
+        // Set once the final log lines are written
+        public volatile boolean exited;
+        public volatile long exitNanos;
+        // Filled in only in --accounting mode, by whichever thread is running this player's turns
+        public volatile long allocatedBytes;
+        public volatile long cpuNanos;
+        // SplitMix64 state behind every random discard; saved in checkpoints so a resumed game continues the same stream
+        public long rngState;
+        // A player restored from a checkpoint has already logged its initial hand
+        public boolean resumed;
+        public volatile boolean initialHandLogged;
+        // Byte count of this player's log file, when it has one
+        public CardGame.LogCounter logCounter;
+
+        static final int MAX_OPTIMISTIC_RETRIES = 16;
+
         public Player(int id, CardDeck left, CardDeck right, CardGame controller) throws IOException {
+                this(id, left, right, controller, controller.openPlayerLog(id));
+                this.logCounter = controller.logCounters.get(id);
+        }
+
+        public Player(int id, CardDeck left, CardDeck right, CardGame controller, PrintWriter log) {
                 this.id = id;
                 this.preferredValue = id;
                 this.leftDeck = left;
                 this.rightDeck = right;
                 this.gameController = controller;
-                this.log = new PrintWriter(new BufferedWriter(new FileWriter("player" + id + "_output.txt")), true);
+                this.log = log;
+                this.rngState = System.nanoTime() ^ (id * 0x9E3779B97F4A7C15L);
 
         }
 
@@ -60,7 +91,8 @@ public class Player extends Thread {
         @Override
         public void run() {
                 try {
-                        log.println("player " + id + " initial hand is " + handToString());
+                        ThreadAccounting accounting = gameController.isAccounting() ? ThreadAccounting.sample() : null;
+                        logInitialHand();
 
                         if (hasWinningHand()) {
                                 gameController.declareWinner(id);
@@ -70,7 +102,7 @@ public class Player extends Thread {
 
                             while (!gameController.isGameOver()) {
                                 if (gameController.isGameOver()) break;
-                                attemptAtomicTurn();
+                                attemptTurn();
 
     
     
@@ -78,39 +110,96 @@ public class Player extends Thread {
                                 gameController.declareWinner(id);
                             }
                             
-                            Thread.sleep(10);//performance
+                            int delay = gameController.getTurnDelayMillis();
+                            if (delay > 0) {
+                                try {
+                                        Thread.sleep(delay);//performance
+                                } catch (InterruptedException e) {
+                                        // woken early by the game-over broadcast; the loop check ends the game
+                                }
+                            }
                         }
-                        if (gameController.getWinnerId() == id)
-                                log.println("player " + id + " wins");
-                        else
-                                log.println("player " + gameController.getWinnerId() + " has informed player " + id
-                                                + " that player " + gameController.getWinnerId() + " has won");
-
-                        log.println("player " + id + " exits");
-                        log.println("player " + id + " final hand: " + handToString());
-                        log.close();
+                        // A broadcast interrupt must not leak into the final log writes
+                        Thread.interrupted();
+                        if (accounting != null)
+                                accounting.chargeTo(this);
+                        logGameEnd();
 
                 } catch (Exception e) {
                         e.printStackTrace();
+                } finally {
+                        // A player that fails before logGameEnd still counts as exited, so quiesce time stays measurable
+                        if (!exited)
+                                recordExit();
                 }
         }
+
+        public void logInitialHand() {
+                if (!resumed)
+                        log.println("player " + id + " initial hand is " + handToString());
+                initialHandLogged = true;
+        }
+
+        //Writes the closing lines of the log once the game is over and closes it
+        public void logGameEnd() {
+                if (gameController.getWinnerId() == id)
+                        log.println("player " + id + " wins");
+                else if (gameController.getWinnerId() < 0 && gameController.getAbortReason() != null)
+                        log.println("game aborted: " + gameController.getAbortReason());
+                else
+                        log.println("player " + gameController.getWinnerId() + " has informed player " + id
+                                        + " that player " + gameController.getWinnerId() + " has won");
+
+                log.println("player " + id + " exits");
+                log.println("player " + id + " final hand: " + handToString());
+                log.close();
+                recordExit();
+        }
+
+        private void recordExit() {
+                exitNanos = System.nanoTime();
+                exited = true;
+                gameController.events.onPlayerExit(this);
+        }
+        public boolean attemptTurn() {
+                if (gameController.getTurnMode() == TurnMode.OPTIMISTIC)
+                        return attemptOptimisticTurn();
+                return attemptAtomicTurn();
+        }
+
         //Tries to lock both left and right deck using timeouts and if successful calls performturnAtomic which performs draw-discard action  
         public boolean attemptAtomicTurn() {
+                LatencyHistogram histogram = turnLatencyHistogram;
+                if (histogram == null)
+                        return attemptAtomicTurnUntimed();
+                long start = System.nanoTime();
+                try {
+                        return attemptAtomicTurnUntimed();
+                } finally {
+                        histogram.record(System.nanoTime() - start);
+                }
+        }
+
+        private boolean attemptAtomicTurnUntimed() {
                 boolean lockedLeft = false;
                 boolean lockedRight = false;
 
                 try {
                     lockedLeft = leftDeck.tryLock(100, TimeUnit.MILLISECONDS);
                     if (!lockedLeft) {
+                        lockFailed(leftDeck);
                         return false; 
                     }
+                    lockAcquisitions++;
         
                             lockedRight = rightDeck.tryLock(100, TimeUnit.MILLISECONDS);
                     if (!lockedRight) {
+                        lockFailed(rightDeck);
                         return false; 
                     }
+                    lockAcquisitions++;
 
-                   return performTurnAtomic();
+                   return performTurnBatch();
 
                 } catch (InterruptedException e) {
                         Thread.currentThread().interrupt();
@@ -126,6 +215,63 @@ public class Player extends Thread {
                 }
         }
 
+        //Non-blocking variant of attemptAtomicTurn for the task engine: never waits for either lock
+        public boolean attemptTurnNow() {
+                LatencyHistogram histogram = turnLatencyHistogram;
+                if (histogram == null)
+                        return attemptTurnNowUntimed();
+                long start = System.nanoTime();
+                try {
+                        return attemptTurnNowUntimed();
+                } finally {
+                        histogram.record(System.nanoTime() - start);
+                }
+        }
+
+        private boolean attemptTurnNowUntimed() {
+                if (!leftDeck.tryLock()) {
+                        lockFailed(leftDeck);
+                        return false;
+                }
+                try {
+                        lockAcquisitions++;
+                        if (!rightDeck.tryLock()) {
+                                lockFailed(rightDeck);
+                                return false;
+                        }
+                        try {
+                                lockAcquisitions++;
+                                return performTurnBatch();
+                        } finally {
+                                rightDeck.unlock();
+                        }
+                } finally {
+                        leftDeck.unlock();
+                }
+        }
+
+        private void lockFailed(CardDeck deck) {
+                lockFailures++;
+                gameController.events.onLockFailure(this, deck);
+        }
+
+        //Runs up to the game's turn quantum of draw-discard cycles while both deck locks are held,
+        //stopping early on a win or an empty left deck
+        public boolean performTurnBatch() {
+                int quantum = Math.max(1, gameController.getTurnQuantum());
+                int moved = 0;
+                while (moved < quantum && performTurnAtomic()) {
+                        moved++;
+                        if (hasWinningHand())
+                                break;
+                }
+                if (moved == 0)
+                        return false;
+                lockHolds++;
+                cardsMoved += moved;
+                return true;
+        }
+
         //method for atomic draw discard action and outputting to the according player txt file
         public boolean performTurnAtomic() {
                 if (gameController.isGameOver()) {
@@ -148,13 +294,7 @@ public class Player extends Thread {
                         hand.remove(discarded);
                         rightDeck.addCard(discarded);
 
-                        log.println("player " + id + " draws a " + drawn.getDenomination() + " from deck "
-                                        + leftDeck.getId());
-                        log.println("player " + id + " discards a " + discarded.getDenomination() + " to deck "
-                                        + rightDeck.getId());
-                        log.println("player " + id + " current hand is " + handToString());
-                        log.flush();
-
+                        logTurn(drawn, discarded);
                         return true; 
 
                 } catch (Exception e) {
@@ -165,6 +305,120 @@ public class Player extends Thread {
                 }
         }
 
+        //Draw-discard for an engine that moves the cards between decks itself: takes the drawn card into the
+        //hand and returns the discard, which the caller must put on the right deck
+        public Card exchange(Card drawn) {
+                hand.add(drawn);
+                Card discarded = selectDiscard();
+                hand.remove(discarded);
+                cardsMoved++;
+                logTurn(drawn, discarded);
+                return discarded;
+        }
+
+        //Optimistic turn: reads both deck versions, picks the discard without touching either deck, then
+        //commits by CAS-claiming both decks. A failed claim means a neighbour committed first, so retry
+        public boolean attemptOptimisticTurn() {
+                LatencyHistogram histogram = turnLatencyHistogram;
+                if (histogram == null)
+                        return attemptOptimisticTurnUntimed();
+                long start = System.nanoTime();
+                try {
+                        return attemptOptimisticTurnUntimed();
+                } finally {
+                        histogram.record(System.nanoTime() - start);
+                }
+        }
+
+        private boolean attemptOptimisticTurnUntimed() {
+                for (int attempt = 0; attempt < MAX_OPTIMISTIC_RETRIES; attempt++) {
+                        if (gameController.isGameOver())
+                                return false;
+                        long leftVersion = leftDeck.readVersion();
+                        long rightVersion = rightDeck.readVersion();
+                        if (((leftVersion | rightVersion) & 1) == 0) {
+                                Card drawn = leftDeck.peek();
+                                if (drawn == null)
+                                        return false;
+                                Card discarded = chooseDiscard(drawn);
+                                if (commitOptimisticTurn(leftVersion, rightVersion, discarded)) {
+                                        optimisticCommits++;
+                                        cardsMoved++;
+                                        return true;
+                                }
+                                if (gameController.isGameOver())
+                                        return false;
+                        }
+                        optimisticConflicts++;
+                        Thread.yield();
+                }
+                return false;
+        }
+
+        private boolean commitOptimisticTurn(long leftVersion, long rightVersion, Card discarded) {
+                if (!leftDeck.tryClaim(leftVersion))
+                        return false;
+                boolean sameDeck = leftDeck == rightDeck;
+                if (!sameDeck && !rightDeck.tryClaim(rightVersion)) {
+                        leftDeck.release(leftVersion);
+                        return false;
+                }
+                if (gameController.isGameOver()) {
+                        if (!sameDeck)
+                                rightDeck.release(rightVersion);
+                        leftDeck.release(leftVersion);
+                        return false;
+                }
+                try {
+                        // The unchanged version guarantees this is the card that was peeked
+                        Card drawn = leftDeck.draw();
+                        hand.add(drawn);
+                        hand.remove(discarded);
+                        rightDeck.addCard(discarded);
+                        logTurn(drawn, discarded);
+                        return true;
+                } finally {
+                        if (!sameDeck)
+                                rightDeck.publish();
+                        leftDeck.publish();
+                }
+        }
+
+        private void logTurn(Card drawn, Card discarded) {
+                log.println("player " + id + " draws a " + drawn.getDenomination() + " from deck "
+                                + leftDeck.getId());
+                log.println("player " + id + " discards a " + discarded.getDenomination() + " to deck "
+                                + rightDeck.getId());
+                log.println("player " + id + " current hand is " + handToString());
+                log.flush();
+                gameController.events.onTurn(this, drawn.getDenomination(), discarded.getDenomination(),
+                                leftDeck.getId(), rightDeck.getId());
+        }
+
+        //Same policy as selectDiscard, applied to the hand plus a card that has not been drawn yet
+        public Card chooseDiscard(Card drawn) {
+                List<Card> nonPreferred = new ArrayList<>();
+                for (Card c : hand)
+                        if (c.getDenomination() != preferredValue)
+                                nonPreferred.add(c);
+                if (drawn.getDenomination() != preferredValue)
+                        nonPreferred.add(drawn);
+
+                if (nonPreferred.isEmpty())
+                        return drawn;
+
+                return nonPreferred.get(nextRandom(nonPreferred.size()));
+        }
+
+        // Uniform int in [0, bound) from the player's own SplitMix64 stream
+        int nextRandom(int bound) {
+                long z = (rngState += 0x9E3779B97F4A7C15L);
+                z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+                z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+                z ^= z >>> 31;
+                return (int) (((z >>> 32) * bound) >>> 32);
+        }
+
         public Card selectDiscard() {
                 List<Card> nonPreferred = new ArrayList<>();
                 for (Card c : hand)
@@ -172,9 +426,9 @@ public class Player extends Thread {
                                 nonPreferred.add(c);
 
                 if (nonPreferred.isEmpty()) 
-                        return hand.get(new Random().nextInt(hand.size()));
+                        return hand.get(nextRandom(hand.size()));
 
-                return nonPreferred.get(new Random().nextInt(nonPreferred.size()));
+                return nonPreferred.get(nextRandom(nonPreferred.size()));
         }
 
 }
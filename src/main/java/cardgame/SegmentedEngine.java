@@ -0,0 +1,126 @@
+package cardgame;
+
+import java.util.List;
+
+/*
+ Runs the ring as contiguous segments, one worker thread per segment.
+ Deck i is only shared by players i-1 and i, so every deck whose two players fall in the same
+ segment is touched by that segment's thread alone: its players take turns round-robin and use
+ the deck's ring directly, with no lock, CAS or monitor. Only the first deck of each segment,
+ fed by the last player of the previous segment, crosses threads, and for the game those cards
+ travel through a lock-free HandoffQueue. The queues are filled from the decks before play and
+ emptied back into them once every worker has stopped, so outputs are written as usual.
+ While the game runs the boundary decks look empty to anything inspecting them, so this engine
+ cannot be combined with invariant checks or checkpoints. Like the task engine it ignores the
+ turn delay; it honours the turn quantum.
+ */
+public class SegmentedEngine {
+        private final CardGame game;
+        private final Player[] players;
+        private final int[] segmentStart;
+        private final HandoffQueue[] boundary;
+        private final Thread[] workers;
+
+        public SegmentedEngine(CardGame game, int workerCount) {
+                this.game = game;
+                List<Player> ring = game.players;
+                int n = ring.size();
+                this.players = ring.toArray(new Player[0]);
+                int segments = Math.max(1, Math.min(workerCount, n));
+                this.segmentStart = new int[segments + 1];
+                for (int s = 0; s <= segments; s++)
+                        segmentStart[s] = (int) ((long) n * s / segments);
+                // With one segment the whole ring, including the deck that closes it, belongs to one thread
+                this.boundary = new HandoffQueue[n];
+                if (segments > 1)
+                        for (int s = 0; s < segments; s++)
+                                boundary[segmentStart[s]] = new HandoffQueue();
+                this.workers = new Thread[segments];
+                for (int s = 0; s < segments; s++) {
+                        final int segment = s;
+                        workers[s] = new Thread(() -> runSegment(segment), "segment-" + s);
+                }
+        }
+
+        public int getSegments() {
+                return workers.length;
+        }
+
+        public void run() throws InterruptedException {
+                for (int i = 0; i < players.length; i++)
+                        if (boundary[i] != null)
+                                for (Card c; (c = players[i].leftDeck.draw()) != null;)
+                                        boundary[i].offer(c);
+                game.startNanos = System.nanoTime();
+                for (Thread t : workers)
+                        t.start();
+                for (Thread t : workers)
+                        t.join();
+                game.endNanos = System.nanoTime();
+                for (int i = 0; i < players.length; i++)
+                        if (boundary[i] != null)
+                                for (Card c; (c = boundary[i].poll()) != null;)
+                                        players[i].leftDeck.addCard(c);
+        }
+
+        private void runSegment(int segment) {
+                int from = segmentStart[segment];
+                int to = segmentStart[segment + 1];
+                ThreadAccounting accounting = game.isAccounting() ? ThreadAccounting.sample() : null;
+                for (int i = from; i < to; i++)
+                        players[i].logInitialHand();
+                // The queue behind the last player is the next segment's first deck
+                HandoffQueue out = boundary[to % players.length];
+                int quantum = Math.max(1, game.getTurnQuantum());
+                try {
+                        while (!game.isGameOver()) {
+                                boolean movedAny = false;
+                                for (int i = from; i < to && !game.isGameOver(); i++) {
+                                        Player p = players[i];
+                                        HandoffQueue in = boundary[i];
+                                        for (int k = 0; k < quantum; k++) {
+                                                Card drawn = in != null ? in.poll() : p.leftDeck.cards.poll();
+                                                if (drawn == null)
+                                                        break;
+                                                Card discarded = p.exchange(drawn);
+                                                if (i == to - 1 && out != null)
+                                                        out.offer(discarded);
+                                                else
+                                                        p.rightDeck.cards.add(discarded);
+                                                movedAny = true;
+                                                if (p.hasWinningHand()) {
+                                                        game.declareWinner(p.id);
+                                                        break;
+                                                }
+                                        }
+                                }
+                                // Every left deck in the segment is empty: wait for the previous segment to hand cards over
+                                if (!movedAny)
+                                        Thread.yield();
+                        }
+                } catch (RuntimeException e) {
+                        e.printStackTrace();
+                        game.abortGame("segment " + segment + " failed: " + e);
+                }
+                if (accounting != null)
+                        chargeSegment(accounting, from, to);
+                for (int i = from; i < to; i++)
+                        players[i].logGameEnd();
+        }
+
+        // A worker cannot tell its players' work apart, so its totals are shared out by turns played
+        private void chargeSegment(ThreadAccounting accounting, int from, int to) {
+                ThreadAccounting now = ThreadAccounting.sample();
+                long bytes = Math.max(0, now.allocatedBytes - accounting.allocatedBytes);
+                long cpu = Math.max(0, now.cpuNanos - accounting.cpuNanos);
+                long turns = 0;
+                for (int i = from; i < to; i++)
+                        turns += players[i].cardsMoved;
+                for (int i = from; i < to; i++) {
+                        Player p = players[i];
+                        double share = turns > 0 ? (double) p.cardsMoved / turns : 1.0 / (to - from);
+                        p.allocatedBytes += (long) (bytes * share);
+                        p.cpuNanos += (long) (cpu * share);
+                }
+        }
+}
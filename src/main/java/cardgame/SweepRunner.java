@@ -0,0 +1,332 @@
+package cardgame;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+
+/*
+ Runs a grid of headless games and appends one CSV row per grid point, so capacity sweeps no
+ longer need a manual run of CardGame.main per point.
+ The grid file holds "name = value, value, ..." lines ('#' starts a comment). Axes are players,
+ distribution, engine, turn-mode, quantum, workers and turn-delay; games, seed and time-limit
+ (milliseconds per game, after which it is aborted) take a single value. Every combination of
+ the axes is a point, and each point plays its games one after another on generated packs
+ (seed, seed + 1, ...) with logs going to a scratch directory that is removed afterwards.
+ Points run one at a time so each is measured without the others competing for the CPUs;
+ --parallel=n runs n at once, which is only fit for smoke runs of a grid. games_per_sec and the
+ turn percentiles cover the games that finished: aborted games are only counted in the aborted
+ column, and the percentiles are left empty when none finished.
+ A row is appended and flushed as soon as its point finishes, and points already in the results
+ file are skipped, so an interrupted sweep resumes where it stopped; a row cut short by the
+ interruption is dropped and its point is run again.
+ Usage: java cardgame.SweepRunner <grid file> <results csv> [--parallel=n]
+ */
+public class SweepRunner {
+        public static final String HEADER = "players,distribution,engine,turn_mode,quantum,workers,turn_delay_ms,games,seed,"
+                        + "aborted,wall_ms,games_per_sec,p50_turns,p99_turns,alloc_bytes_per_turn";
+        static final int KEY_COLUMNS = 9;
+        static final int COLUMNS = 15;
+
+        public final List<Point> points = new ArrayList<>();
+        public final File results;
+        public final int parallel;
+        public int games = 10;
+        public long seed = 1;
+        public int timeLimitMillis = 10000;
+        private final Set<String> completed = new HashSet<>();
+        private Writer out;
+        private boolean accounting;
+
+        public static class Point {
+                public final int players;
+                public final PackGenerator.Distribution distribution;
+                public final EngineMode engine;
+                public final TurnMode turnMode;
+                public final int quantum;
+                public final int workers;
+                public final int turnDelayMillis;
+
+                public Point(int players, PackGenerator.Distribution distribution, EngineMode engine, TurnMode turnMode,
+                                int quantum, int workers, int turnDelayMillis) {
+                        this.players = players;
+                        this.distribution = distribution;
+                        this.engine = engine;
+                        this.turnMode = turnMode;
+                        this.quantum = quantum;
+                        this.workers = workers;
+                        this.turnDelayMillis = turnDelayMillis;
+                }
+        }
+
+        public SweepRunner(File grid, File results, int parallel) throws IOException {
+                this.results = results;
+                this.parallel = Math.max(1, parallel);
+                parseGrid(Files.readAllLines(grid.toPath(), StandardCharsets.UTF_8));
+        }
+
+        public static void main(String[] args) {
+                if (args.length < 2) {
+                        System.out.println("Usage: java cardgame.SweepRunner <grid file> <results csv> [--parallel=n]");
+                        return;
+                }
+                try {
+                        int parallel = 1;
+                        for (int i = 2; i < args.length; i++) {
+                                if (args[i].startsWith("--parallel="))
+                                        parallel = Integer.parseInt(args[i].substring("--parallel=".length()));
+                                else
+                                        throw new IllegalArgumentException("Unknown option: " + args[i]);
+                        }
+                        SweepRunner sweep = new SweepRunner(new File(args[0]), new File(args[1]), parallel);
+                        int ran = sweep.run();
+                        System.out.println("Sweep finished: " + ran + " points run, results in " + args[1]);
+                } catch (IOException | IllegalArgumentException e) {
+                        System.out.println("Sweep failed: " + e.getMessage());
+                } catch (InterruptedException e) {
+                        System.out.println("Sweep interrupted.");
+                }
+        }
+
+        private void parseGrid(List<String> lines) {
+                Map<String, List<String>> axes = new LinkedHashMap<>();
+                for (String axis : new String[] { "players", "distribution", "engine", "turn-mode", "quantum", "workers", "turn-delay" })
+                        axes.put(axis, null);
+                for (int i = 0; i < lines.size(); i++) {
+                        String line = lines.get(i);
+                        int hash = line.indexOf('#');
+                        if (hash >= 0)
+                                line = line.substring(0, hash);
+                        line = line.trim();
+                        if (line.isEmpty())
+                                continue;
+                        int eq = line.indexOf('=');
+                        if (eq < 0)
+                                throw new IllegalArgumentException("Line " + (i + 1) + " of grid: expected name = values");
+                        String name = line.substring(0, eq).trim();
+                        List<String> values = new ArrayList<>();
+                        for (String v : line.substring(eq + 1).split(","))
+                                if (!v.trim().isEmpty())
+                                        values.add(v.trim());
+                        if (values.isEmpty())
+                                throw new IllegalArgumentException("Line " + (i + 1) + " of grid: no values for " + name);
+                        try {
+                                if (axes.containsKey(name)) {
+                                        axes.put(name, values);
+                                        continue;
+                                }
+                                if (values.size() != 1)
+                                        throw new IllegalArgumentException(name + " takes a single value");
+                                switch (name) {
+                                case "games":
+                                        games = positive(values.get(0));
+                                        break;
+                                case "seed":
+                                        seed = Long.parseLong(values.get(0));
+                                        break;
+                                case "time-limit":
+                                        timeLimitMillis = positive(values.get(0));
+                                        break;
+                                default:
+                                        throw new IllegalArgumentException("unknown setting " + name);
+                                }
+                        } catch (IllegalArgumentException e) {
+                                throw new IllegalArgumentException("Line " + (i + 1) + " of grid: " + e.getMessage());
+                        }
+                }
+                if (axes.get("players") == null)
+                        throw new IllegalArgumentException("Grid must list players");
+                for (String n : axes.get("players"))
+                        for (String d : orDefault(axes.get("distribution"), "uniform"))
+                                for (String e : orDefault(axes.get("engine"), "threads"))
+                                        for (String m : orDefault(axes.get("turn-mode"), "locking"))
+                                                for (String q : orDefault(axes.get("quantum"), "1"))
+                                                        for (String w : orDefault(axes.get("workers"), String.valueOf(Runtime.getRuntime().availableProcessors())))
+                                                                for (String t : orDefault(axes.get("turn-delay"), "0"))
+                                                                        points.add(new Point(positive(n), PackGenerator.Distribution.parse(d),
+                                                                                        EngineMode.parse(e), TurnMode.parse(m), positive(q), positive(w),
+                                                                                        nonNegative(t)));
+        }
+
+        private static List<String> orDefault(List<String> values, String value) {
+                return values == null ? Collections.singletonList(value) : values;
+        }
+
+        private static int positive(String value) {
+                int parsed = nonNegative(value);
+                if (parsed == 0)
+                        throw new IllegalArgumentException("Invalid value " + value + ": expected a positive integer");
+                return parsed;
+        }
+
+        private static int nonNegative(String value) {
+                try {
+                        int parsed = Integer.parseInt(value);
+                        if (parsed >= 0)
+                                return parsed;
+                } catch (NumberFormatException e) {
+                        // fall through to the error below
+                }
+                throw new IllegalArgumentException("Invalid value " + value + ": expected a non-negative integer");
+        }
+
+        public String key(Point p) {
+                return p.players + "," + p.distribution.name().toLowerCase() + "," + p.engine.name().toLowerCase() + ","
+                                + p.turnMode.name().toLowerCase() + "," + p.quantum + "," + p.workers + "," + p.turnDelayMillis + ","
+                                + games + "," + seed;
+        }
+
+        // Runs every point not yet in the results file; returns how many points were run
+        public int run() throws IOException, InterruptedException {
+                openResults();
+                accounting = ThreadAccounting.enable();
+                List<Point> pending = new ArrayList<>();
+                for (Point p : points)
+                        if (!completed.contains(key(p)))
+                                pending.add(p);
+                System.out.println("Sweep: " + points.size() + " points, " + (points.size() - pending.size())
+                                + " already in " + results.getName());
+                ExecutorService pool = Executors.newFixedThreadPool(parallel);
+                ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+                try {
+                        List<Future<?>> futures = new ArrayList<>();
+                        for (Point p : pending)
+                                futures.add(pool.submit(() -> {
+                                        record(p, runPoint(p, timer));
+                                        return null;
+                                }));
+                        int ran = 0;
+                        for (int i = 0; i < futures.size(); i++) {
+                                try {
+                                        futures.get(i).get();
+                                        ran++;
+                                } catch (ExecutionException e) {
+                                        System.out.println("Point " + key(pending.get(i)) + " failed: " + e.getCause().getMessage());
+                                }
+                        }
+                        return ran;
+                } finally {
+                        pool.shutdownNow();
+                        timer.shutdownNow();
+                        synchronized (this) {
+                                out.close();
+                        }
+                }
+        }
+
+        // Reads the keys already stored, dropping a trailing row that an interrupted run left unfinished
+        private void openResults() throws IOException {
+                if (!results.exists() || results.length() == 0) {
+                        out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(results), StandardCharsets.US_ASCII));
+                        out.write(HEADER + "\n");
+                        out.flush();
+                        return;
+                }
+                byte[] bytes = Files.readAllBytes(results.toPath());
+                int end = bytes.length;
+                while (end > 0 && bytes[end - 1] != '\n')
+                        end--;
+                if (end < bytes.length) {
+                        try (RandomAccessFile raf = new RandomAccessFile(results, "rw")) {
+                                raf.setLength(end);
+                        }
+                }
+                String[] lines = new String(bytes, 0, end, StandardCharsets.US_ASCII).split("\n");
+                for (int i = 1; i < lines.length; i++) {
+                        String[] fields = lines[i].trim().split(",", -1);
+                        if (fields.length == COLUMNS)
+                                completed.add(String.join(",", Arrays.copyOf(fields, KEY_COLUMNS)));
+                }
+                out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(results, true), StandardCharsets.US_ASCII));
+        }
+
+        public static class PointResult {
+                // Turns of each game that finished; aborted games are left out
+                public final long[] turns;
+                public final int aborted;
+                public final long wallNanos;
+                // Time spent in the games that finished
+                public final long finishedNanos;
+                public final long totalTurns;
+                public final long allocatedBytes;
+
+                PointResult(long[] turns, int aborted, long wallNanos, long finishedNanos, long totalTurns, long allocatedBytes) {
+                        this.turns = turns;
+                        this.aborted = aborted;
+                        this.wallNanos = wallNanos;
+                        this.finishedNanos = finishedNanos;
+                        this.totalTurns = totalTurns;
+                        this.allocatedBytes = allocatedBytes;
+                }
+        }
+
+        PointResult runPoint(Point p, ScheduledExecutorService timer) throws IOException {
+                File dir = Files.createTempDirectory("sweep").toFile();
+                try {
+                        long[] turns = new long[games];
+                        int finished = 0;
+                        long finishedNanos = 0;
+                        long totalTurns = 0;
+                        long bytes = 0;
+                        long start = System.nanoTime();
+                        for (int g = 0; g < games; g++) {
+                                long gameStart = System.nanoTime();
+                                CardGame game = new CardGame();
+                                game.outputDirectory = dir;
+                                game.engineMode = p.engine;
+                                game.turnMode = p.turnMode;
+                                game.turnQuantum = p.quantum;
+                                game.workers = p.workers;
+                                game.turnDelayMillis = p.turnDelayMillis;
+                                game.accounting = accounting;
+                                game.initialiseGame(p.players,
+                                                new PackGenerator(p.players, p.distribution, 1, seed + g).generateCards());
+                                ScheduledFuture<?> limit = timer.schedule(() -> game.abortGame("time limit reached"),
+                                                timeLimitMillis, TimeUnit.MILLISECONDS);
+                                game.playGame();
+                                limit.cancel(false);
+                                long gameTurns = 0;
+                                for (Player player : game.players) {
+                                        gameTurns += player.cardsMoved;
+                                        bytes += player.allocatedBytes;
+                                }
+                                totalTurns += gameTurns;
+                                if (game.getWinnerId() >= 0) {
+                                        turns[finished++] = gameTurns;
+                                        finishedNanos += System.nanoTime() - gameStart;
+                                }
+                        }
+                        return new PointResult(Arrays.copyOf(turns, finished), games - finished, System.nanoTime() - start,
+                                        finishedNanos, totalTurns, bytes);
+                } finally {
+                        File[] files = dir.listFiles();
+                        if (files != null)
+                                for (File f : files)
+                                        f.delete();
+                        dir.delete();
+                }
+        }
+
+        private synchronized void record(Point p, PointResult r) throws IOException {
+                long[] sorted = r.turns.clone();
+                Arrays.sort(sorted);
+                long total = r.totalTurns;
+                String alloc = !accounting ? "" : total == 0 ? "0" : String.format(Locale.ROOT, "%.1f", (double) r.allocatedBytes / total);
+                double rate = sorted.length == 0 ? 0 : sorted.length / (Math.max(1, r.finishedNanos) / 1e9);
+                String p50 = sorted.length == 0 ? "" : String.valueOf(percentile(sorted, 0.50));
+                String p99 = sorted.length == 0 ? "" : String.valueOf(percentile(sorted, 0.99));
+                out.write(key(p) + "," + r.aborted + "," + String.format(Locale.ROOT, "%.1f", r.wallNanos / 1e6) + ","
+                                + String.format(Locale.ROOT, "%.3f", rate) + "," + p50 + "," + p99 + "," + alloc + "\n");
+                out.flush();
+                completed.add(key(p));
+        }
+
+        // Nearest-rank percentile of sorted values
+        static long percentile(long[] sorted, double fraction) {
+                if (sorted.length == 0)
+                        return 0;
+                int rank = (int) Math.ceil(fraction * sorted.length);
+                return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+        }
+}
@@ -0,0 +1,142 @@
+package cardgame;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/*
+ Runs every player's turn loop as a re-schedulable task on a ForkJoinPool instead of a
+ dedicated thread, so a ring of any size runs on availableProcessors() carrier threads.
+ A task plays a bounded number of turns and then resubmits itself. Locks are only ever
+ tried, never waited on. A player whose left deck is empty parks instead of spinning, and
+ the neighbour that discards onto that deck resubmits it.
+ */
+public class TaskEngine {
+        static final int TURNS_PER_TASK = 32;
+        static final long WATCH_MILLIS = 10;
+
+        private final CardGame game;
+        private final Player[] players;
+        private final int[] waiterOnRight;
+        private final AtomicIntegerArray parked;
+        private final Runnable[] tasks;
+        private final CountDownLatch finished;
+        private final ForkJoinPool pool;
+
+        public TaskEngine(CardGame game, int parallelism) {
+                this.game = game;
+                List<Player> ring = game.players;
+                int n = ring.size();
+                this.players = ring.toArray(new Player[0]);
+                this.parked = new AtomicIntegerArray(n);
+                this.finished = new CountDownLatch(n);
+                this.tasks = new Runnable[n];
+                this.waiterOnRight = new int[n];
+
+                Map<CardDeck, Integer> drawer = new IdentityHashMap<>();
+                for (int i = 0; i < n; i++)
+                        drawer.put(players[i].leftDeck, i);
+                for (int i = 0; i < n; i++) {
+                        Integer waiter = drawer.get(players[i].rightDeck);
+                        waiterOnRight[i] = waiter == null ? -1 : waiter;
+                        final int index = i;
+                        tasks[i] = () -> runPlayer(index);
+                }
+                this.pool = new ForkJoinPool(Math.max(1, parallelism), ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+                                null, true);
+        }
+
+        public void run() throws InterruptedException {
+                game.startNanos = System.nanoTime();
+                for (Player p : players)
+                        p.logInitialHand();
+                for (Player p : players)
+                        if (p.hasWinningHand())
+                                game.declareWinner(p.id);
+
+                for (Runnable task : tasks)
+                        pool.execute(task);
+                try {
+                        // Parked players are also released if the game is ended from outside a task
+                        while (!finished.await(WATCH_MILLIS, TimeUnit.MILLISECONDS))
+                                if (game.isGameOver())
+                                        wakeAll();
+                } finally {
+                        pool.shutdown();
+                }
+                game.endNanos = System.nanoTime();
+        }
+
+        private void runPlayer(int i) {
+                Player p = players[i];
+                ThreadAccounting accounting = game.isAccounting() ? ThreadAccounting.sample() : null;
+                try {
+                        for (int turn = 0; turn < TURNS_PER_TASK; turn++) {
+                                if (game.isGameOver()) {
+                                        finish(i, accounting);
+                                        return;
+                                }
+                                boolean moved = game.getTurnMode() == TurnMode.OPTIMISTIC ? p.attemptOptimisticTurn()
+                                                : p.attemptTurnNow();
+                                if (moved) {
+                                        wake(waiterOnRight[i]);
+                                        if (p.hasWinningHand()) {
+                                                game.declareWinner(p.id);
+                                                wakeAll();
+                                                finish(i, accounting);
+                                                return;
+                                        }
+                                } else if (p.leftDeck.isEmpty()) {
+                                        charge(p, accounting);
+                                        park(i);
+                                        return;
+                                } else {
+                                        break;
+                                }
+                        }
+                } catch (RuntimeException e) {
+                        e.printStackTrace();
+                        finish(i, accounting);
+                        return;
+                }
+                charge(p, accounting);
+                pool.execute(tasks[i]);
+        }
+
+        // Charged before the task is handed on, so the next run of this player never overlaps it
+        private static void charge(Player p, ThreadAccounting accounting) {
+                if (accounting != null)
+                        accounting.chargeTo(p);
+        }
+
+        // Publish the parked flag before re-checking, so a concurrent discard or game over cannot be missed
+        private void park(int i) {
+                parked.set(i, 1);
+                if (game.isGameOver() || !players[i].leftDeck.isEmpty())
+                        wake(i);
+        }
+
+        private void wake(int i) {
+                if (i >= 0 && parked.get(i) == 1 && parked.compareAndSet(i, 1, 0))
+                        pool.execute(tasks[i]);
+        }
+
+        void wakeAll() {
+                for (int i = 0; i < players.length; i++)
+                        wake(i);
+        }
+
+        private void finish(int i, ThreadAccounting accounting) {
+                charge(players[i], accounting);
+                players[i].logGameEnd();
+                finished.countDown();
+        }
+
+        public int getParallelism() {
+                return pool.getParallelism();
+        }
+}
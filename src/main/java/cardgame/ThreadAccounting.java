@@ -0,0 +1,70 @@
+package cardgame;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/*
+ Per-player allocation and CPU accounting for --accounting.
+ A sample reads the current thread's allocated bytes and CPU time from the HotSpot ThreadMXBean;
+ charging it to a player adds the difference since the sample. Players sample their own thread
+ around their turn loop, and the task engine samples around every task run, so no other thread
+ ever has to be inspected and the figures cover only the player's own work.
+ */
+public class ThreadAccounting {
+        private static final java.lang.management.ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+        private static final com.sun.management.ThreadMXBean HOTSPOT = THREADS instanceof com.sun.management.ThreadMXBean
+                        ? (com.sun.management.ThreadMXBean) THREADS : null;
+
+        public final long allocatedBytes;
+        public final long cpuNanos;
+
+        private ThreadAccounting(long allocatedBytes, long cpuNanos) {
+                this.allocatedBytes = allocatedBytes;
+                this.cpuNanos = cpuNanos;
+        }
+
+        // Switches the measurements on where the JVM supports them; returns false if allocation cannot be measured
+        public static boolean enable() {
+                if (HOTSPOT == null || !HOTSPOT.isThreadAllocatedMemorySupported())
+                        return false;
+                HOTSPOT.setThreadAllocatedMemoryEnabled(true);
+                if (THREADS.isCurrentThreadCpuTimeSupported())
+                        THREADS.setThreadCpuTimeEnabled(true);
+                return true;
+        }
+
+        public static ThreadAccounting sample() {
+                long bytes = HOTSPOT == null ? 0 : HOTSPOT.getThreadAllocatedBytes(Thread.currentThread().getId());
+                long cpu = THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : 0;
+                return new ThreadAccounting(Math.max(0, bytes), Math.max(0, cpu));
+        }
+
+        // Adds everything the current thread allocated and ran since this sample to the player's totals
+        public void chargeTo(Player player) {
+                ThreadAccounting now = sample();
+                player.allocatedBytes += Math.max(0, now.allocatedBytes - allocatedBytes);
+                player.cpuNanos += Math.max(0, now.cpuNanos - cpuNanos);
+        }
+
+        public static String report(List<Player> players) {
+                StringBuilder sb = new StringBuilder("Allocation and CPU per turn:\n");
+                long bytes = 0, cpu = 0, turns = 0;
+                for (Player p : players) {
+                        bytes += p.allocatedBytes;
+                        cpu += p.cpuNanos;
+                        turns += p.cardsMoved;
+                        line(sb, "player " + p.id, p.cardsMoved, p.allocatedBytes, p.cpuNanos);
+                }
+                line(sb, "all players", turns, bytes, cpu);
+                return sb.toString().trim();
+        }
+
+        private static void line(StringBuilder sb, String who, long turns, long bytes, long cpuNanos) {
+                sb.append("  ").append(who).append(": turns ").append(turns)
+                                .append(", allocated ").append(bytes).append(" bytes (")
+                                .append(turns == 0 ? "-" : String.format("%.1f", (double) bytes / turns))
+                                .append(" per turn), cpu ").append(String.format("%.3f", cpuNanos / 1e6)).append(" ms (")
+                                .append(turns == 0 ? "-" : String.format("%.2f", cpuNanos / 1e3 / turns))
+                                .append(" us per turn)\n");
+        }
+}
@@ -0,0 +1,99 @@
+package cardgame;
+
+import java.util.List;
+
+/*
+ Aggregates the per-player turn counters into game-wide figures.
+ Lock acquisitions per card moved shows what the turn quantum saves, while the spread of
+ cards moved per player (min/max and Jain's fairness index, 1.0 = perfectly even) shows
+ what it costs in fairness.
+ */
+public class TurnMetrics {
+        public final int players;
+        public final int turnQuantum;
+        public final long lockAcquisitions;
+        public final long lockFailures;
+        public final long lockHolds;
+        public final long cardsMoved;
+        public final long optimisticCommits;
+        public final long optimisticConflicts;
+        public final long minCardsMoved;
+        public final long maxCardsMoved;
+        public final double fairnessIndex;
+        public final long elapsedNanos;
+        public final long quiesceNanos;
+
+        public TurnMetrics(List<Player> players, int turnQuantum, long elapsedNanos) {
+                this(players, turnQuantum, elapsedNanos, -1);
+        }
+
+        // quiesceNanos is the time from game over to the last player's exit, or -1 when unknown
+        public TurnMetrics(List<Player> players, int turnQuantum, long elapsedNanos, long quiesceNanos) {
+                long acquisitions = 0, failures = 0, holds = 0, moved = 0, commits = 0, conflicts = 0;
+                long min = Long.MAX_VALUE, max = 0;
+                double sum = 0, sumOfSquares = 0;
+                for (Player p : players) {
+                        acquisitions += p.lockAcquisitions;
+                        failures += p.lockFailures;
+                        holds += p.lockHolds;
+                        commits += p.optimisticCommits;
+                        conflicts += p.optimisticConflicts;
+                        long cards = p.cardsMoved;
+                        moved += cards;
+                        min = Math.min(min, cards);
+                        max = Math.max(max, cards);
+                        sum += cards;
+                        sumOfSquares += (double) cards * cards;
+                }
+                this.players = players.size();
+                this.turnQuantum = turnQuantum;
+                this.lockAcquisitions = acquisitions;
+                this.lockFailures = failures;
+                this.lockHolds = holds;
+                this.cardsMoved = moved;
+                this.optimisticCommits = commits;
+                this.optimisticConflicts = conflicts;
+                this.minCardsMoved = players.isEmpty() ? 0 : min;
+                this.maxCardsMoved = max;
+                this.fairnessIndex = sumOfSquares == 0 ? 1.0 : (sum * sum) / (players.size() * sumOfSquares);
+                this.elapsedNanos = elapsedNanos;
+                this.quiesceNanos = quiesceNanos;
+        }
+
+        public double getAcquisitionsPerCard() {
+                return cardsMoved == 0 ? 0 : (double) lockAcquisitions / cardsMoved;
+        }
+
+        public double getCardsPerHold() {
+                return lockHolds == 0 ? 0 : (double) cardsMoved / lockHolds;
+        }
+
+        // Fraction of optimistic commit attempts that lost to a neighbour and had to retry
+        public double getConflictRate() {
+                long attempts = optimisticCommits + optimisticConflicts;
+                return attempts == 0 ? 0 : (double) optimisticConflicts / attempts;
+        }
+
+        public double getCardsPerSecond() {
+                return elapsedNanos <= 0 ? 0 : cardsMoved * 1e9 / elapsedNanos;
+        }
+
+        public String toReport() {
+                StringBuilder sb = new StringBuilder("Turn metrics:\n");
+                sb.append("  turn quantum: ").append(turnQuantum).append('\n');
+                sb.append("  cards moved: ").append(cardsMoved).append('\n');
+                sb.append("  lock acquisitions: ").append(lockAcquisitions)
+                                .append(" (").append(String.format("%.3f", getAcquisitionsPerCard())).append(" per card)\n");
+                sb.append("  failed lock attempts: ").append(lockFailures).append('\n');
+                sb.append("  optimistic commits: ").append(optimisticCommits).append(", conflicts: ")
+                                .append(optimisticConflicts).append(" (").append(String.format("%.3f", getConflictRate()))
+                                .append(" conflict rate)\n");
+                sb.append("  cards per lock hold: ").append(String.format("%.3f", getCardsPerHold())).append('\n');
+                sb.append("  cards per second: ").append(String.format("%.1f", getCardsPerSecond())).append('\n');
+                sb.append("  cards moved per player: min ").append(minCardsMoved).append(", max ").append(maxCardsMoved)
+                                .append(", fairness ").append(String.format("%.4f", fairnessIndex));
+                if (quiesceNanos >= 0)
+                        sb.append("\n  time to quiesce: ").append(String.format("%.3f", quiesceNanos / 1e6)).append(" ms");
+                return sb.toString();
+        }
+}
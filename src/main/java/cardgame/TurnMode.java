@@ -0,0 +1,17 @@
+package cardgame;
+
+/*
+ How a player makes its draw-discard move atomic across its two decks.
+ LOCKING takes both fair deck locks; OPTIMISTIC reads deck versions, picks the move,
+ then commits by CAS-claiming both decks and retries if a neighbour got there first.
+ */
+public enum TurnMode {
+        LOCKING, OPTIMISTIC;
+
+        public static TurnMode parse(String value) {
+                for (TurnMode mode : values())
+                        if (mode.name().equalsIgnoreCase(value == null ? "" : value.trim()))
+                                return mode;
+                throw new IllegalArgumentException("Invalid turn mode: " + value + " (expected locking or optimistic)");
+        }
+}
@@ -0,0 +1,115 @@
+package cardgame;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+ Emits game activity as Java Flight Recorder events so it can be lined up with GC, safepoint
+ and lock events in one recording. Selected with --jfr; only built by the java11 profile.
+ Every event is disabled by default: until a recording enables it by name (e.g. cardgame.Turn)
+ the JIT reduces each callback to a disabled check and no event is allocated or committed.
+ */
+public class JfrGameEventListener implements GameEventListener {
+
+        @Name("cardgame.Turn")
+        @Label("Player Turn")
+        @Description("A player drew a card from its left deck and discarded one to its right deck")
+        @Category("Card Game")
+        @Enabled(false)
+        @StackTrace(false)
+        static class TurnEvent extends Event {
+                @Label("Player")
+                int player;
+                @Label("Drawn Value")
+                int drawn;
+                @Label("Discarded Value")
+                int discarded;
+                @Label("From Deck")
+                int fromDeck;
+                @Label("To Deck")
+                int toDeck;
+        }
+
+        @Name("cardgame.LockFailure")
+        @Label("Deck Lock Failure")
+        @Description("A player gave up waiting for a deck lock")
+        @Category("Card Game")
+        @Enabled(false)
+        @StackTrace(false)
+        static class LockFailureEvent extends Event {
+                @Label("Player")
+                int player;
+                @Label("Deck")
+                int deck;
+        }
+
+        @Name("cardgame.WinnerDeclared")
+        @Label("Winner Declared")
+        @Category("Card Game")
+        @Enabled(false)
+        @StackTrace(false)
+        static class WinnerDeclaredEvent extends Event {
+                @Label("Winner")
+                int winner;
+        }
+
+        @Name("cardgame.PlayerExit")
+        @Label("Player Exit")
+        @Description("A player wrote its final log lines")
+        @Category("Card Game")
+        @Enabled(false)
+        @StackTrace(false)
+        static class PlayerExitEvent extends Event {
+                @Label("Player")
+                int player;
+                @Label("Final Hand")
+                String finalHand;
+        }
+
+        @Override
+        public void onTurn(Player player, int drawn, int discarded, int fromDeck, int toDeck) {
+                TurnEvent event = new TurnEvent();
+                if (!event.isEnabled())
+                        return;
+                event.player = player.id;
+                event.drawn = drawn;
+                event.discarded = discarded;
+                event.fromDeck = fromDeck;
+                event.toDeck = toDeck;
+                event.commit();
+        }
+
+        @Override
+        public void onLockFailure(Player player, CardDeck deck) {
+                LockFailureEvent event = new LockFailureEvent();
+                if (!event.isEnabled())
+                        return;
+                event.player = player.id;
+                event.deck = deck.getId();
+                event.commit();
+        }
+
+        @Override
+        public void onWinnerDeclared(int winnerId) {
+                WinnerDeclaredEvent event = new WinnerDeclaredEvent();
+                if (!event.isEnabled())
+                        return;
+                event.winner = winnerId;
+                event.commit();
+        }
+
+        @Override
+        public void onPlayerExit(Player player) {
+                PlayerExitEvent event = new PlayerExitEvent();
+                if (!event.isEnabled())
+                        return;
+                event.player = player.id;
+                event.finalHand = player.handToString();
+                event.commit();
+        }
+}
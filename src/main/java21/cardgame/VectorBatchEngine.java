@@ -0,0 +1,100 @@
+package cardgame;
+
+import jdk.incubator.vector.*;
+
+/*
+ BatchEngine with the seat kernel written against jdk.incubator.vector: each step handles as
+ many games at once as the preferred long vector has lanes (the random state is 64-bit), with
+ the card values in an int vector of the same lane count. The discard choice, the hand shift and
+ the win check are compares and blends, finished games are masked out of every store, and only
+ a lane that has just won leaves the vector code to be recorded. Results are identical to the
+ scalar engine's. Needs -Pjava21 and --add-modules jdk.incubator.vector at compile and run time.
+ */
+public class VectorBatchEngine extends BatchEngine {
+        static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+        static final VectorSpecies<Integer> INTS = VectorSpecies.of(int.class, VectorShape.forBitSize(LONGS.vectorBitSize() / 2));
+
+        public VectorBatchEngine(int players, int lanes, long seed, long maxRounds, PackSource packs) {
+                super(players, lanes, seed, maxRounds, packs);
+        }
+
+        public static int vectorLanes() {
+                return LONGS.length();
+        }
+
+        @Override
+        void playSeat(int seat, int drawSlot, int discardSlot) {
+                int preferred = seat + 1;
+                int h = seat * HAND * lanes;
+                int in = (seat * DECK_SLOTS + drawSlot) * lanes;
+                int out = ((seat + 1 == players ? 0 : seat + 1) * DECK_SLOTS + discardSlot) * lanes;
+                int r = seat * lanes;
+                int step = INTS.length();
+                IntVector zero = IntVector.zero(INTS);
+                for (int lane = 0; lane < lanes; lane += step) {
+                        VectorMask<Integer> running = IntVector.fromArray(INTS, active, lane).compare(VectorOperators.NE, 0);
+                        if (!running.anyTrue())
+                                continue;
+                        IntVector drawn = IntVector.fromArray(INTS, decks, in + lane);
+                        IntVector h0 = IntVector.fromArray(INTS, hands, h + lane);
+                        IntVector h1 = IntVector.fromArray(INTS, hands, h + lanes + lane);
+                        IntVector h2 = IntVector.fromArray(INTS, hands, h + 2 * lanes + lane);
+                        IntVector h3 = IntVector.fromArray(INTS, hands, h + 3 * lanes + lane);
+                        VectorMask<Integer> n0 = h0.compare(VectorOperators.NE, preferred);
+                        VectorMask<Integer> n1 = h1.compare(VectorOperators.NE, preferred);
+                        VectorMask<Integer> n2 = h2.compare(VectorOperators.NE, preferred);
+                        VectorMask<Integer> n3 = h3.compare(VectorOperators.NE, preferred);
+                        VectorMask<Integer> n4 = drawn.compare(VectorOperators.NE, preferred);
+                        // running counts of non-preferred cards before each position
+                        IntVector c1 = zero.blend(1, n0);
+                        IntVector c2 = c1.add(zero.blend(1, n1));
+                        IntVector c3 = c2.add(zero.blend(1, n2));
+                        IntVector c4 = c3.add(zero.blend(1, n3));
+                        IntVector candidates = c4.add(zero.blend(1, n4));
+                        IntVector bound = candidates.blend(HAND + 1, candidates.compare(VectorOperators.EQ, 0));
+                        IntVector pick = nextRandom(r + lane, bound);
+
+                        // the pick-th non-preferred card; drawn when it is that card or every card is preferred
+                        IntVector discarded = drawn;
+                        discarded = discarded.blend(h3, n3.and(pick.compare(VectorOperators.EQ, c3)));
+                        discarded = discarded.blend(h2, n2.and(pick.compare(VectorOperators.EQ, c2)));
+                        discarded = discarded.blend(h1, n1.and(pick.compare(VectorOperators.EQ, c1)));
+                        discarded = discarded.blend(h0, n0.and(pick.compare(VectorOperators.EQ, 0)));
+
+                        // remove the first card equal to the discard: every slot from there on takes its successor
+                        VectorMask<Integer> from0 = h0.compare(VectorOperators.EQ, discarded);
+                        VectorMask<Integer> from1 = from0.or(h1.compare(VectorOperators.EQ, discarded));
+                        VectorMask<Integer> from2 = from1.or(h2.compare(VectorOperators.EQ, discarded));
+                        VectorMask<Integer> from3 = from2.or(h3.compare(VectorOperators.EQ, discarded));
+                        IntVector k0 = h0.blend(h1, from0);
+                        IntVector k1 = h1.blend(h2, from1);
+                        IntVector k2 = h2.blend(h3, from2);
+                        IntVector k3 = h3.blend(drawn, from3);
+
+                        k0.intoArray(hands, h + lane, running);
+                        k1.intoArray(hands, h + lanes + lane, running);
+                        k2.intoArray(hands, h + 2 * lanes + lane, running);
+                        k3.intoArray(hands, h + 3 * lanes + lane, running);
+                        discarded.intoArray(decks, out + lane, running);
+
+                        VectorMask<Integer> wins = k0.compare(VectorOperators.EQ, k1).and(k0.compare(VectorOperators.EQ, k2))
+                                        .and(k0.compare(VectorOperators.EQ, k3)).and(running);
+                        if (wins.anyTrue())
+                                for (int j = 0; j < step; j++)
+                                        if (wins.laneIsSet(j))
+                                                won(lane + j, seat);
+                }
+        }
+
+        // Player.nextRandom on a vector of SplitMix64 states; finished lanes advance too, and are reseeded when dealt again
+        private IntVector nextRandom(int index, IntVector bound) {
+                LongVector z = LongVector.fromArray(LONGS, rng, index).add(CompactEngine.GOLDEN);
+                z.intoArray(rng, index);
+                z = z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 30)).mul(0xBF58476D1CE4E5B9L);
+                z = z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 27)).mul(0x94D049BB133111EBL);
+                z = z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 31));
+                LongVector wide = (LongVector) bound.convertShape(VectorOperators.I2L, LONGS, 0);
+                LongVector scaled = z.lanewise(VectorOperators.LSHR, 32).mul(wide).lanewise(VectorOperators.LSHR, 32);
+                return (IntVector) scaled.convertShape(VectorOperators.L2I, INTS, 0);
+        }
+}
@@ -0,0 +1,87 @@
+package cardgame;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchEngineTest {
+
+        // player 1 holds three 1s and finds the fourth as the second card of deck 1
+        private static final int[] PLAYER_ONE_WINS = { 1, 10, 20, 1, 11, 21, 1, 12, 22, 9, 13, 23,
+                        5, 14, 24, 1, 15, 25, 6, 16, 26, 7, 17, 27 };
+
+        // Small uniform packs: wins are common but not certain within a few rounds
+        static BatchEngine.PackSource uniform(int n, long seed) {
+                return BatchEngine.generated(n, PackGenerator.Distribution.UNIFORM, seed);
+        }
+
+        static void assertMatchesCompactEngine(BatchEngine engine, BatchEngine.PackSource packs, BatchEngine.Result result) {
+                int[] pack = new int[8 * engine.players];
+                for (int g = 0; g < result.winners.length; g++) {
+                        packs.fill(g, pack);
+                        CompactEngine single = new CompactEngine(engine.players, engine.seed + g);
+                        for (int v : pack)
+                                single.deal(v);
+                        assertEquals(single.play(engine.maxRounds), result.winners[g], "game " + g);
+                        assertEquals(single.getTurns(), result.turns[g], "game " + g);
+                }
+        }
+
+        @Test
+        public void testEveryGameMatchesCompactEngine() {
+                int undecided = 0;
+                for (int n = 3; n <= 6; n++) {
+                        BatchEngine.PackSource packs = uniform(n, 100L * n);
+                        // five lanes round up to sixteen, so lanes are refilled many times mid-run
+                        BatchEngine engine = new BatchEngine(n, 5, 100L * n, 4, packs);
+                        assertEquals(16, engine.lanes);
+                        BatchEngine.Result result = engine.run(300);
+                        assertMatchesCompactEngine(engine, packs, result);
+                        int decided = 0;
+                        for (int w : result.winners)
+                                if (w > 0)
+                                        decided++;
+                        assertTrue(decided > 0, "n " + n);
+                        undecided += 300 - decided;
+                }
+                // some games must also have hit the round limit for the comparison to cover it
+                assertTrue(undecided > 0);
+        }
+
+        @Test
+        public void testFixedPackAndDealtWinner() {
+                BatchEngine fixed = new BatchEngine(3, 16, 42L, 10, (game, pack) -> System.arraycopy(PLAYER_ONE_WINS, 0, pack, 0, pack.length));
+                BatchEngine.Result result = fixed.run(40);
+                for (int g = 0; g < 40; g++) {
+                        assertEquals(1, result.winners[g]);
+                        assertEquals(4, result.turns[g]);
+                }
+                assertTrue(result.toReport().contains("player 1 wins 1.0000"));
+
+                int[] dealtWin = { 4, 2, 4, 2, 4, 2, 4, 2, 1, 1, 1, 1, 3, 3, 3, 3 };
+                BatchEngine.Result dealt = new BatchEngine(2, 1, 1L, 10, (game, pack) -> System.arraycopy(dealtWin, 0, pack, 0, pack.length)).run(3);
+                assertArrayEquals(new int[] { 1, 1, 1 }, dealt.winners);
+                assertArrayEquals(new long[] { 0, 0, 0 }, dealt.turns);
+        }
+
+        @Test
+        public void testUnwinnableGamesStopAtRoundLimit() {
+                int n = 5;
+                BatchEngine engine = new BatchEngine(n, 16, 7L, 25, BatchEngine.generated(n, PackGenerator.Distribution.UNWINNABLE, 7L));
+                BatchEngine.Result result = engine.run(20);
+                for (int g = 0; g < 20; g++) {
+                        assertEquals(-1, result.winners[g]);
+                        assertEquals(25L * n, result.turns[g]);
+                }
+                assertEquals(0, engine.run(0).winners.length);
+        }
+
+        @Test
+        public void testBadSetups() {
+                BatchEngine.PackSource packs = uniform(3, 1L);
+                assertThrows(IllegalArgumentException.class, () -> new BatchEngine(0, 16, 1L, 10, packs));
+                assertThrows(IllegalArgumentException.class, () -> new BatchEngine(3, 0, 1L, 10, packs));
+                assertThrows(IllegalArgumentException.class, () -> new BatchEngine(3, 16, 1L, 0, packs));
+                assertThrows(IllegalArgumentException.class, () -> new BatchEngine(3, 16, 1L, 10, packs).run(-1));
+                assertTrue(BatchEngine.create(3, 16, 1L, 10, packs, false).getClass() == BatchEngine.class);
+        }
+}
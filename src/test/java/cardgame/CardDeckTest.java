@@ -38,4 +38,37 @@ public class CardDeckTest {
                 CardDeck deck = new CardDeck(8);
                 assertEquals(8, deck.getId());
         }
+
+        @Test
+        public void testBoundedDeckKeepsFifoAndFormat() {
+                CardDeck deck = new CardDeck(4, 2, 3);
+                deck.addCard(new Card(7));
+                deck.addCard(new Card(8));
+                deck.addCard(new Card(9));
+                assertThrows(IllegalStateException.class, () -> deck.addCard(new Card(1)));
+                assertEquals(7, deck.draw().getDenomination());
+                deck.addCard(new Card(1));
+                assertEquals("deck4 contents: 8 9 1", deck.getContentsString());
+                assertEquals(3, deck.size());
+        }
+
+        @Test
+        public void testEmptyDeckContentsString() {
+                assertEquals("deck5 contents:", new CardDeck(5).getContentsString());
+        }
+
+        @Test
+        public void testVersionClaimAndPublish() {
+                CardDeck deck = new CardDeck(1);
+                long v = deck.readVersion();
+                assertTrue(deck.tryClaim(v));
+                assertFalse(deck.tryClaim(v));
+                assertFalse(deck.tryClaim(v + 1));
+                deck.publish();
+                assertEquals(v + 2, deck.readVersion());
+                assertFalse(deck.tryClaim(v));
+                assertTrue(deck.tryClaim(v + 2));
+                deck.release(v + 2);
+                assertEquals(v + 2, deck.readVersion());
+        }
 }
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.AfterEach;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.*;
 import java.io.*;
 import java.util.*;
 
@@ -407,4 +408,259 @@ public class CardGameTest {
                 String output = outputStream.toString();
                 assertFalse(output.isEmpty());
         }
+
+        @Test
+        public void testConfigureOptions() {
+                CardGame game = new CardGame();
+                game.configure(new String[] { "--quantum=4", "--turn-delay=0", "--metrics" });
+                assertEquals(4, game.getTurnQuantum());
+                assertEquals(0, game.getTurnDelayMillis());
+                assertTrue(game.printMetrics);
+        }
+
+        @Test
+        public void testConfigureRejectsInvalidOptions() {
+                CardGame game = new CardGame();
+                assertThrows(IllegalArgumentException.class, () -> game.configure(new String[] { "--quantum=0" }));
+                assertThrows(IllegalArgumentException.class, () -> game.configure(new String[] { "--quantum" }));
+                assertThrows(IllegalArgumentException.class, () -> game.configure(new String[] { "--bogus" }));
+                assertThrows(IllegalArgumentException.class, () -> game.configure(new String[] { "--turn-mode=eager" }));
+                assertEquals(1, game.getTurnQuantum());
+                assertEquals(10, game.getTurnDelayMillis());
+        }
+
+        @Test
+        public void testDeckCapacitySizedFromPack() throws IOException {
+                assertEquals(12, CardGame.maxDeckCards(3, 24));
+                assertEquals(1, CardGame.maxDeckCards(3, 12));
+                assertEquals(12, CardGame.initialDeckCapacity(3, 24));
+                assertEquals(16, CardGame.initialDeckCapacity(100, 800));
+                CardGame game = new CardGame();
+                List<Card> pack = new ArrayList<>();
+                for (int i = 0; i < 24; i++)
+                        pack.add(new Card(i % 4 + 1));
+                game.initialiseGame(3, pack);
+                for (CardDeck d : game.decks)
+                        assertEquals(12, d.cards.maxCapacity());
+        }
+
+        @Test
+        public void testOptimisticModeGameFinishes() throws Exception {
+                CardGame game = new CardGame();
+                game.configure(new String[] { "--turn-mode=optimistic", "--turn-delay=0" });
+                assertEquals(TurnMode.OPTIMISTIC, game.getTurnMode());
+                int[] values = { 1, 2, 1, 2, 1, 3, 5, 4, 1, 6, 7, 8, 9, 10, 11, 12 };
+                List<Card> pack = new ArrayList<>();
+                for (int v : values)
+                        pack.add(new Card(v));
+                game.initialiseGame(2, pack);
+                game.startPlayers();
+                game.waitForPlayersToFinish();
+                assertEquals(1, game.getWinnerId());
+                assertTrue(game.getTurnMetrics().optimisticCommits >= 1);
+                assertEquals(0, game.getTurnMetrics().lockAcquisitions);
+        }
+
+        @Test
+        public void testArchiveModeCollectsAllOutputs() throws Exception {
+                File archive = File.createTempFile("game", ".cga");
+                archive.deleteOnExit();
+                CardGame game = new CardGame();
+                game.configure(new String[] { "--archive=" + archive.getPath(), "--turn-delay=0" });
+                game.outputArchive = new OutputArchive(game.archiveFile);
+                List<Card> pack = new ArrayList<>();
+                for (int i = 0; i < 16; i++)
+                        pack.add(new Card(i < 8 ? (i % 2) + 1 : 5));
+                game.initialiseGame(2, pack);
+                game.startPlayers();
+                game.waitForPlayersToFinish();
+                game.writeDeckOutputs();
+                game.closeOutputArchive();
+                List<String> entries = OutputArchive.listEntries(archive);
+                assertEquals(4, entries.size());
+                assertTrue(OutputArchive.readEntry(archive, "player1_output.txt").contains("player 1 initial hand is 1 1 1 1"));
+                assertTrue(OutputArchive.readEntry(archive, "deck2_output.txt").startsWith("deck2 contents: 5 5 5 5"));
+        }
+
+        @Test
+        public void testParallelSetupMatchesSerialSetup() throws IOException {
+                List<Card> pack = new PackGenerator(7, PackGenerator.Distribution.UNIFORM, 1, 5L).generateCards();
+                CardGame serial = new CardGame();
+                serial.initialiseGame(7, pack);
+                CardGame parallel = new CardGame();
+                parallel.configure(new String[] { "--parallel-setup" });
+                assertTrue(parallel.parallelSetup);
+                parallel.initialiseGameParallel(7, pack);
+                for (int i = 0; i < 7; i++) {
+                        assertEquals(serial.players.get(i).handToString(), parallel.players.get(i).handToString());
+                        assertEquals(serial.decks.get(i).getContentsString(), parallel.decks.get(i).getContentsString());
+                        assertSame(parallel.decks.get((i + 1) % 7), parallel.players.get(i).rightDeck);
+                }
+                assertThrows(IllegalStateException.class,
+                                () -> new CardGame().initialiseGameParallel(3, pack.subList(0, 11)));
+        }
+
+        @Test
+        public void testInitialWinnerShortCircuitsWithoutThreads() throws Exception {
+                File archive = File.createTempFile("instant", ".cga");
+                archive.deleteOnExit();
+                CardGame game = new CardGame();
+                game.outputArchive = new OutputArchive(archive);
+                // player 3 is dealt 3 3 3 3, nobody else has four of a kind
+                int[] values = { 5, 6, 3, 7, 5, 6, 3, 7, 1, 2, 3, 4, 8, 8, 3, 8 };
+                List<Card> pack = new ArrayList<>();
+                for (int v : values)
+                        pack.add(new Card(v));
+                for (int v = 1; v <= 16; v++)
+                        pack.add(new Card(v));
+                game.initialiseGameParallel(4, pack);
+                assertEquals(3, game.findInitialWinner());
+                game.playGame();
+                assertEquals(3, game.getWinnerId());
+                for (Player p : game.players)
+                        assertFalse(p.isAlive());
+                game.closeOutputArchive();
+                String winnerLog = OutputArchive.readEntry(archive, "player3_output.txt");
+                assertTrue(winnerLog.contains("player 3 initial hand is 3 3 3 3"));
+                assertTrue(winnerLog.contains("player 3 wins"));
+                String otherLog = OutputArchive.readEntry(archive, "player1_output.txt");
+                assertTrue(otherLog.contains("player 3 has informed player 1 that player 3 has won"));
+                assertTrue(otherLog.contains("player 1 exits"));
+        }
+
+        @Test
+        public void testEventListenerSeesTurnsWinnerAndExits() throws Exception {
+                File archive = File.createTempFile("events", ".cga");
+                archive.deleteOnExit();
+                CardGame game = new CardGame();
+                game.outputArchive = new OutputArchive(archive);
+                assertSame(GameEventListener.NONE, game.events);
+                List<String> seen = Collections.synchronizedList(new ArrayList<>());
+                game.events = new GameEventListener() {
+                        @Override
+                        public void onTurn(Player player, int drawn, int discarded, int fromDeck, int toDeck) {
+                                seen.add("turn " + player.id + " " + drawn + " " + fromDeck + "->" + toDeck);
+                        }
+
+                        @Override
+                        public void onWinnerDeclared(int winnerId) {
+                                seen.add("winner " + winnerId);
+                        }
+
+                        @Override
+                        public void onPlayerExit(Player player) {
+                                seen.add("exit " + player.id);
+                        }
+                };
+                List<Card> pack = new ArrayList<>();
+                for (int v : new int[] { 1, 10, 1, 11, 1, 12, 9, 13, 5, 14, 1, 15, 6, 16, 7, 17 })
+                        pack.add(new Card(v));
+                game.initialiseGame(2, pack);
+                Player first = game.players.get(0);
+                assertTrue(first.attemptAtomicTurn());
+                assertTrue(first.attemptAtomicTurn());
+                assertTrue(first.hasWinningHand());
+                game.declareWinner(1);
+                game.declareWinner(2);
+                first.logGameEnd();
+                game.closeOutputArchive();
+                assertEquals(Arrays.asList("turn 1 5 1->2", "turn 1 1 1->2", "winner 1", "exit 1"), seen);
+        }
+
+        private static boolean java11ClassesPresent() {
+                try {
+                        Class.forName("cardgame.JfrGameEventListener");
+                        return true;
+                } catch (ClassNotFoundException | LinkageError e) {
+                        return false;
+                }
+        }
+
+        @Test
+        public void testJfrOptionRejectedWithoutJava11Build() {
+                assumeFalse(java11ClassesPresent(), "built with the java11 profile");
+                CardGame game = new CardGame();
+                IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> game.configure(new String[] { "--jfr" }));
+                assertTrue(e.getMessage().contains("java11 profile"));
+                assertSame(GameEventListener.NONE, game.events);
+        }
+
+        @Test
+        public void testJfrOptionLoadsListenerInJava11Build() {
+                assumeTrue(java11ClassesPresent(), "built without the java11 profile");
+                CardGame game = new CardGame();
+                game.configure(new String[] { "--jfr" });
+                assertEquals("cardgame.JfrGameEventListener", game.events.getClass().getName());
+        }
+
+        @Test
+        public void testGameOverCutsTurnDelayShort() throws Exception {
+                File archive = File.createTempFile("quiesce", ".cga");
+                archive.deleteOnExit();
+                CardGame game = new CardGame();
+                game.outputArchive = new OutputArchive(archive);
+                // with a 30 s turn delay players only notice the end at once if they are woken
+                game.configure(new String[] { "--turn-delay=30000" });
+                game.initialiseGame(4, new PackGenerator(4, PackGenerator.Distribution.UNWINNABLE, 1, 13L).generateCards());
+                assertEquals(-1, game.getQuiesceNanos());
+                game.startPlayers();
+                Thread.sleep(100);
+                long start = System.nanoTime();
+                game.declareWinner(3);
+                game.waitForPlayersToFinish();
+                assertTrue(System.nanoTime() - start < 5000000000L);
+                long quiesce = game.getQuiesceNanos();
+                assertTrue(quiesce >= 0 && quiesce < 5000000000L, "quiesce took " + quiesce + " ns");
+                assertEquals(quiesce, game.getTurnMetrics().quiesceNanos);
+                game.closeOutputArchive();
+                for (int i = 1; i <= 4; i++) {
+                        String log = OutputArchive.readEntry(archive, "player" + i + "_output.txt");
+                        assertTrue(log.contains("player " + i + " exits"), log);
+                        assertFalse(log.contains("ERROR"), log);
+                }
+        }
+
+        @Test
+        public void testAbortAlsoWakesPlayers() throws Exception {
+                File archive = File.createTempFile("quiesce", ".cga");
+                archive.deleteOnExit();
+                CardGame game = new CardGame();
+                game.outputArchive = new OutputArchive(archive);
+                game.configure(new String[] { "--turn-delay=30000" });
+                game.initialiseGame(2, new PackGenerator(2, PackGenerator.Distribution.UNWINNABLE, 1, 13L).generateCards());
+                // a held deck lock leaves a player waiting in tryLock when the game ends
+                game.decks.get(1).lock.lock();
+                try {
+                        game.startPlayers();
+                        Thread.sleep(50);
+                        game.abortGame("test");
+                } finally {
+                        game.decks.get(1).lock.unlock();
+                }
+                game.waitForPlayersToFinish();
+                assertTrue(game.getQuiesceNanos() >= 0);
+                assertEquals("test", game.getAbortReason());
+                game.closeOutputArchive();
+                assertTrue(OutputArchive.readEntry(archive, "player1_output.txt").contains("game aborted: test"));
+        }
+
+        @Test
+        public void testFailedPlayerStillCountsAsExited() throws Exception {
+                CardGame game = new CardGame();
+                // no decks: the first turn throws inside run, before logGameEnd is ever reached
+                Player broken = new Player(1, null, null, game, new PrintWriter(new StringWriter()));
+                broken.setInitialHand(Arrays.asList(new Card(2), new Card(3), new Card(4), new Card(5)));
+                game.players.add(broken);
+                PrintStream err = System.err;
+                System.setErr(new PrintStream(new ByteArrayOutputStream()));
+                try {
+                        broken.start();
+                        broken.join(10000);
+                } finally {
+                        System.setErr(err);
+                }
+                assertTrue(broken.exited);
+                game.abortGame("test");
+                assertTrue(game.getQuiesceNanos() >= 0);
+        }
 }
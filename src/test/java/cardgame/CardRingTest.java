@@ -0,0 +1,52 @@
+package cardgame;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CardRingTest {
+
+        @Test
+        public void testFifoAcrossWrapAround() {
+                CardRing ring = new CardRing(4, 4);
+                for (int round = 0; round < 10; round++) {
+                        ring.add(new Card(round));
+                        ring.add(new Card(round + 100));
+                        assertEquals(round, ring.poll().getDenomination());
+                        assertEquals(round + 100, ring.poll().getDenomination());
+                }
+                assertTrue(ring.isEmpty());
+                assertNull(ring.poll());
+                assertNull(ring.peek());
+                assertEquals(4, ring.capacity());
+        }
+
+        @Test
+        public void testGrowsUpToMaximum() {
+                CardRing ring = new CardRing(2, 5);
+                ring.add(new Card(1));
+                ring.poll();
+                for (int i = 0; i < 5; i++)
+                        ring.add(new Card(i));
+                assertEquals(5, ring.capacity());
+                assertThrows(IllegalStateException.class, () -> ring.add(new Card(9)));
+                for (int i = 0; i < 5; i++)
+                        assertEquals(i, ring.get(i).getDenomination());
+        }
+
+        @Test
+        public void testPeekGetAndToList() {
+                CardRing ring = new CardRing(8, CardRing.UNBOUNDED);
+                Card first = new Card(3);
+                ring.add(first);
+                ring.add(new Card(4));
+                assertSame(first, ring.peek());
+                assertEquals(2, ring.size());
+                assertEquals(4, ring.toList().get(1).getDenomination());
+                assertThrows(IndexOutOfBoundsException.class, () -> ring.get(2));
+        }
+
+        @Test
+        public void testInvalidCapacity() {
+                assertThrows(IllegalArgumentException.class, () -> new CardRing(4, 0));
+        }
+}
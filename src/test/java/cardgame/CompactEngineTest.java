@@ -0,0 +1,151 @@
+package cardgame;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+public class CompactEngineTest {
+
+        @TempDir
+        File dir;
+
+        // player 1 holds three 1s and finds the fourth as the second card of deck 1
+        private static final int[] PLAYER_ONE_WINS = { 1, 10, 20, 1, 11, 21, 1, 12, 22, 9, 13, 23,
+                        5, 14, 24, 1, 15, 25, 6, 16, 26, 7, 17, 27 };
+
+        private static CompactEngine dealt(int n, long seed, int... values) {
+                CompactEngine engine = new CompactEngine(n, seed);
+                for (int v : values)
+                        engine.deal(v);
+                return engine;
+        }
+
+        @Test
+        public void testDeterministicWinner() {
+                CompactEngine engine = dealt(3, 42L, PLAYER_ONE_WINS);
+                assertEquals(1, engine.play(Long.MAX_VALUE));
+                assertEquals(1, engine.getWinnerId());
+                assertEquals(1, engine.getRounds());
+                assertEquals(4, engine.getTurns());
+                assertEquals(2, engine.turnsOf(1));
+                assertEquals(1, engine.turnsOf(2));
+                assertArrayEquals(new int[] { 1, 1, 1, 1 }, engine.hand(1));
+                int cards = 0;
+                for (int id = 1; id <= 3; id++)
+                        cards += engine.hand(id).length + engine.deck(id).length;
+                assertEquals(24, cards);
+                // playing on after a win changes nothing
+                assertEquals(1, engine.play(Long.MAX_VALUE));
+                assertEquals(4, engine.getTurns());
+        }
+
+        @Test
+        public void testDealtWinnerTakesNoTurns() {
+                CompactEngine engine = dealt(2, 1L, 4, 2, 4, 2, 4, 2, 4, 2, 1, 1, 1, 1, 3, 3, 3, 3);
+                assertEquals(1, engine.play(10));
+                assertEquals(0, engine.getTurns());
+                assertArrayEquals(new int[] { 1, 1, 3, 3 }, engine.deck(1));
+        }
+
+        // Seeded alike, the compact engine makes exactly the moves of a one-segment game of Player objects
+        @Test
+        public void testMatchesSegmentedEngineMoveForMove() throws Exception {
+                int compared = 0;
+                for (long seed = 1; seed <= 30; seed++) {
+                        int n = 3 + (int) (seed % 3);
+                        List<Card> pack = new ArrayList<>();
+                        Random random = new Random(seed);
+                        for (int i = 0; i < 8 * n; i++)
+                                pack.add(new Card(1 + random.nextInt(n)));
+                        CompactEngine engine = new CompactEngine(n, seed);
+                        for (Card c : pack)
+                                engine.deal(c.getDenomination());
+                        int winner = engine.play(10000);
+                        if (winner < 0)
+                                continue;
+
+                        File archive = new File(dir, "game" + seed + ".cga");
+                        CardGame game = new CardGame();
+                        game.outputArchive = new OutputArchive(archive);
+                        game.archiveFile = archive;
+                        game.initialiseGame(n, pack);
+                        game.configure(new String[] { "--engine=segmented", "--workers=1" });
+                        for (Player p : game.players)
+                                p.rngState = CompactEngine.seedFor(seed, p.id);
+                        game.playGame();
+                        game.closeOutputArchive();
+
+                        assertEquals(game.getWinnerId(), winner, "seed " + seed);
+                        for (Player p : game.players) {
+                                int[] hand = new int[4];
+                                for (int i = 0; i < 4; i++)
+                                        hand[i] = p.getHand().get(i).getDenomination();
+                                assertArrayEquals(hand, engine.hand(p.id), "seed " + seed + " player " + p.id);
+                                assertEquals(p.cardsMoved, engine.turnsOf(p.id), "seed " + seed + " player " + p.id);
+                        }
+                        for (CardDeck d : game.decks) {
+                                int[] values = new int[d.size()];
+                                d.copyValues(0, values);
+                                assertArrayEquals(values, engine.deck(d.id), "seed " + seed + " deck " + d.id);
+                        }
+                        compared++;
+                }
+                assertTrue(compared >= 10, "only " + compared + " games finished");
+        }
+
+        @Test
+        public void testLargeUnwinnableRingKeepsEveryCard() {
+                int n = 100000;
+                PackGenerator generator = new PackGenerator(n, PackGenerator.Distribution.UNWINNABLE, 1, 3L);
+                CompactEngine engine = new CompactEngine(n, 3L);
+                IntCountMap expected = new IntCountMap();
+                generator.forEachValue(v -> {
+                        expected.increment(v);
+                        engine.deal(v);
+                });
+                assertEquals(-1, engine.play(20));
+                assertEquals(20, engine.getRounds());
+                assertEquals(20L * n, engine.getTurns());
+                IntCountMap actual = new IntCountMap();
+                for (int id = 1; id <= n; id++) {
+                        for (int v : engine.hand(id))
+                                actual.increment(v);
+                        int[] deck = engine.deck(id);
+                        assertEquals(4, deck.length);
+                        for (int v : deck)
+                                actual.increment(v);
+                }
+                assertEquals(expected, actual);
+                assertTrue(CompactEngine.bytesPerSeat() < 64);
+        }
+
+        @Test
+        public void testLoadStreamsPackFile() throws IOException {
+                File pack = new File(dir, "pack.txt");
+                StringBuilder sb = new StringBuilder();
+                for (int v : PLAYER_ONE_WINS)
+                        sb.append(v).append('\n');
+                Files.write(pack.toPath(), sb.toString().getBytes(StandardCharsets.US_ASCII));
+                CompactEngine engine = new CompactEngine(3, 42L);
+                engine.load(pack);
+                assertEquals(1, engine.play(Long.MAX_VALUE));
+
+                IOException e = assertThrows(IOException.class, () -> new CompactEngine(2, 1L).load(pack));
+                assertTrue(e.getMessage().startsWith("Invalid pack size: expected 16"), e.getMessage());
+                assertThrows(IOException.class, () -> new CompactEngine(4, 1L).load(pack));
+                assertThrows(FileNotFoundException.class, () -> new CompactEngine(3, 1L).load(new File(dir, "missing.txt")));
+        }
+
+        @Test
+        public void testBadSetups() {
+                assertThrows(IllegalArgumentException.class, () -> new CompactEngine(0, 1L));
+                assertThrows(IllegalStateException.class, () -> dealt(3, 1L, 1, 2, 3).play(1));
+                CompactEngine full = dealt(3, 1L, PLAYER_ONE_WINS);
+                assertThrows(IllegalStateException.class, () -> full.deal(1));
+        }
+}
@@ -0,0 +1,74 @@
+package cardgame;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+public class CompressedPackReaderTest {
+
+        @TempDir
+        File dir;
+
+        private File gzip(String name, String text) throws IOException {
+                File file = new File(dir, name);
+                try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+                        out.write(text.getBytes(StandardCharsets.US_ASCII));
+                }
+                return file;
+        }
+
+        private static String lines(int count, int modulus) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < count; i++)
+                        sb.append(i % modulus).append(i % 3 == 0 ? "\r\n" : "\n");
+                return sb.toString();
+        }
+
+        @Test
+        public void testLoadsSameCardsAsPlainFile() throws IOException {
+                String text = lines(8 * 500, 37);
+                File plain = new File(dir, "pack.txt");
+                Files.write(plain.toPath(), text.getBytes(StandardCharsets.US_ASCII));
+                File packed = gzip("pack.txt.gz", text);
+                assertTrue(CompressedPackReader.isCompressed(packed));
+                assertFalse(CompressedPackReader.isCompressed(plain));
+
+                List<Card> expected = CardPackLoader.loadPack(plain, 500);
+                assertEquals(expected, CardPackLoader.loadPack(packed, 500));
+                // tiny chunks split lines and CRLF pairs across chunk boundaries
+                assertEquals(expected, new CompressedPackReader(packed, 7).loadPack(500));
+        }
+
+        @Test
+        public void testKeepsLoaderErrorMessages() throws IOException {
+                IOException e = assertThrows(IOException.class,
+                                () -> CardPackLoader.loadPack(gzip("bad.gz", "1\n2\n\nx3\n"), 1));
+                assertEquals("Failed to read pack file: Invalid card value at line 4: 'x3' (must be an integer)", e.getMessage());
+                e = assertThrows(IOException.class, () -> CardPackLoader.loadPack(gzip("neg.gz", "1\n-4\n"), 1));
+                assertEquals("Failed to read pack file: Invalid card value at line 2: -4 (cannot be negative)", e.getMessage());
+                e = assertThrows(IOException.class, () -> CardPackLoader.loadPack(gzip("big.gz", lines(20, 5)), 2));
+                assertEquals("Invalid pack size: expected 16 cards for 2 players, but found 20", e.getMessage());
+                assertThrows(FileNotFoundException.class, () -> CardPackLoader.loadPack(new File(dir, "missing.gz"), 1));
+                assertThrows(IllegalArgumentException.class, () -> new CompressedPackReader(new File(dir, "x.gz")).loadPack(0));
+        }
+
+        @Test
+        public void testRejectsCorruptInput() throws IOException {
+                File notGzip = new File(dir, "plain.gz");
+                Files.write(notGzip.toPath(), "1\n2\n".getBytes(StandardCharsets.US_ASCII));
+                IOException e = assertThrows(IOException.class, () -> CardPackLoader.loadPack(notGzip, 1));
+                assertTrue(e.getMessage().startsWith("Failed to read pack file: "));
+
+                byte[] whole = Files.readAllBytes(gzip("whole.gz", lines(8 * 2000, 11)).toPath());
+                File truncated = new File(dir, "truncated.gz");
+                Files.write(truncated.toPath(), Arrays.copyOf(whole, whole.length / 2));
+                e = assertThrows(IOException.class, () -> new CompressedPackReader(truncated, 64).loadPack(2000));
+                assertTrue(e.getMessage().startsWith("Failed to read pack file: "));
+        }
+}
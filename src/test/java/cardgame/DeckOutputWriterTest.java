@@ -0,0 +1,92 @@
+package cardgame;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+
+public class DeckOutputWriterTest {
+
+        @TempDir
+        File dir;
+
+        private static List<CardDeck> decks(int... sizes) {
+                List<CardDeck> decks = new ArrayList<>();
+                Random random = new Random(5);
+                for (int i = 0; i < sizes.length; i++) {
+                        CardDeck deck = new CardDeck(i + 1);
+                        for (int c = 0; c < sizes[i]; c++)
+                                deck.addCard(new Card(c % 7 == 0 ? Integer.MAX_VALUE - c : random.nextInt(1000)));
+                        decks.add(deck);
+                }
+                return decks;
+        }
+
+        private byte[] read(File directory, int id) throws IOException {
+                return Files.readAllBytes(new File(directory, "deck" + id + "_output.txt").toPath());
+        }
+
+        @Test
+        public void testSameBytesAsPlainWriter() throws IOException {
+                File plainDir = new File(dir, "plain");
+                File streamDir = new File(dir, "stream");
+                assertTrue(plainDir.mkdir() && streamDir.mkdir());
+                List<CardDeck> decks = decks(0, 1, 5, 20000, 3);
+
+                CardGame plain = new CardGame();
+                plain.outputDirectory = plainDir;
+                plain.decks.addAll(decks);
+                plain.writeDeckOutputs();
+
+                CardGame streamed = new CardGame();
+                streamed.outputDirectory = streamDir;
+                streamed.configure(new String[] { "--stream-decks=2" });
+                assertEquals(2, streamed.deckWriterThreads);
+                streamed.decks.addAll(decks);
+                streamed.writeDeckOutputs();
+
+                for (int id = 1; id <= decks.size(); id++)
+                        assertArrayEquals(read(plainDir, id), read(streamDir, id), "deck " + id);
+                assertEquals("deck1 contents:" + System.lineSeparator(), new String(read(streamDir, 1), "US-ASCII"));
+        }
+
+        @Test
+        public void testSmallChunksSplitTheDeck() throws IOException {
+                CardDeck deck = decks(0, 0, 1001).get(2);
+                File out = new File(dir, "deck3.txt");
+                new DeckOutputWriter(1, 7).write(deck, out);
+                assertEquals(deck.getContentsString() + System.lineSeparator(),
+                                new String(Files.readAllBytes(out.toPath()), "US-ASCII"));
+                assertEquals(1001, deck.size());
+        }
+
+        @Test
+        public void testCopyValuesAndEncode() {
+                CardDeck deck = decks(10).get(0);
+                int[] into = new int[4];
+                assertEquals(4, deck.copyValues(0, into));
+                assertEquals(deck.getContents().get(3).getDenomination(), into[3]);
+                assertEquals(2, deck.copyValues(8, into));
+                assertEquals(0, deck.copyValues(10, into));
+
+                byte[] digits = new byte[12];
+                int length = DeckOutputWriter.encode(Integer.MIN_VALUE, digits);
+                assertEquals(String.valueOf(Integer.MIN_VALUE), new String(digits, 12 - length, length));
+                length = DeckOutputWriter.encode(0, digits);
+                assertEquals("0", new String(digits, 12 - length, length));
+        }
+
+        @Test
+        public void testFailedDeckIsReportedAndOthersWritten() throws IOException {
+                CardGame game = new CardGame();
+                game.outputDirectory = dir;
+                List<CardDeck> decks = decks(3, 3);
+                assertTrue(new File(dir, "deck1_output.txt").mkdir());
+                new DeckOutputWriter(2).writeAll(game, decks);
+                assertEquals(decks.get(1).getContentsString() + System.lineSeparator(), new String(read(dir, 2), "US-ASCII"));
+                assertThrows(IllegalArgumentException.class, () -> new CardGame().configure(new String[] { "--stream-decks=0" }));
+        }
+}
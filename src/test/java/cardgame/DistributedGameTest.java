@@ -0,0 +1,215 @@
+package cardgame;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+public class DistributedGameTest {
+
+        @TempDir
+        File dir;
+
+        // player 1 holds three 1s and finds the fourth as the second card of deck 1
+        private static final int[] PLAYER_ONE_WINS = { 1, 10, 20, 1, 11, 21, 1, 12, 22, 9, 13, 23,
+                        5, 14, 24, 1, 15, 25, 6, 16, 26, 7, 17, 27 };
+
+        private static List<Card> cards(int... values) {
+                List<Card> pack = new ArrayList<>();
+                for (int v : values)
+                        pack.add(new Card(v));
+                return pack;
+        }
+
+        private String file(String name) throws IOException {
+                return new String(Files.readAllBytes(new File(dir, name).toPath()), StandardCharsets.US_ASCII);
+        }
+
+        private File packFile(List<Card> pack) throws IOException {
+                File file = File.createTempFile("pack", ".txt", dir);
+                StringBuilder sb = new StringBuilder();
+                for (Card c : pack)
+                        sb.append(c.getDenomination()).append('\n');
+                Files.write(file.toPath(), sb.toString().getBytes(StandardCharsets.US_ASCII));
+                return file;
+        }
+
+        // Values after the given marker on the first line containing it
+        private List<Integer> valuesAfter(String text, String marker) {
+                int at = text.indexOf(marker);
+                assertTrue(at >= 0, marker);
+                int end = text.indexOf('\n', at);
+                List<Integer> values = new ArrayList<>();
+                for (String v : text.substring(at + marker.length(), end < 0 ? text.length() : end).trim().split("\\s+"))
+                        if (!v.isEmpty())
+                                values.add(Integer.parseInt(v));
+                return values;
+        }
+
+        private static Thread[] startNodes(DistributedGame game) {
+                Thread[] threads = new Thread[game.nodes];
+                for (int k = 0; k < threads.length; k++) {
+                        DistributedNode node = new DistributedNode(game.getPort());
+                        threads[k] = new Thread(() -> {
+                                try {
+                                        node.play();
+                                } catch (IOException | InterruptedException e) {
+                                        throw new IllegalStateException(e);
+                                }
+                        });
+                        threads[k].start();
+                }
+                return threads;
+        }
+
+        private int countDraws(int player) throws IOException {
+                File log = new File(dir, "player" + player + "_output.txt");
+                if (!log.exists())
+                        return 0;
+                String text = file(log.getName());
+                int draws = 0;
+                for (int at = text.indexOf(" draws a "); at >= 0; at = text.indexOf(" draws a ", at + 1))
+                        draws++;
+                return draws;
+        }
+
+        // Every card of the pack is in a final hand of a player log or in a deck output file written by the nodes
+        private void assertConserved(int n, List<Card> pack) throws IOException {
+                IntCountMap expected = new IntCountMap();
+                for (Card c : pack)
+                        expected.increment(c.getDenomination());
+                IntCountMap actual = new IntCountMap();
+                for (int i = 1; i <= n; i++) {
+                        List<Integer> hand = valuesAfter(file("player" + i + "_output.txt"), "final hand:");
+                        assertEquals(4, hand.size());
+                        for (int v : hand)
+                                actual.increment(v);
+                        for (int v : valuesAfter(file("deck" + i + "_output.txt"), "contents:"))
+                                actual.increment(v);
+                }
+                assertEquals(expected, actual);
+        }
+
+        @Test
+        public void testWinnerFoundAcrossNodes() throws Exception {
+                for (int nodes = 1; nodes <= 3; nodes++) {
+                        DistributedGame game = new DistributedGame(nodes, 0);
+                        Thread[] threads = startNodes(game);
+                        assertEquals(1, game.play(3, packFile(cards(PLAYER_ONE_WINS)), dir, 1), "nodes " + nodes);
+                        for (Thread t : threads)
+                                t.join(10000);
+                        assertConserved(3, cards(PLAYER_ONE_WINS));
+                        String log = file("player1_output.txt");
+                        assertTrue(log.contains("player 1 final hand: 1 1 1 1"));
+                        assertTrue(log.startsWith("player 1 initial hand is 1 1 1 9"));
+                        assertTrue(log.contains("player 1 wins"));
+                        assertTrue(file("player3_output.txt").contains("player 1 has informed player 3 that player 1 has won"));
+                        assertTrue(file("deck1_output.txt").startsWith("deck1 contents:"));
+                }
+        }
+
+        @Test
+        public void testStopFromCoordinatorKeepsEveryCard() throws Exception {
+                int n = 40;
+                List<Card> pack = new PackGenerator(n, PackGenerator.Distribution.UNWINNABLE, 1, 5L).generateCards();
+                DistributedGame game = new DistributedGame(3, 0);
+                Thread[] threads = startNodes(game);
+                // abort only once a card has crossed from node 1 (players 1-13) to node 2: player 14 has drawn
+                // more than the four cards its deck was dealt
+                Thread stopper = new Thread(() -> {
+                        long deadline = System.nanoTime() + 20000000000L;
+                        try {
+                                while (System.nanoTime() < deadline && countDraws(14) <= 4)
+                                        Thread.sleep(5);
+                        } catch (InterruptedException | IOException e) {
+                                // abort anyway
+                        }
+                        game.abort("time limit reached");
+                });
+                stopper.start();
+                assertEquals(-1, game.play(n, packFile(pack), dir, 4));
+                for (Thread t : threads)
+                        t.join(10000);
+                assertConserved(n, pack);
+                assertTrue(game.cardsMoved > 0);
+                for (int i = 1; i <= n; i++) {
+                        String log = file("player" + i + "_output.txt");
+                        assertTrue(log.contains("game aborted: time limit reached"), log);
+                        assertTrue(log.contains("player " + i + " exits"));
+                }
+                // cards crossed from the last player of node 1 (player 13) to node 2's first deck
+                assertTrue(file("player13_output.txt").contains("player 13 discards a "));
+                assertTrue(file("player14_output.txt").contains("from deck 14"));
+                assertTrue(countDraws(14) > 4, "no card crossed to node 2 before the abort");
+        }
+
+        @Test
+        public void testDealtWinnerAndBadSetups() throws Exception {
+                DistributedGame game = new DistributedGame(2, 0);
+                Thread[] threads = startNodes(game);
+                int[] values = { 4, 2, 4, 2, 4, 2, 4, 2, 1, 1, 1, 1, 3, 3, 3, 3 };
+                assertEquals(1, game.play(2, packFile(cards(values)), dir, 1));
+                for (Thread t : threads)
+                        t.join(10000);
+                assertEquals(0, game.cardsMoved);
+                assertTrue(file("player2_output.txt").contains("player 1 has informed player 2"));
+                assertConserved(2, cards(values));
+
+                File pack = packFile(cards(values));
+                assertThrows(IllegalArgumentException.class, () -> new DistributedGame(3, 0).play(2, pack, dir, 1));
+                IOException e = assertThrows(IOException.class,
+                                () -> new DistributedGame(1, 0).play(2, packFile(cards(1, 2)), dir, 1));
+                assertTrue(e.getMessage().contains("Invalid pack size"));
+                assertThrows(IllegalArgumentException.class, () -> new DistributedGame(0, 0));
+        }
+
+        @Test
+        public void testNodesInSeparateJvms() throws Exception {
+                DistributedGame game = new DistributedGame(2, 0);
+                List<Process> processes = game.spawnNodes();
+                try {
+                        assertEquals(1, game.play(3, packFile(cards(PLAYER_ONE_WINS)), dir, 1));
+                        for (Process p : processes)
+                                assertTrue(p.waitFor(30, TimeUnit.SECONDS));
+                } finally {
+                        for (Process p : processes)
+                                p.destroy();
+                }
+                assertConserved(3, cards(PLAYER_ONE_WINS));
+                assertTrue(file("player1_output.txt").contains("player 1 wins"));
+        }
+
+        @Test
+        public void testBinaryAndGzipPacksStreamTheSameDeal() throws Exception {
+                List<Card> pack = cards(PLAYER_ONE_WINS);
+                File binary = new File(dir, "pack.bin");
+                try (DataOutputStream out = new DataOutputStream(new FileOutputStream(binary))) {
+                        out.writeInt(CardPackLoader.BINARY_MAGIC);
+                        out.writeLong(pack.size());
+                        for (Card c : pack)
+                                out.writeInt(c.getDenomination());
+                }
+                File gzip = new File(dir, "pack.txt.gz");
+                try (OutputStream out = new java.util.zip.GZIPOutputStream(new FileOutputStream(gzip))) {
+                        out.write(Files.readAllBytes(packFile(pack).toPath()));
+                }
+                for (File file : new File[] { binary, gzip }) {
+                        List<Integer> values = new ArrayList<>();
+                        DistributedGame.streamPack(file, values::add);
+                        assertEquals(pack.size(), values.size());
+                        for (int i = 0; i < values.size(); i++)
+                                assertEquals(pack.get(i).getDenomination(), (int) values.get(i));
+                        DistributedGame game = new DistributedGame(2, 0);
+                        Thread[] threads = startNodes(game);
+                        assertEquals(1, game.play(3, file, dir, 1), file.getName());
+                        for (Thread t : threads)
+                                t.join(10000);
+                        assertConserved(3, pack);
+                }
+        }
+}
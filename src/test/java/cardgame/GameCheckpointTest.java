@@ -0,0 +1,160 @@
+package cardgame;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+public class GameCheckpointTest {
+
+        @TempDir
+        File dir;
+
+        private CardGame newGame() {
+                CardGame game = new CardGame();
+                game.outputDirectory = dir;
+                game.turnDelayMillis = 0;
+                return game;
+        }
+
+        private String log(int id) throws IOException {
+                return new String(Files.readAllBytes(new File(dir, "player" + id + "_output.txt").toPath()),
+                                StandardCharsets.US_ASCII);
+        }
+
+        private static int occurrences(String text, String part) {
+                int count = 0;
+                for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1))
+                        count++;
+                return count;
+        }
+
+        @Test
+        public void testCheckpointRunningGameAndResume() throws Exception {
+                int n = 4;
+                CardGame game = newGame();
+                List<Card> pack = new PackGenerator(n, PackGenerator.Distribution.UNWINNABLE, 1, 21L).generateCards();
+                game.initialiseGame(n, pack);
+                game.startPlayers();
+                Thread.sleep(100);
+                File file = new File(dir, "game.ckpt");
+                CheckpointWriter writer = new CheckpointWriter(game, file, 1000);
+                assertTrue(writer.checkpoint());
+                assertEquals(1, writer.written);
+                assertTrue(writer.summary().startsWith("Checkpoints written to " + file + ": 1 (max pause "));
+                Thread.sleep(50);
+                game.declareWinner(1);
+                game.waitForPlayersToFinish();
+                assertThrows(IllegalStateException.class, () -> GameCheckpoint.capture(game));
+
+                GameSnapshot saved = GameCheckpoint.read(file);
+                assertEquals(8 * n, saved.totalCards());
+                IntCountMap expected = new IntCountMap();
+                for (Card c : pack)
+                        expected.increment(c.getDenomination());
+                assertEquals(expected, saved.denominations());
+                for (int i = 0; i < n; i++) {
+                        assertEquals(4, saved.hands[i].length);
+                        String before = log(i + 1).substring(0, (int) saved.logOffsets[i]);
+                        assertTrue(before.startsWith("player " + (i + 1) + " initial hand is "));
+                        assertTrue(before.endsWith(System.lineSeparator()));
+                        assertTrue(saved.cardsMoved[i] <= game.players.get(i).cardsMoved);
+                }
+
+                CardGame resumed = newGame();
+                List<Card> cards = GameCheckpoint.resume(resumed, file);
+                assertEquals(8 * n, cards.size());
+                for (int i = 0; i < n; i++) {
+                        Player p = resumed.players.get(i);
+                        assertEquals(saved.rngStates[i], p.rngState);
+                        assertEquals(saved.cardsMoved[i], p.cardsMoved);
+                        assertArrayEquals(saved.decks[i], GameSnapshot.capture(resumed).decks[i]);
+                        assertSame(resumed.decks.get((i + 1) % n), p.rightDeck);
+                        assertEquals(saved.logOffsets[i], new File(dir, "player" + (i + 1) + "_output.txt").length());
+                }
+
+                resumed.startPlayers();
+                Thread.sleep(50);
+                resumed.declareWinner(2);
+                resumed.waitForPlayersToFinish();
+                for (int i = 1; i <= n; i++) {
+                        String log = log(i);
+                        assertEquals(1, occurrences(log, "initial hand is"), log);
+                        assertEquals(1, occurrences(log, "player " + i + " exits"), log);
+                        assertTrue(log.contains("player 2 has informed player " + i) || i == 2);
+                }
+                assertEquals(expected, GameSnapshot.capture(resumed).denominations());
+        }
+
+        @Test
+        public void testSameRngStateGivesSameDiscards() throws IOException {
+                CardGame game = newGame();
+                List<Card> hand = Arrays.asList(new Card(5), new Card(6), new Card(7), new Card(8));
+                Player a = new Player(1, new CardDeck(1), new CardDeck(2), game, new PrintWriter(new StringWriter()));
+                Player b = new Player(1, new CardDeck(1), new CardDeck(2), game, new PrintWriter(new StringWriter()));
+                a.setInitialHand(hand);
+                b.setInitialHand(hand);
+                a.rngState = b.rngState = 12345L;
+                for (int i = 0; i < 50; i++)
+                        assertSame(a.selectDiscard(), b.selectDiscard());
+                for (int i = 0; i < 1000; i++) {
+                        int r = a.nextRandom(3);
+                        assertTrue(r >= 0 && r < 3);
+                }
+        }
+
+        @Test
+        public void testRejectsForeignAndTruncatedFiles() throws IOException {
+                File bad = new File(dir, "bad.ckpt");
+                Files.write(bad.toPath(), "not a checkpoint".getBytes(StandardCharsets.US_ASCII));
+                IOException e = assertThrows(IOException.class, () -> GameCheckpoint.read(bad));
+                assertTrue(e.getMessage().startsWith("Not a game checkpoint"));
+
+                CardGame game = newGame();
+                game.initialiseGame(2, new PackGenerator(2, PackGenerator.Distribution.UNWINNABLE, 1, 3L).generateCards());
+                for (Player p : game.players)
+                        p.logInitialHand();
+                File good = new File(dir, "good.ckpt");
+                GameCheckpoint.write(GameCheckpoint.capture(game), good);
+                byte[] bytes = Files.readAllBytes(good.toPath());
+                // 3 header ints, decks of 4 cards, hands of 4 cards plus three longs per player
+                assertEquals(12 + 2 * (4 + 16) + 2 * (4 + 16 + 24), bytes.length);
+                Files.write(bad.toPath(), Arrays.copyOf(bytes, bytes.length - 5));
+                e = assertThrows(IOException.class, () -> GameCheckpoint.read(bad));
+                assertTrue(e.getMessage().startsWith("Truncated game checkpoint"));
+        }
+
+        @Test
+        public void testCheckpointNeedsStartedPlayersAndPlainLogs() throws IOException {
+                CardGame game = newGame();
+                game.initialiseGame(2, new PackGenerator(2, PackGenerator.Distribution.UNWINNABLE, 1, 3L).generateCards());
+                assertThrows(IllegalStateException.class, () -> GameCheckpoint.capture(game));
+                assertFalse(new CheckpointWriter(game, new File(dir, "x.ckpt"), 10).checkpoint());
+                assertFalse(new File(dir, "x.ckpt").exists());
+
+                assertThrows(IllegalArgumentException.class,
+                                () -> new CardGame().configure(new String[] { "--archive=a.cga", "--checkpoint=c.ckpt" }));
+                CardGame configured = new CardGame();
+                configured.configure(new String[] { "--checkpoint=c.ckpt", "--checkpoint-interval=500", "--resume=r.ckpt" });
+                assertEquals(new File("c.ckpt"), configured.checkpointFile);
+                assertEquals(500, configured.checkpointIntervalMillis);
+                assertEquals(new File("r.ckpt"), configured.resumeFile);
+        }
+
+        @Test
+        public void testResumeRejectsShortLog() throws Exception {
+                CardGame game = newGame();
+                game.initialiseGame(2, new PackGenerator(2, PackGenerator.Distribution.UNWINNABLE, 1, 3L).generateCards());
+                for (Player p : game.players)
+                        p.logInitialHand();
+                File file = new File(dir, "game.ckpt");
+                GameCheckpoint.write(GameCheckpoint.capture(game), file);
+                new FileWriter(new File(dir, "player2_output.txt")).close();
+                IOException e = assertThrows(IOException.class, () -> GameCheckpoint.resume(newGame(), file));
+                assertEquals("Cannot resume: player2_output.txt is shorter than the checkpoint", e.getMessage());
+        }
+}
@@ -0,0 +1,131 @@
+package cardgame;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+public class GameSolverTest {
+
+        private static List<Card> pack(int... values) {
+                List<Card> pack = new ArrayList<>();
+                for (int v : values)
+                        pack.add(new Card(v));
+                return pack;
+        }
+
+        @Test
+        public void testSinglePlayerWinsOnSecondTurn() {
+                // hand 1,1,1,3; the deck yields a junk card first and the fourth 1 second
+                GameSolver.Result r = new GameSolver(1, pack(1, 1, 1, 3, 2, 1, 5, 6)).solve();
+                assertEquals(2, r.states);
+                assertEquals(1.0, r.winProbability[0], 1e-12);
+                assertEquals(2.0, r.expectedTurns, 1e-9);
+                assertTrue(r.toReport().contains("player 1 wins with probability 1.000000000000"));
+        }
+
+        @Test
+        public void testDealtWinnerNeedsNoTurns() {
+                GameSolver.Result r = new GameSolver(2, pack(1, 7, 2, 7, 1, 7, 2, 7, 1, 2, 1, 2, 3, 4, 5, 6)).solve();
+                assertArrayEquals(new double[] { 0, 1 }, r.winProbability, 0);
+                assertEquals(0, r.expectedTurns, 0);
+        }
+
+        @Test
+        public void testGameThatCannotEnd() {
+                // no value occurs four times, so nobody can ever hold four of a kind
+                GameSolver.Result r = new GameSolver(2, pack(1, 2, 1, 2, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12)).solve();
+                assertEquals(0, r.winProbability[0], 0);
+                assertEquals(0, r.winProbability[1], 0);
+                assertEquals(1.0, r.getNoWinnerProbability(), 0);
+                assertTrue(Double.isInfinite(r.expectedTurns));
+                assertTrue(r.toReport().contains("expected turns: infinite"));
+        }
+
+        @Test
+        public void testJunkValuesShareOneCode() {
+                List<Card> distinct = pack(1, 2, 1, 2, 1, 9, 2, 10, 11, 1, 12, 2, 13, 14, 15, 16);
+                List<Card> merged = pack(1, 2, 1, 2, 1, 9, 2, 9, 9, 1, 9, 2, 9, 9, 9, 9);
+                GameSolver.Result a = new GameSolver(2, distinct).solve();
+                // nine copies of 9 could win, so the merged pack must keep it distinct and explore no fewer states
+                GameSolver.Result b = new GameSolver(2, merged).solve();
+                assertTrue(a.states <= b.states);
+                assertEquals(1.0, a.winProbability[0] + a.winProbability[1], 1e-9);
+        }
+
+        @Test
+        public void testMatchesSimulationOfTheSameModel() {
+                List<Card> cards = pack(1, 2, 2, 1, 3, 3, 1, 2, 3, 3, 2, 1, 1, 2, 3, 4);
+                GameSolver.Result exact = new GameSolver(2, cards, 1000000, 4).solve();
+                int games = 20000;
+                double[] wins = new double[2];
+                double turns = 0;
+                Random random = new Random(7);
+                for (int g = 0; g < games; g++) {
+                        int[] outcome = simulate(2, cards, random);
+                        wins[outcome[0]]++;
+                        turns += outcome[1];
+                }
+                for (int s = 0; s < 2; s++) {
+                        double p = exact.winProbability[s];
+                        double sigma = Math.sqrt(p * (1 - p) / games);
+                        assertEquals(p, wins[s] / games, 5 * sigma + 1e-9, "player " + (s + 1));
+                }
+                assertEquals(exact.expectedTurns, turns / games, 0.1 * exact.expectedTurns);
+        }
+
+        @Test
+        public void testThreadCountDoesNotChangeTheAnswer() {
+                List<Card> cards = pack(1, 2, 2, 1, 3, 3, 1, 2, 3, 3, 2, 1, 1, 2, 3, 4);
+                GameSolver.Result one = new GameSolver(2, cards, 1000000, 1).solve();
+                GameSolver.Result many = new GameSolver(2, cards, 1000000, 4).solve();
+                assertEquals(one.states, many.states);
+                assertEquals(one.transitions, many.transitions);
+                assertArrayEquals(one.winProbability, many.winProbability, 1e-9);
+                assertEquals(one.expectedTurns, many.expectedTurns, 1e-6 * one.expectedTurns);
+        }
+
+        @Test
+        public void testStateLimit() {
+                List<Card> cards = pack(1, 2, 2, 1, 3, 3, 1, 2, 3, 3, 2, 1, 1, 2, 3, 4);
+                IllegalStateException e = assertThrows(IllegalStateException.class,
+                                () -> new GameSolver(2, cards, 10, 2).solve());
+                assertTrue(e.getMessage().startsWith("More than 10 reachable states"));
+                assertThrows(IllegalArgumentException.class, () -> new GameSolver(2, pack(1, 2, 3)));
+        }
+
+        // One game of the solver's model: a uniformly chosen player with a non-empty left deck moves
+        private static int[] simulate(int n, List<Card> cards, Random random) {
+                List<List<Integer>> hands = new ArrayList<>();
+                List<Deque<Integer>> decks = new ArrayList<>();
+                for (int i = 0; i < n; i++) {
+                        hands.add(new ArrayList<>());
+                        decks.add(new ArrayDeque<>());
+                }
+                for (int k = 0; k < 4 * n; k++)
+                        hands.get(k % n).add(cards.get(k).getDenomination());
+                for (int k = 4 * n; k < 8 * n; k++)
+                        decks.get((k - 4 * n) % n).addLast(cards.get(k).getDenomination());
+                for (int turns = 0;; turns++) {
+                        for (int s = 0; s < n && turns == 0; s++)
+                                if (new HashSet<>(hands.get(s)).size() == 1)
+                                        return new int[] { s, 0 };
+                        List<Integer> movers = new ArrayList<>();
+                        for (int s = 0; s < n; s++)
+                                if (!decks.get(s).isEmpty())
+                                        movers.add(s);
+                        int p = movers.get(random.nextInt(movers.size()));
+                        List<Integer> hand = hands.get(p);
+                        hand.add(decks.get(p).pollFirst());
+                        List<Integer> candidates = new ArrayList<>();
+                        for (int j = 0; j < hand.size(); j++)
+                                if (hand.get(j) != p + 1)
+                                        candidates.add(j);
+                        int j = candidates.isEmpty() ? random.nextInt(hand.size())
+                                        : candidates.get(random.nextInt(candidates.size()));
+                        decks.get((p + 1) % n).addLast(hand.remove(j));
+                        if (new HashSet<>(hand).size() == 1)
+                                return new int[] { p, turns + 1 };
+                }
+        }
+}
@@ -0,0 +1,67 @@
+package cardgame;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntCountMapTest {
+
+        @Test
+        public void testIncrementAndGet() {
+                IntCountMap map = new IntCountMap();
+                map.increment(3);
+                map.increment(3);
+                map.increment(0);
+                assertEquals(2, map.get(3));
+                assertEquals(1, map.get(0));
+                assertEquals(0, map.get(7));
+                assertEquals(2, map.size());
+                assertEquals(3, map.total());
+        }
+
+        @Test
+        public void testGrowKeepsCounts() {
+                IntCountMap map = new IntCountMap(2);
+                for (int i = 0; i < 10000; i++)
+                        map.add(i, i + 1);
+                assertEquals(10000, map.size());
+                for (int i = 0; i < 10000; i++)
+                        assertEquals(i + 1, map.get(i));
+        }
+
+        @Test
+        public void testSortedKeysAndMerge() {
+                IntCountMap a = new IntCountMap();
+                IntCountMap b = new IntCountMap();
+                a.increment(9);
+                a.increment(2);
+                b.increment(2);
+                b.increment(5);
+                a.addAll(b);
+                assertArrayEquals(new int[] { 2, 5, 9 }, a.sortedKeys());
+                assertEquals(2, a.get(2));
+        }
+
+        @Test
+        public void testEqualsIgnoresInsertionOrder() {
+                IntCountMap a = new IntCountMap();
+                IntCountMap b = new IntCountMap(1000);
+                a.increment(1);
+                a.increment(4);
+                b.increment(4);
+                b.increment(1);
+                assertEquals(a, b);
+                assertEquals(a.hashCode(), b.hashCode());
+                b.increment(1);
+                assertNotEquals(a, b);
+        }
+
+        @Test
+        public void testClearAndNegativeKey() {
+                IntCountMap map = new IntCountMap();
+                map.increment(1);
+                map.clear();
+                assertEquals(0, map.size());
+                assertEquals(0, map.get(1));
+                assertThrows(IllegalArgumentException.class, () -> map.increment(-1));
+        }
+}
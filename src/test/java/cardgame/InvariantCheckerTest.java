@@ -0,0 +1,131 @@
+package cardgame;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.util.*;
+
+public class InvariantCheckerTest {
+
+        private static CardGame gameWithArchive() throws IOException {
+                File archive = File.createTempFile("invariants", ".cga");
+                archive.deleteOnExit();
+                CardGame game = new CardGame();
+                game.outputArchive = new OutputArchive(archive);
+                game.archiveFile = archive;
+                return game;
+        }
+
+        private static InvariantChecker checker(CardGame game, List<Card> pack, double rate) throws IOException {
+                InvariantChecker checker = new InvariantChecker(game, pack, rate, 0);
+                checker.dumpFile = File.createTempFile("invariant", ".txt");
+                checker.dumpFile.deleteOnExit();
+                return checker;
+        }
+
+        // Small ring, no turn delay and a pack nobody can win: every player contends for both decks
+        // for the whole run while the checker snapshots as often as it can
+        private static void hammer(String... options) throws Exception {
+                CardGame game = gameWithArchive();
+                game.configure(options);
+                game.turnDelayMillis = 0;
+                int n = 4;
+                List<Card> pack = new PackGenerator(n, PackGenerator.Distribution.UNWINNABLE, 1, 42L).generateCards();
+                game.initialiseGame(n, pack);
+                InvariantChecker checker = checker(game, pack, 1.0);
+                Thread runner = new Thread(game::playGame);
+                runner.start();
+                checker.start();
+                Thread.sleep(300);
+                game.declareWinner(1);
+                runner.join(10000);
+                checker.join(10000);
+                assertFalse(runner.isAlive());
+                assertNull(checker.getFailure(), checker.getFailure());
+                assertTrue(checker.checkNow());
+                assertTrue(checker.checks > 1);
+                assertTrue(game.getTurnMetrics().cardsMoved > 0);
+                game.closeOutputArchive();
+        }
+
+        @Test
+        public void testLockingPlayersUnderContention() throws Exception {
+                hammer("--quantum=1");
+        }
+
+        @Test
+        public void testOptimisticPlayersUnderContention() throws Exception {
+                hammer("--turn-mode=optimistic");
+        }
+
+        @Test
+        public void testTaskEngineUnderContention() throws Exception {
+                hammer("--engine=tasks", "--workers=2", "--quantum=3");
+        }
+
+        @Test
+        public void testDuplicatedCardAbortsGameWithDump() throws Exception {
+                CardGame game = gameWithArchive();
+                List<Card> pack = new PackGenerator(2, PackGenerator.Distribution.UNWINNABLE, 1, 7L).generateCards();
+                game.initialiseGame(2, pack);
+                InvariantChecker checker = checker(game, pack, 1.0);
+                assertTrue(checker.checkNow());
+
+                game.decks.get(1).addCard(new Card(pack.get(0).getDenomination()));
+                assertFalse(checker.checkNow());
+                assertTrue(game.isGameOver());
+                assertEquals(-1, game.getWinnerId());
+                assertEquals("card conservation invariant violated", game.getAbortReason());
+
+                String dump = new String(java.nio.file.Files.readAllBytes(checker.dumpFile.toPath()), "UTF-8");
+                assertEquals(checker.getFailure(), dump);
+                assertTrue(dump.contains("total cards: expected 16, found 17"));
+                assertTrue(dump.contains("value " + pack.get(0).getDenomination() + ": expected "));
+                assertTrue(dump.contains("deck2: "));
+
+                for (Player p : game.players)
+                        p.logGameEnd();
+                game.closeOutputArchive();
+                assertTrue(OutputArchive.readEntry(game.archiveFile, "player1_output.txt")
+                                .contains("game aborted: card conservation invariant violated"));
+        }
+
+        @Test
+        public void testSwappedDenominationIsDetected() throws Exception {
+                CardGame game = gameWithArchive();
+                List<Card> pack = new PackGenerator(2, PackGenerator.Distribution.UNWINNABLE, 1, 7L).generateCards();
+                game.initialiseGame(2, pack);
+                InvariantChecker checker = checker(game, pack, 1.0);
+                game.decks.get(0).draw();
+                game.decks.get(0).addCard(new Card(999));
+                assertFalse(checker.checkNow());
+                assertTrue(checker.getFailure().contains("value 999: expected 0, found 1"));
+                game.closeOutputArchive();
+        }
+
+        @Test
+        public void testZeroRateNeverSnapshots() throws Exception {
+                CardGame game = gameWithArchive();
+                List<Card> pack = new PackGenerator(2, PackGenerator.Distribution.UNWINNABLE, 1, 7L).generateCards();
+                game.initialiseGame(2, pack);
+                InvariantChecker checker = new InvariantChecker(game, pack, 0.0, 1);
+                checker.start();
+                Thread.sleep(50);
+                game.declareWinner(2);
+                checker.join(5000);
+                assertEquals(0, checker.checks);
+                game.closeOutputArchive();
+        }
+
+        @Test
+        public void testRejectsInvalidRate() {
+                CardGame game = new CardGame();
+                assertThrows(IllegalArgumentException.class,
+                                () -> new InvariantChecker(game, new ArrayList<>(), 1.5, 10));
+                assertThrows(IllegalArgumentException.class, () -> game.configure(new String[] { "--check-invariants=2" }));
+                game.configure(new String[] { "--check-invariants=0.01", "--check-interval=250" });
+                assertEquals(0.01, game.invariantSampleRate);
+                assertEquals(250, game.invariantIntervalMillis);
+        }
+}
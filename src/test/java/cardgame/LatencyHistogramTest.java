@@ -0,0 +1,96 @@
+package cardgame;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LatencyHistogramTest {
+
+        @Test
+        public void testBucketsCoverEveryValueWithBoundedError() {
+                int previous = -1;
+                for (long v = 0; v < 100000; v++) {
+                        int index = LatencyHistogram.indexOf(v);
+                        assertTrue(index == previous || index == previous + 1, "gap at " + v);
+                        previous = index;
+                        assertTrue(LatencyHistogram.lowestValueAt(index) <= v);
+                        assertTrue(LatencyHistogram.highestValueAt(index) >= v);
+                }
+                for (long v : new long[] { 1L << 20, 123456789L, 1L << 40, Long.MAX_VALUE }) {
+                        int index = LatencyHistogram.indexOf(v);
+                        assertTrue(index < LatencyHistogram.LENGTH);
+                        long width = LatencyHistogram.highestValueAt(index) - LatencyHistogram.lowestValueAt(index);
+                        assertTrue(width <= v / 16, "bucket too wide for " + v);
+                }
+        }
+
+        @Test
+        public void testPercentilesOfUniformValues() {
+                LatencyHistogram h = new LatencyHistogram();
+                for (long v = 1; v <= 10000; v++)
+                        h.record(v * 1000);
+                assertEquals(10000, h.getTotalCount());
+                assertEquals(10000000, h.getMax());
+                assertEquals(5000500.0, h.getMean(), 0.001);
+                assertEquals(5000000, h.getValueAtPercentile(50), 5000000 * 0.04);
+                assertEquals(9900000, h.getValueAtPercentile(99), 9900000 * 0.04);
+                assertEquals(9990000, h.getValueAtPercentile(99.9), 9990000 * 0.04);
+                assertEquals(h.getMax(), h.getValueAtPercentile(100));
+                assertThrows(IllegalArgumentException.class, () -> h.getValueAtPercentile(101));
+        }
+
+        @Test
+        public void testTailIsVisible() {
+                LatencyHistogram h = new LatencyHistogram();
+                for (int i = 0; i < 990; i++)
+                        h.record(100);
+                for (int i = 0; i < 10; i++)
+                        h.record(50000000);
+                assertEquals(100, h.getValueAtPercentile(99), 2);
+                assertEquals(50000000, h.getValueAtPercentile(99.9), 50000000 * 0.04);
+        }
+
+        @Test
+        public void testMergeMatchesCombinedRecording() {
+                LatencyHistogram a = new LatencyHistogram();
+                LatencyHistogram b = new LatencyHistogram();
+                LatencyHistogram both = new LatencyHistogram();
+                for (long v = 0; v < 5000; v++) {
+                        LatencyHistogram target = v % 3 == 0 ? a : b;
+                        target.record(v * v);
+                        both.record(v * v);
+                }
+                a.add(b);
+                assertEquals(both.getTotalCount(), a.getTotalCount());
+                assertEquals(both.getMax(), a.getMax());
+                assertEquals(both.getMean(), a.getMean(), 1e-9);
+                for (double p : new double[] { 1, 50, 90, 99, 99.9 })
+                        assertEquals(both.getValueAtPercentile(p), a.getValueAtPercentile(p));
+                a.reset();
+                assertEquals(0, a.getTotalCount());
+                assertEquals(0, a.getValueAtPercentile(99));
+        }
+
+        @Test
+        public void testConcurrentRecordingLosesNothing() throws InterruptedException {
+                LatencyHistogram h = new LatencyHistogram();
+                List<Thread> threads = new ArrayList<>();
+                for (int t = 0; t < 4; t++) {
+                        Thread thread = new Thread(() -> {
+                                for (int i = 0; i < 50000; i++)
+                                        h.record(i);
+                        });
+                        threads.add(thread);
+                        thread.start();
+                }
+                for (Thread t : threads)
+                        t.join();
+                assertEquals(200000, h.getTotalCount());
+                assertEquals(49999, h.getMax());
+                assertEquals(4, h.getCountAt(7));
+                h.record(-5);
+                assertEquals(5, h.getCountAt(0));
+        }
+}
@@ -0,0 +1,104 @@
+package cardgame;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.List;
+
+public class LatencyReporterTest {
+
+        @Test
+        public void testHistogramsAreOffByDefault() throws Exception {
+                File archive = File.createTempFile("latency", ".cga");
+                archive.deleteOnExit();
+                CardGame game = new CardGame();
+                game.outputArchive = new OutputArchive(archive);
+                game.initialiseGame(2, new PackGenerator(2, PackGenerator.Distribution.UNWINNABLE, 1, 3L).generateCards());
+                assertNull(game.decks.get(0).lockWaitHistogram);
+                assertNull(game.players.get(0).turnLatencyHistogram);
+                game.players.get(0).attemptAtomicTurn();
+                game.startLatencyReporter();
+                assertNull(game.latencyReporter);
+                game.closeOutputArchive();
+        }
+
+        @Test
+        public void testGameWritesPeriodicCsvRows() throws Exception {
+                File archive = File.createTempFile("latency", ".cga");
+                archive.deleteOnExit();
+                File csv = File.createTempFile("latency", ".csv");
+                csv.deleteOnExit();
+                CardGame game = new CardGame();
+                game.outputArchive = new OutputArchive(archive);
+                game.configure(new String[] { "--latency-csv=" + csv.getPath(), "--latency-interval=20", "--turn-delay=0" });
+                game.initialiseGame(3, new PackGenerator(3, PackGenerator.Distribution.UNWINNABLE, 1, 5L).generateCards());
+                game.startLatencyReporter();
+                Thread runner = new Thread(game::playGame);
+                runner.start();
+                Thread.sleep(150);
+                game.declareWinner(1);
+                runner.join(10000);
+                game.stopLatencyReporter();
+                game.closeOutputArchive();
+
+                List<String> lines = Files.readAllLines(csv.toPath());
+                assertEquals(LatencyReporter.HEADER, lines.get(0));
+                long rounds = lines.stream().filter(l -> l.contains(",all_players.turn,")).count();
+                assertTrue(rounds >= 2, "expected periodic rows, got " + rounds);
+                assertTrue(lines.stream().anyMatch(l -> l.contains(",deck3.lock_wait,")));
+
+                String last = lines.get(lines.size() - 1);
+                String[] fields = last.split(",");
+                assertEquals("all_players.turn", fields[1]);
+                // every turn is timed once, including those that failed to get a lock
+                assertTrue(Long.parseLong(fields[2]) >= game.getTurnMetrics().lockHolds);
+                assertTrue(game.getTurnMetrics().lockHolds > 0);
+                long p50 = Long.parseLong(fields[4]);
+                long p99 = Long.parseLong(fields[6]);
+                long max = Long.parseLong(fields[8]);
+                assertTrue(p50 <= p99 && p99 <= max);
+        }
+
+        @Test
+        public void testNonBlockingAndOptimisticTurnsAreTimed() throws Exception {
+                File archive = File.createTempFile("latency", ".cga");
+                archive.deleteOnExit();
+                File csv = File.createTempFile("latency", ".csv");
+                csv.deleteOnExit();
+                CardGame game = new CardGame();
+                game.outputArchive = new OutputArchive(archive);
+                game.initialiseGame(3, new PackGenerator(3, PackGenerator.Distribution.UNWINNABLE, 1, 5L).generateCards());
+                LatencyReporter reporter = new LatencyReporter(game, csv, 1000);
+                Player p = game.players.get(0);
+                assertTrue(p.attemptTurnNow());
+                assertTrue(p.attemptOptimisticTurn());
+                assertEquals(2, p.turnLatencyHistogram.getTotalCount());
+                // the task engine's tryLock on both decks is timed like the blocking one
+                assertEquals(1, p.leftDeck.lockWaitHistogram.getTotalCount());
+                assertEquals(1, p.rightDeck.lockWaitHistogram.getTotalCount());
+                reporter.finish();
+                game.closeOutputArchive();
+        }
+
+        @Test
+        public void testLargeRingsShareHistogramsByArc() {
+                for (int count : new int[] { 1, 5, LatencyReporter.MAX_ROWS, LatencyReporter.MAX_ROWS + 1, 1000, 100000 }) {
+                        int stripes = LatencyReporter.stripes(count).length;
+                        assertEquals(Math.min(count, LatencyReporter.MAX_ROWS), stripes);
+                        int next = 1;
+                        for (int s = 0; s < stripes; s++) {
+                                String[] range = LatencyReporter.label("deck", s, count).substring(4).split("-");
+                                int first = Integer.parseInt(range[0]);
+                                int last = Integer.parseInt(range[range.length - 1]);
+                                assertEquals(next, first, count + " decks, stripe " + s);
+                                for (int id = first; id <= last; id++)
+                                        assertEquals(s, LatencyReporter.stripeOf(id - 1, count));
+                                next = last + 1;
+                        }
+                        assertEquals(count + 1, next);
+                }
+                assertEquals("deck7", LatencyReporter.label("deck", 6, 10));
+        }
+}
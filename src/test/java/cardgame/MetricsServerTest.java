@@ -0,0 +1,148 @@
+package cardgame;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class MetricsServerTest {
+
+        private static Map<String, Double> parse(String text) {
+                Map<String, Double> values = new HashMap<>();
+                for (String line : text.split("\n")) {
+                        if (line.startsWith("#") || line.isEmpty())
+                                continue;
+                        int space = line.lastIndexOf(' ');
+                        values.put(line.substring(0, space), Double.parseDouble(line.substring(space + 1)));
+                }
+                return values;
+        }
+
+        private static String get(int port, String path) throws IOException {
+                HttpURLConnection c = (HttpURLConnection) new URL("http://127.0.0.1:" + port + path).openConnection();
+                try {
+                        assertEquals(200, c.getResponseCode());
+                        assertEquals(MetricsServer.CONTENT_TYPE, c.getContentType());
+                        try (InputStream in = c.getInputStream()) {
+                                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                                byte[] buffer = new byte[4096];
+                                int read;
+                                while ((read = in.read(buffer)) > 0)
+                                        out.write(buffer, 0, read);
+                                return new String(out.toByteArray(), StandardCharsets.UTF_8);
+                        }
+                } finally {
+                        c.disconnect();
+                }
+        }
+
+        @Test
+        public void testScrapeBeforeAndDuringGame() throws Exception {
+                File archive = File.createTempFile("metrics", ".cga");
+                archive.deleteOnExit();
+                CardGame game = new CardGame();
+                game.outputArchive = new OutputArchive(archive);
+                game.configure(new String[] { "--metrics-port=0", "--turn-delay=0" });
+                game.initialiseGame(3, new PackGenerator(3, PackGenerator.Distribution.UNWINNABLE, 1, 11L).generateCards());
+                game.startMetricsServer();
+                int port = game.metricsServer.getPort();
+                assertTrue(port > 0);
+                try {
+                        Map<String, Double> before = parse(get(port, "/metrics"));
+                        assertEquals(0.0, before.get("cardgame_turns_total"));
+                        assertEquals(0.0, before.get("cardgame_active_players"));
+                        assertEquals(3.0, before.get("cardgame_players"));
+                        assertEquals(4.0, before.get("cardgame_deck_depth{deck=\"2\"}"));
+                        assertEquals(0.0, before.get("cardgame_game_over"));
+                        assertEquals(-1.0, before.get("cardgame_winner"));
+                        assertNull(before.get("cardgame_quiesce_seconds"));
+
+                        Thread runner = new Thread(game::playGame);
+                        runner.start();
+                        Thread.sleep(200);
+                        Map<String, Double> during = parse(get(port, "/metrics"));
+                        assertTrue(during.get("cardgame_turns_total") > 0);
+                        // counters only; rates are left to the scraper
+                        assertFalse(during.keySet().stream().anyMatch(k -> k.contains("per_second")));
+                        assertEquals(3.0, during.get("cardgame_active_players"));
+                        // decks are read one at a time while cards move, so only each depth is bounded
+                        for (int d = 1; d <= 3; d++) {
+                                double depth = during.get("cardgame_deck_depth{deck=\"" + d + "\"}");
+                                assertTrue(depth >= 0 && depth <= 12);
+                        }
+                        double ratio = during.get("cardgame_lock_failure_ratio");
+                        assertTrue(ratio >= 0 && ratio <= 1);
+
+                        game.declareWinner(2);
+                        runner.join(10000);
+                        Map<String, Double> after = parse(get(port, "/metrics"));
+                        assertEquals(1.0, after.get("cardgame_game_over"));
+                        assertEquals(2.0, after.get("cardgame_winner"));
+                        assertEquals(0.0, after.get("cardgame_active_players"));
+                        assertTrue(after.get("cardgame_quiesce_seconds") >= 0);
+                        // the player threads have exited, yet neither counter goes back
+                        assertTrue(after.get("cardgame_turns_total") >= during.get("cardgame_turns_total"));
+                        if (during.containsKey("cardgame_jvm_allocated_bytes_total"))
+                                assertTrue(after.get("cardgame_jvm_allocated_bytes_total")
+                                                >= during.get("cardgame_jvm_allocated_bytes_total"));
+                } finally {
+                        game.stopMetricsServer();
+                        game.closeOutputArchive();
+                }
+        }
+
+        @Test
+        public void testRejectsOtherMethods() throws Exception {
+                MetricsServer server = new MetricsServer(new CardGame(), 0);
+                server.start();
+                try {
+                        HttpURLConnection c = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + "/metrics")
+                                        .openConnection();
+                        c.setRequestMethod("DELETE");
+                        assertEquals(405, c.getResponseCode());
+                        c.disconnect();
+                        String text = server.scrape();
+                        assertTrue(text.contains("# TYPE cardgame_turns_total counter\n"));
+                        assertTrue(text.contains("cardgame_turns_total 0\n"));
+                } finally {
+                        server.stop();
+                }
+        }
+
+        @Test
+        public void testThreadStartedAfterTheServerIsCountedFromZero() throws Exception {
+                MetricsServer server = new MetricsServer(new CardGame(), 0);
+                Map<String, Double> before = parse(server.scrape());
+                org.junit.jupiter.api.Assumptions.assumeTrue(before.containsKey("cardgame_jvm_allocated_bytes_total"),
+                                "JVM cannot measure allocation");
+                long[] sink = new long[1];
+                java.util.concurrent.CountDownLatch allocated = new java.util.concurrent.CountDownLatch(1);
+                java.util.concurrent.CountDownLatch scraped = new java.util.concurrent.CountDownLatch(1);
+                Thread worker = new Thread(() -> {
+                        for (int i = 0; i < 16; i++)
+                                sink[0] += new byte[1 << 20].length;
+                        allocated.countDown();
+                        try {
+                                scraped.await();
+                        } catch (InterruptedException e) {
+                                // just exit
+                        }
+                });
+                worker.start();
+                allocated.await();
+                Map<String, Double> after = parse(server.scrape());
+                scraped.countDown();
+                worker.join();
+                // first seen by this scrape, yet everything it allocated before it is counted
+                assertTrue(after.get("cardgame_jvm_allocated_bytes_total") - before.get("cardgame_jvm_allocated_bytes_total")
+                                >= 16 << 20);
+                // and the counter keeps it after the thread is gone
+                assertTrue(parse(server.scrape()).get("cardgame_jvm_allocated_bytes_total")
+                                >= after.get("cardgame_jvm_allocated_bytes_total"));
+                server.stop();
+        }
+}
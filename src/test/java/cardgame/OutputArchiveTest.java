@@ -0,0 +1,134 @@
+package cardgame;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+
+public class OutputArchiveTest {
+
+        private static File tempArchive() throws IOException {
+                File f = File.createTempFile("outputs", ".cga");
+                f.deleteOnExit();
+                return f;
+        }
+
+        @Test
+        public void testWritersAndEntriesRoundTrip() throws IOException {
+                File file = tempArchive();
+                OutputArchive archive = new OutputArchive(file);
+                PrintWriter p1 = archive.openWriter("player1_output.txt");
+                PrintWriter p2 = archive.openWriter("player2_output.txt");
+                p1.println("player 1 initial hand is 1 2 3 4");
+                p2.println("player 2 initial hand is 5 6 7 8");
+                p1.println("player 1 exits");
+                p1.close();
+                archive.writeEntry("deck1_output.txt", "deck1 contents: 9 10\n");
+                archive.close();
+                p2.println("ignored after close");
+
+                assertEquals(Arrays.asList("player1_output.txt", "player2_output.txt", "deck1_output.txt"),
+                                OutputArchive.listEntries(file));
+                assertEquals("player 1 initial hand is 1 2 3 4\nplayer 1 exits\n".replace("\n", System.lineSeparator()),
+                                OutputArchive.readEntry(file, "player1_output.txt"));
+                assertTrue(OutputArchive.readEntry(file, "player2_output.txt").startsWith("player 2 initial hand"));
+                assertEquals("deck1 contents: 9 10\n", OutputArchive.readEntry(file, "deck1_output.txt"));
+        }
+
+        @Test
+        public void testLargeEntriesSpanSegmentsAndInterleave() throws IOException {
+                File file = tempArchive();
+                OutputArchive archive = new OutputArchive(file);
+                PrintWriter a = archive.openWriter("a.txt");
+                PrintWriter b = archive.openWriter("b.txt");
+                StringBuilder expectedA = new StringBuilder();
+                StringBuilder expectedB = new StringBuilder();
+                for (int i = 0; i < 20000; i++) {
+                        a.print("a" + i + "\n");
+                        expectedA.append("a").append(i).append('\n');
+                        b.print("b\u00e9" + i + "\n");
+                        expectedB.append("b\u00e9").append(i).append('\n');
+                }
+                a.close();
+                b.close();
+                archive.close();
+                assertTrue(OutputArchive.readIndex(file).get("a.txt").length > 1);
+                assertEquals(expectedA.toString(), OutputArchive.readEntry(file, "a.txt"));
+                assertEquals(expectedB.toString(), OutputArchive.readEntry(file, "b.txt"));
+                // at most one write per segment plus the header and index, never one per line
+                int segments = OutputArchive.readIndex(file).get("a.txt").length + OutputArchive.readIndex(file).get("b.txt").length;
+                assertTrue(archive.writeCalls <= segments + 2);
+        }
+
+        @Test
+        public void testExtractToDirectory() throws IOException {
+                File file = tempArchive();
+                OutputArchive archive = new OutputArchive(file);
+                archive.writeEntry("deck2_output.txt", "deck2 contents: 1\n");
+                archive.writeEntry("deck3_output.txt", "deck3 contents:\n");
+                archive.close();
+                File dir = Files.createTempDirectory("extract").toFile();
+                OutputArchive.extract(file, "deck2_output.txt", dir);
+                assertEquals("deck2 contents: 1\n", new String(Files.readAllBytes(new File(dir, "deck2_output.txt").toPath())));
+                OutputArchive.extractAll(file, dir);
+                assertTrue(new File(dir, "deck3_output.txt").exists());
+                assertThrows(FileNotFoundException.class, () -> OutputArchive.readEntry(file, "deck9_output.txt"));
+                for (File f : dir.listFiles())
+                        f.delete();
+                dir.delete();
+        }
+
+        @Test
+        public void testRejectsNonArchive() throws IOException {
+                File file = tempArchive();
+                try (PrintWriter pw = new PrintWriter(file)) {
+                        pw.println("not an archive at all");
+                }
+                assertThrows(IOException.class, () -> OutputArchive.listEntries(file));
+                OutputArchive archive = new OutputArchive(tempArchive());
+                archive.close();
+                assertThrows(IllegalStateException.class, () -> archive.openWriter("late.txt"));
+        }
+
+        @Test
+        public void testExtractRejectsNamesOutsideTheDirectory() throws IOException {
+                File file = tempArchive();
+                OutputArchive archive = new OutputArchive(file);
+                archive.writeEntry("deck1_output.txt", "deck1 contents: 1\n");
+                archive.writeEntry("../escaped_output.txt", "outside\n");
+                archive.close();
+                File parent = Files.createTempDirectory("extract").toFile();
+                File dir = new File(parent, "out");
+                dir.mkdir();
+                assertThrows(IOException.class, () -> OutputArchive.extract(file, "../escaped_output.txt", dir));
+                assertThrows(IOException.class, () -> OutputArchive.extractAll(file, dir));
+                assertFalse(new File(parent, "escaped_output.txt").exists());
+                // names are all checked before anything is written
+                assertFalse(new File(dir, "deck1_output.txt").exists());
+                dir.delete();
+                parent.delete();
+        }
+
+        @Test
+        public void testBufferBudgetBoundsManyOpenEntries() throws IOException {
+                File file = tempArchive();
+                long budget = 64 * 1024;
+                OutputArchive archive = new OutputArchive(file, budget);
+                List<PrintWriter> writers = new ArrayList<>();
+                for (int i = 0; i < 200; i++)
+                        writers.add(archive.openWriter("player" + i + "_output.txt"));
+                for (int round = 0; round < 50; round++) {
+                        for (int i = 0; i < writers.size(); i++)
+                                writers.get(i).print("player " + i + " draws a " + round + "\n");
+                        assertTrue(archive.bufferedBytes() <= budget + OutputArchive.SEGMENT_BYTES, "" + archive.bufferedBytes());
+                }
+                archive.close();
+                assertEquals(0, archive.bufferedBytes());
+                StringBuilder expected = new StringBuilder();
+                for (int round = 0; round < 50; round++)
+                        expected.append("player 7 draws a ").append(round).append('\n');
+                assertEquals(expected.toString(), OutputArchive.readEntry(file, "player7_output.txt"));
+        }
+}
@@ -0,0 +1,111 @@
+package cardgame;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+
+public class PackGeneratorTest {
+
+        private static File tempFile(String suffix) throws IOException {
+                File f = File.createTempFile("genpack", suffix);
+                f.deleteOnExit();
+                return f;
+        }
+
+        private static Map<Integer, Integer> counts(List<Card> pack) {
+                Map<Integer, Integer> counts = new HashMap<>();
+                for (Card c : pack)
+                        counts.merge(c.getDenomination(), 1, Integer::sum);
+                return counts;
+        }
+
+        @Test
+        public void testTextPackLoadsAndMatchesInMemoryGeneration() throws IOException {
+                PackGenerator gen = new PackGenerator(50, PackGenerator.Distribution.UNIFORM, 1, 42L, 64);
+                File out = tempFile(".txt");
+                gen.writeText(out, 4);
+                List<Card> loaded = CardPackLoader.loadPack(out, 50);
+                assertEquals(gen.generateCards(), loaded);
+                for (Card c : loaded)
+                        assertTrue(c.getDenomination() >= 1 && c.getDenomination() <= 50);
+        }
+
+        @Test
+        public void testOutputIndependentOfThreadCount() throws IOException {
+                PackGenerator gen = new PackGenerator(300, PackGenerator.Distribution.SKEWED, 1, 7L, 100);
+                File a = tempFile(".txt");
+                File b = tempFile(".txt");
+                gen.writeText(a, 1);
+                gen.writeText(b, 8);
+                assertArrayEquals(Files.readAllBytes(a.toPath()), Files.readAllBytes(b.toPath()));
+        }
+
+        @Test
+        public void testBinaryPackRoundTrip() throws IOException {
+                PackGenerator gen = new PackGenerator(40, PackGenerator.Distribution.UNIFORM, 1, 3L, 50);
+                File out = tempFile(".cpk");
+                gen.writeBinary(out, 3);
+                assertTrue(CardPackLoader.isBinaryPack(out));
+                assertEquals(CardPackLoader.BINARY_HEADER_BYTES + 4 * 320, out.length());
+                assertEquals(gen.generateCards(), CardPackLoader.loadPack(out, 40));
+                IOException ex = assertThrows(IOException.class, () -> CardPackLoader.loadBinaryPack(out, 41));
+                assertTrue(ex.getMessage().contains("Invalid pack size"));
+        }
+
+        @Test
+        public void testWinnablePackIsWonByTheSeatsFirstDrawNotTheDeal() throws IOException {
+                int n = 6;
+                List<Card> pack = new PackGenerator(n, PackGenerator.Distribution.WINNABLE, 4, 11L).generateCards();
+                for (int seat = 1; seat <= n; seat++) {
+                        List<Integer> hand = new ArrayList<>();
+                        for (int round = 0; round < 4; round++)
+                                hand.add(pack.get(round * n + seat - 1).getDenomination());
+                        assertTrue(new HashSet<>(hand).size() > 1, "seat " + seat + " won at the deal");
+                        if (seat == 4)
+                                assertEquals(Arrays.asList(4, 4, 4, 0), hand);
+                }
+                // the first card dealt to deck 4, the winning seat's left deck, completes its hand
+                assertEquals(4, pack.get(4 * n + 3).getDenomination());
+                File archive = File.createTempFile("winnable", ".cga");
+                archive.deleteOnExit();
+                CardGame game = new CardGame();
+                game.outputArchive = new OutputArchive(archive);
+                game.initialiseGame(n, pack);
+                assertEquals(-1, game.findInitialWinner());
+                game.closeOutputArchive();
+        }
+
+        @Test
+        public void testWinnablePackGamesEndOnTheFirstTurn() {
+                int n = 5;
+                BatchEngine.Result result = new BatchEngine(n, 4, 3L, 10,
+                                BatchEngine.generated(n, PackGenerator.Distribution.WINNABLE, 3L)).run(8);
+                for (int g = 0; g < result.winners.length; g++) {
+                        assertEquals(1, result.winners[g]);
+                        assertTrue(result.turns[g] > 0);
+                }
+        }
+
+        @Test
+        public void testUnwinnablePackHasAtMostThreeOfEachValue() {
+                for (int n : new int[] { 1, 2, 7, 100 }) {
+                        List<Card> pack = new PackGenerator(n, PackGenerator.Distribution.UNWINNABLE, 1, n).generateCards();
+                        assertEquals(8 * n, pack.size());
+                        for (int count : counts(pack).values())
+                                assertTrue(count <= 3);
+                }
+        }
+
+        @Test
+        public void testInvalidArguments() {
+                assertThrows(IllegalArgumentException.class,
+                                () -> new PackGenerator(0, PackGenerator.Distribution.UNIFORM, 1, 1L));
+                assertThrows(IllegalArgumentException.class,
+                                () -> new PackGenerator(3, PackGenerator.Distribution.WINNABLE, 4, 1L));
+                assertThrows(IllegalArgumentException.class, () -> PackGenerator.Distribution.parse("normal"));
+                assertEquals(PackGenerator.Distribution.SKEWED, PackGenerator.Distribution.parse("Skewed"));
+        }
+}
@@ -0,0 +1,65 @@
+package cardgame;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class PackParserTest {
+
+        private static List<Integer> parse(String text, int pieceSize) throws IOException {
+                List<Integer> values = new ArrayList<>();
+                PackParser parser = new PackParser(values::add);
+                byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                for (int i = 0; i < bytes.length; i += pieceSize)
+                        parser.feed(bytes, i, Math.min(pieceSize, bytes.length - i));
+                parser.finish();
+                return values;
+        }
+
+        @Test
+        public void testParsesLinesAcrossPieces() throws IOException {
+                assertEquals(Arrays.asList(12, 0, 7, 345), parse("12\n0\n7\n345", 1));
+                assertEquals(Arrays.asList(12, 0, 7, 345), parse("12\n0\n7\n345\n", 3));
+        }
+
+        @Test
+        public void testTrimsAndSkipsBlankLines() throws IOException {
+                assertEquals(Arrays.asList(4, 5, 6), parse("  4 \n\n\t5\r\n   \r\n+6\n", 2));
+        }
+
+        @Test
+        public void testNegativeValueMessage() {
+                IOException ex = assertThrows(IOException.class, () -> parse("1\n2\n-5\n", 4));
+                assertEquals("Invalid card value at line 3: -5 (cannot be negative)", ex.getMessage());
+        }
+
+        @Test
+        public void testNonIntegerMessage() {
+                IOException ex = assertThrows(IOException.class, () -> parse("1\r\n\r\n hello \n", 5));
+                assertEquals("Invalid card value at line 3: 'hello' (must be an integer)", ex.getMessage());
+        }
+
+        @Test
+        public void testOverflowIsNotAnInteger() {
+                assertThrows(IOException.class, () -> parse("2147483648\n", 64));
+                assertThrows(IOException.class, () -> parse("-\n", 64));
+        }
+
+        @Test
+        public void testBoundaryValues() throws IOException {
+                assertEquals(Arrays.asList(Integer.MAX_VALUE, 0, 7), parse("2147483647\n-0\n0007\n", 64));
+        }
+
+        @Test
+        public void testCountsCardsAndLines() throws IOException {
+                PackParser parser = new PackParser(v -> { });
+                byte[] bytes = "1\n\n2\n".getBytes(StandardCharsets.UTF_8);
+                parser.feed(bytes, 0, bytes.length);
+                parser.finish();
+                assertEquals(2, parser.getCardCount());
+                assertEquals(3, parser.getLineNumber());
+        }
+}
@@ -0,0 +1,84 @@
+package cardgame;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+
+public class PackStatisticsTest {
+
+        private static File writePack(int cards, int modulus) throws IOException {
+                File temp = File.createTempFile("statspack", ".txt");
+                temp.deleteOnExit();
+                try (PrintWriter pw = new PrintWriter(new BufferedWriter(new FileWriter(temp)))) {
+                        for (int i = 0; i < cards; i++)
+                                pw.println(i % modulus);
+                }
+                return temp;
+        }
+
+        @Test
+        public void testSmallPackSingleChunk() throws IOException {
+                File temp = File.createTempFile("statspack", ".txt");
+                temp.deleteOnExit();
+                try (PrintWriter pw = new PrintWriter(temp)) {
+                        pw.println("2");
+                        pw.println("");
+                        pw.println("2");
+                        pw.println("3");
+                        pw.println("0");
+                }
+                PackStatistics stats = PackStatistics.compute(temp, 1, 4);
+                assertEquals(4, stats.getTotalCards());
+                assertEquals(0, stats.getMin());
+                assertEquals(3, stats.getMax());
+                assertEquals(3, stats.getUniqueValues());
+                assertEquals(2, stats.getFrequency(2));
+                assertEquals(0, stats.getPreferredCount(1));
+                assertFalse(stats.hasValidSize());
+        }
+
+        @Test
+        public void testParallelMatchesSequential() throws IOException {
+                File pack = writePack(200000, 37);
+                PackStatistics sequential = PackStatistics.compute(pack, 25000, 1);
+                PackStatistics parallel = PackStatistics.compute(pack, 25000, 8);
+                assertEquals(200000, parallel.getTotalCards());
+                assertTrue(parallel.hasValidSize());
+                assertEquals(sequential.getUniqueValues(), parallel.getUniqueValues());
+                for (int v = 0; v < 37; v++)
+                        assertEquals(sequential.getFrequency(v), parallel.getFrequency(v));
+                assertEquals(0, parallel.getMin());
+                assertEquals(36, parallel.getMax());
+                assertEquals(36, parallel.getSeatsWithFourPreferred());
+        }
+
+        @Test
+        public void testInvalidValueReportsChunk() throws IOException {
+                File temp = writePack(100000, 10);
+                try (FileWriter fw = new FileWriter(temp, true)) {
+                        fw.write("oops\n");
+                }
+                IOException ex = assertThrows(IOException.class, () -> PackStatistics.compute(temp, 1, 4));
+                assertTrue(ex.getMessage().contains("'oops' (must be an integer)"));
+        }
+
+        @Test
+        public void testReportIsKeyValue() throws IOException {
+                File pack = writePack(16, 3);
+                StringWriter sw = new StringWriter();
+                PackStatistics.compute(pack, 2).writeReport(new PrintWriter(sw));
+                String report = sw.toString();
+                assertTrue(report.contains("cards=16"));
+                assertTrue(report.contains("validSize=true"));
+                assertTrue(report.contains("value.0=6"));
+                assertTrue(report.contains("seat.2.preferred=5"));
+                assertTrue(report.contains("seatsWithFourPreferred=2"));
+        }
+
+        @Test
+        public void testMissingFileAndInvalidPlayers() {
+                assertThrows(FileNotFoundException.class, () -> PackStatistics.compute(new File("missing_stats.txt"), 1));
+                assertThrows(IllegalArgumentException.class, () -> new PackStatistics(0));
+        }
+}
@@ -0,0 +1,95 @@
+package cardgame;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+public class PerfBaselineTest {
+
+        @TempDir
+        File dir;
+
+        @Test
+        public void testStatsAndTQuantile() {
+                PerfBaseline.Stats s = new PerfBaseline.Stats(new double[] { 2, 4, 4, 4, 5, 5, 7, 9 });
+                assertEquals(8, s.n);
+                assertEquals(5.0, s.mean, 1e-12);
+                assertEquals(Math.sqrt(32.0 / 7), s.stddev, 1e-12);
+                // tabulated two-sided 95% values
+                assertEquals(2.228, PerfBaseline.tQuantile975(10), 0.005);
+                assertEquals(2.086, PerfBaseline.tQuantile975(20), 0.002);
+                assertEquals(2.042, PerfBaseline.tQuantile975(30), 0.001);
+                assertEquals(0, new PerfBaseline.Stats(new double[] { 3 }).halfWidth());
+        }
+
+        @Test
+        public void testRegressionNeedsConfidentSlowdownBeyondThreshold() {
+                double[] base = { 100, 102, 98, 101, 99, 100, 103, 97, 100, 100 };
+                double[] same = { 101, 99, 100, 102, 98, 100, 97, 103, 100, 100 };
+                double[] slower = new double[base.length];
+                for (int i = 0; i < base.length; i++)
+                        slower[i] = base[i] * 1.3;
+                assertFalse(PerfBaseline.compare("x", base, same, 0.10).regressed);
+                PerfBaseline.Comparison c = PerfBaseline.compare("x", base, slower, 0.10);
+                assertTrue(c.regressed);
+                assertTrue(c.low > 10 && c.high > c.low);
+                assertTrue(c.toString().contains("REGRESSION"));
+                // a 30% slowdown is tolerated with a 50% threshold
+                assertFalse(PerfBaseline.compare("x", base, slower, 0.50).regressed);
+                // noisy samples widen the interval so the same mean shift is not conclusive
+                double[] noisy = { 60, 200, 80, 190, 70, 210, 90, 150, 100, 150 };
+                assertFalse(PerfBaseline.compare("x", base, noisy, 0.10).regressed);
+        }
+
+        @Test
+        public void testMeasureDiscardsWarmups() throws Exception {
+                int[] calls = { 0 };
+                double[] samples = PerfBaseline.measure(3, 5, 10, () -> calls[0]++);
+                assertEquals(5, samples.length);
+                assertEquals(80, calls[0]);
+                for (double v : samples)
+                        assertTrue(v >= 0);
+        }
+
+        @Test
+        public void testBaselineRoundTrip() throws IOException {
+                Map<String, double[]> results = new LinkedHashMap<>();
+                results.put("a.b", new double[] { 1.5, 2.25, 1e6 });
+                results.put("c", new double[0]);
+                File file = new File(dir, "nested/baseline.json");
+                PerfBaseline.write(file, results);
+                Map<String, double[]> back = PerfBaseline.read(file);
+                assertEquals(results.keySet(), back.keySet());
+                assertArrayEquals(results.get("a.b"), back.get("a.b"), 1e-9);
+                assertEquals(0, back.get("c").length);
+                assertTrue(new String(Files.readAllBytes(file.toPath()), StandardCharsets.US_ASCII).contains("\"version\": 1"));
+        }
+
+        @Test
+        public void testBaselinesAreKeyedByMachine() throws IOException {
+                String key = PerfBaseline.machineKey();
+                assertTrue(key.matches("[a-z0-9.]+(-[a-z0-9.]+)*-jdk[0-9.]+-[0-9]+cpu"), key);
+                assertTrue(key.contains("-jdk" + System.getProperty("java.specification.version").replace("1.8", "8")));
+                assertEquals(new File(dir, "baseline-" + key + ".json"), PerfBaseline.baselineFile(dir, key));
+                File file = PerfBaseline.baselineFile(dir, key);
+                PerfBaseline.write(file, Collections.singletonMap("x", new double[] { 1 }));
+                assertTrue(new String(Files.readAllBytes(file.toPath()), StandardCharsets.US_ASCII)
+                                .contains("\"machine\": \"" + key + "\""));
+                assertArrayEquals(new double[] { 1 }, PerfBaseline.read(file).get("x"), 1e-9);
+        }
+
+        @Test
+        public void testBadBaselinesAreRejected() throws IOException {
+                File file = new File(dir, "baseline.json");
+                for (String text : new String[] { "{\"version\": 2, \"benchmarks\": {}}", "{\"version\": 1}",
+                                "{\"version\": 1, \"benchmarks\": {\"a\": {}}}", "{\"version\": 1, ", "[1, 2] x", "{\"version\": x}" }) {
+                        Files.write(file.toPath(), text.getBytes(StandardCharsets.US_ASCII));
+                        assertThrows(IOException.class, () -> PerfBaseline.read(file), text);
+                }
+        }
+}
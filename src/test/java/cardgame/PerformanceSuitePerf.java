@@ -0,0 +1,107 @@
+package cardgame;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+/*
+ The performance suite. Not a *Test, so only the perf profile runs it:
+   mvn -Pperf test                         compare with this machine's baseline in perf/; fails if there is none
+   mvn -Pperf test -Dperf.update=true      record or replace this machine's baseline with this run
+   -Dperf.threshold=0.05 -Dperf.samples=30 tolerated slowdown and samples per benchmark
+   -Dperf.baseline=<file>                  use that baseline file instead
+ */
+public class PerformanceSuitePerf {
+        static final String TURN = "Player.performTurnAtomic";
+        static final String LOAD = "CardPackLoader.loadPack";
+
+        @Test
+        public void testNoRegressionAgainstBaseline() throws Exception {
+                String machine = PerfBaseline.machineKey();
+                String explicit = System.getProperty("perf.baseline", "");
+                File baseline = !explicit.isEmpty() ? new File(explicit)
+                                : PerfBaseline.baselineFile(new File(System.getProperty("perf.baseline.dir", "perf")), machine);
+                double threshold = Double.parseDouble(System.getProperty("perf.threshold", "0.10"));
+                int samples = Integer.parseInt(System.getProperty("perf.samples", "20"));
+                boolean update = Boolean.parseBoolean(System.getProperty("perf.update", "false"));
+
+                Map<String, double[]> results = new LinkedHashMap<>();
+                results.put(TURN, measureTurns(samples));
+                results.put(LOAD, measureLoad(samples));
+                for (Map.Entry<String, double[]> e : results.entrySet())
+                        System.out.println(e.getKey() + ": " + new PerfBaseline.Stats(e.getValue()));
+
+                if (update) {
+                        PerfBaseline.write(baseline, results);
+                        System.out.println("Baseline written to " + baseline);
+                        return;
+                }
+                // A missing baseline is a failure, not a silent first recording: nothing would ever be compared
+                assertTrue(baseline.exists(), "No baseline for " + machine + " at " + baseline
+                                + "; record one on this machine with -Dperf.update=true");
+                Map<String, double[]> old = PerfBaseline.read(baseline);
+                List<String> regressions = new ArrayList<>();
+                for (Map.Entry<String, double[]> e : results.entrySet()) {
+                        if (!old.containsKey(e.getKey())) {
+                                System.out.println(e.getKey() + ": not in the baseline yet");
+                                continue;
+                        }
+                        PerfBaseline.Comparison c = PerfBaseline.compare(e.getKey(), old.get(e.getKey()), e.getValue(), threshold);
+                        System.out.println(c);
+                        if (c.regressed)
+                                regressions.add(c.toString());
+                }
+                assertTrue(regressions.isEmpty(), "Slower than " + baseline + " by more than "
+                                + Math.round(threshold * 100) + "%:\n" + String.join("\n", regressions));
+        }
+
+        // One player on a single deck that is both its left and right deck, so turns never run out
+        private static double[] measureTurns(int samples) throws Exception {
+                CardGame game = new CardGame();
+                CardDeck deck = new CardDeck(1, 1024, CardRing.UNBOUNDED);
+                for (int i = 0; i < 1000; i++)
+                        deck.addCard(new Card(2 + i % 50));
+                Player p = new Player(1, deck, deck, game, new PrintWriter(new Writer() {
+                        @Override
+                        public void write(char[] cbuf, int off, int len) {
+                        }
+
+                        @Override
+                        public void flush() {
+                        }
+
+                        @Override
+                        public void close() {
+                        }
+                }));
+                p.setInitialHand(Arrays.asList(new Card(3), new Card(4), new Card(5), new Card(6)));
+                return PerfBaseline.measure(10, samples, 20000, () -> {
+                        if (!p.performTurnAtomic())
+                                throw new IllegalStateException("turn failed");
+                });
+        }
+
+        private static double[] measureLoad(int samples) throws Exception {
+                int players = 5000;
+                File pack = File.createTempFile("perfpack", ".txt");
+                pack.deleteOnExit();
+                StringBuilder sb = new StringBuilder();
+                Random random = new Random(1);
+                for (int i = 0; i < 8 * players; i++)
+                        sb.append(random.nextInt(players) + 1).append('\n');
+                Files.write(pack.toPath(), sb.toString().getBytes(StandardCharsets.US_ASCII));
+                // loadPack reports every load on stdout
+                PrintStream out = System.out;
+                System.setOut(new PrintStream(new ByteArrayOutputStream()));
+                try {
+                        return PerfBaseline.measure(5, samples, 5, () -> CardPackLoader.loadPack(pack, players));
+                } finally {
+                        System.setOut(out);
+                        pack.delete();
+                }
+        }
+}
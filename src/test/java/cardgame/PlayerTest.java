@@ -219,4 +219,111 @@ public class PlayerTest {
                 boolean result = (Boolean) meth.invoke(p);
                 assertFalse(result, "Atomic turn should early exit if game is over");
         }
+
+        @Test
+        public void testTurnQuantumMovesSeveralCardsPerLockHold() throws Exception {
+                CardDeck left = new CardDeck(1);
+                CardDeck right = new CardDeck(2);
+                CardGame cg = new CardGame();
+                cg.turnQuantum = 3;
+                Player p = new Player(8, left, right, cg);
+                left.addCard(new Card(5));
+                left.addCard(new Card(6));
+                left.addCard(new Card(7));
+                p.setInitialHand(Arrays.asList(new Card(8), new Card(2), new Card(3), new Card(4)));
+                assertTrue(p.attemptAtomicTurn());
+                assertTrue(left.isEmpty());
+                assertEquals(3, right.getContents().size());
+                assertEquals(3, p.cardsMoved);
+                assertEquals(2, p.lockAcquisitions);
+                assertEquals(1, p.lockHolds);
+                assertEquals(4, p.getHand().size());
+        }
+
+        @Test
+        public void testTurnQuantumStopsOnWin() throws Exception {
+                CardDeck left = new CardDeck(1);
+                CardDeck right = new CardDeck(2);
+                CardGame cg = new CardGame();
+                cg.turnQuantum = 5;
+                Player p = new Player(4, left, right, cg);
+                left.addCard(new Card(4));
+                left.addCard(new Card(9));
+                p.setInitialHand(Arrays.asList(new Card(4), new Card(4), new Card(4), new Card(1)));
+                assertTrue(p.attemptAtomicTurn());
+                assertTrue(p.hasWinningHand());
+                assertEquals(1, p.cardsMoved);
+                assertEquals(1, left.getContents().size());
+        }
+
+        @Test
+        public void testTurnBatchEmptyDeckCountsNothing() throws Exception {
+                CardDeck left = new CardDeck(1);
+                CardDeck right = new CardDeck(2);
+                CardGame cg = new CardGame();
+                Player p = new Player(6, left, right, cg);
+                p.setInitialHand(Arrays.asList(new Card(1), new Card(2), new Card(3), new Card(4)));
+                assertFalse(p.attemptAtomicTurn());
+                assertEquals(0, p.cardsMoved);
+                assertEquals(0, p.lockHolds);
+                assertEquals(2, p.lockAcquisitions);
+        }
+
+        @Test
+        public void testOptimisticTurnCommitsAndPublishesVersions() throws Exception {
+                CardDeck left = new CardDeck(1);
+                CardDeck right = new CardDeck(2);
+                CardGame cg = new CardGame();
+                Player p = new Player(3, left, right, cg);
+                left.addCard(new Card(3));
+                p.setInitialHand(Arrays.asList(new Card(3), new Card(3), new Card(3), new Card(7)));
+                assertTrue(p.attemptOptimisticTurn());
+                assertTrue(p.hasWinningHand());
+                assertEquals(7, right.draw().getDenomination());
+                assertEquals(1, p.optimisticCommits);
+                assertEquals(0, p.optimisticConflicts);
+                assertEquals(2, left.readVersion());
+                assertEquals(2, right.readVersion());
+        }
+
+        @Test
+        public void testOptimisticTurnRetriesWhileNeighbourHoldsDeck() throws Exception {
+                CardDeck left = new CardDeck(1);
+                CardDeck right = new CardDeck(2);
+                CardGame cg = new CardGame();
+                Player p = new Player(3, left, right, cg);
+                left.addCard(new Card(5));
+                p.setInitialHand(Arrays.asList(new Card(1), new Card(2), new Card(3), new Card(4)));
+                assertTrue(right.tryClaim(0));
+                assertFalse(p.attemptOptimisticTurn());
+                assertEquals(Player.MAX_OPTIMISTIC_RETRIES, p.optimisticConflicts);
+                assertEquals(1, left.getContents().size());
+                assertEquals(0, left.readVersion());
+                right.publish();
+                assertTrue(p.attemptOptimisticTurn());
+                assertTrue(left.isEmpty());
+        }
+
+        @Test
+        public void testOptimisticTurnSingleDeckRingAndEmptyDeck() throws Exception {
+                CardDeck deck = new CardDeck(1);
+                CardGame cg = new CardGame();
+                Player p = new Player(1, deck, deck, cg);
+                p.setInitialHand(Arrays.asList(new Card(1), new Card(2), new Card(3), new Card(4)));
+                assertFalse(p.attemptOptimisticTurn());
+                deck.addCard(new Card(1));
+                assertTrue(p.attemptOptimisticTurn());
+                assertEquals(1, deck.getContents().size());
+                assertEquals(2, deck.readVersion());
+        }
+
+        @Test
+        public void testChooseDiscardNeverPicksPreferred() throws IOException {
+                Player p = new Player(2, new CardDeck(1), new CardDeck(2), new CardGame());
+                p.setInitialHand(Arrays.asList(new Card(2), new Card(2), new Card(2), new Card(9)));
+                for (int i = 0; i < 20; i++)
+                        assertEquals(9, p.chooseDiscard(new Card(2)).getDenomination());
+                p.setInitialHand(Arrays.asList(new Card(2), new Card(2), new Card(2), new Card(2)));
+                assertEquals(2, p.chooseDiscard(new Card(2)).getDenomination());
+        }
 }
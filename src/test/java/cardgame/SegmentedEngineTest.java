@@ -0,0 +1,130 @@
+package cardgame;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.util.*;
+
+public class SegmentedEngineTest {
+
+        private static CardGame gameWithArchive() throws IOException {
+                File archive = File.createTempFile("segments", ".cga");
+                archive.deleteOnExit();
+                CardGame game = new CardGame();
+                game.outputArchive = new OutputArchive(archive);
+                game.archiveFile = archive;
+                return game;
+        }
+
+        private static List<Card> cards(int... values) {
+                List<Card> pack = new ArrayList<>();
+                for (int v : values)
+                        pack.add(new Card(v));
+                return pack;
+        }
+
+        private static int totalCards(CardGame game) {
+                int total = 0;
+                for (CardDeck d : game.decks)
+                        total += d.size();
+                for (Player p : game.players)
+                        total += p.getHand().size();
+                return total;
+        }
+
+        @Test
+        public void testDeterministicWinnerForAnySegmentCount() throws Exception {
+                for (int workers = 1; workers <= 3; workers++) {
+                        CardGame game = gameWithArchive();
+                        // player 1 holds three 1s and finds the fourth as the second card of deck 1
+                        game.initialiseGame(3, cards(
+                                        1, 10, 20, 1, 11, 21, 1, 12, 22, 9, 13, 23,
+                                        5, 14, 24, 1, 15, 25, 6, 16, 26, 7, 17, 27));
+                        game.configure(new String[] { "--engine=segmented", "--workers=" + workers });
+                        game.playGame();
+                        assertEquals(1, game.getWinnerId(), "workers " + workers);
+                        assertEquals(24, totalCards(game));
+                        game.closeOutputArchive();
+                        String log = OutputArchive.readEntry(game.archiveFile, "player1_output.txt");
+                        assertTrue(log.startsWith("player 1 initial hand is 1 1 1 9"));
+                        assertTrue(log.contains("player 1 draws a 1 from deck 1"));
+                        assertTrue(log.contains("player 1 final hand: 1 1 1 1"));
+                        assertTrue(OutputArchive.readEntry(game.archiveFile, "player3_output.txt").contains("player 3 exits"));
+                }
+        }
+
+        @Test
+        public void testLargeRingKeepsEveryCardAcrossSegments() throws Exception {
+                CardGame game = gameWithArchive();
+                int n = 3000;
+                game.initialiseGameParallel(n,
+                                new PackGenerator(n, PackGenerator.Distribution.UNWINNABLE, 1, 1L).generateCards());
+                game.turnQuantum = 3;
+                SegmentedEngine engine = new SegmentedEngine(game, 4);
+                assertEquals(4, engine.getSegments());
+                Thread runner = new Thread(() -> {
+                        try {
+                                engine.run();
+                        } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                        }
+                });
+                runner.start();
+                Thread.sleep(200);
+                game.declareWinner(7);
+                runner.join(10000);
+                assertFalse(runner.isAlive());
+                // cards still in the handoff queues are back in their decks
+                assertEquals(8 * n, totalCards(game));
+                for (Player p : game.players)
+                        assertEquals(4, p.getHand().size());
+                assertTrue(game.getTurnMetrics().cardsMoved > 0);
+                game.closeOutputArchive();
+                assertTrue(OutputArchive.readEntry(game.archiveFile, "player2999_output.txt").contains("player 2999 exits"));
+        }
+
+        @Test
+        public void testHandoffQueueKeepsOrderAcrossThreads() throws Exception {
+                HandoffQueue queue = new HandoffQueue();
+                assertNull(queue.poll());
+                int count = 5 * HandoffQueue.CHUNK + 17;
+                Card[] sent = new Card[count];
+                for (int i = 0; i < count; i++)
+                        sent[i] = new Card(i);
+                Thread producer = new Thread(() -> {
+                        for (Card c : sent)
+                                queue.offer(c);
+                });
+                producer.start();
+                for (int i = 0; i < count;) {
+                        Card c = queue.poll();
+                        if (c == null) {
+                                Thread.yield();
+                                continue;
+                        }
+                        assertSame(sent[i++], c);
+                }
+                producer.join();
+                assertNull(queue.poll());
+                assertEquals(0, queue.size());
+        }
+
+        @Test
+        public void testOptionsThatNeedSharedDecksAreRejected() {
+                assertEquals(EngineMode.SEGMENTED, EngineMode.parse("Segmented"));
+                assertThrows(IllegalArgumentException.class,
+                                () -> new CardGame().configure(new String[] { "--engine=segmented", "--check-invariants" }));
+                assertThrows(IllegalArgumentException.class,
+                                () -> new CardGame().configure(new String[] { "--checkpoint=c.ckpt", "--engine=segmented" }));
+        }
+
+        @Test
+        public void testExchangeKeepsPreferredCards() {
+                Player p = new Player(2, new CardDeck(2), new CardDeck(3), new CardGame(), new PrintWriter(new StringWriter()));
+                p.setInitialHand(cards(2, 2, 5, 2));
+                assertEquals(5, p.exchange(new Card(2)).getDenomination());
+                assertTrue(p.hasWinningHand());
+                assertEquals(1, p.cardsMoved);
+        }
+}
@@ -0,0 +1,117 @@
+package cardgame;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+public class SweepRunnerTest {
+
+        @TempDir
+        File dir;
+
+        private File grid(String... lines) throws IOException {
+                File file = new File(dir, "grid.txt");
+                Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+                return file;
+        }
+
+        private List<String> rows(File csv) throws IOException {
+                return Files.readAllLines(csv.toPath(), StandardCharsets.US_ASCII);
+        }
+
+        @Test
+        public void testGridExpandsToEveryCombination() throws IOException {
+                SweepRunner sweep = new SweepRunner(grid("# capacity sweep", "players = 2, 3, 4", "engine = threads, tasks",
+                                "turn-mode = optimistic  # one mode only", "games = 5", "seed = 9", "time-limit = 250"),
+                                new File(dir, "r.csv"), 2);
+                assertEquals(6, sweep.points.size());
+                assertEquals(5, sweep.games);
+                assertEquals(250, sweep.timeLimitMillis);
+                SweepRunner.Point last = sweep.points.get(5);
+                assertEquals(4, last.players);
+                assertEquals(EngineMode.TASKS, last.engine);
+                assertEquals(TurnMode.OPTIMISTIC, last.turnMode);
+                assertEquals(PackGenerator.Distribution.UNIFORM, last.distribution);
+                assertEquals("4,uniform,tasks,optimistic,1," + last.workers + ",0,5,9", sweep.key(last));
+        }
+
+        @Test
+        public void testGridErrors() {
+                File csv = new File(dir, "r.csv");
+                IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                                () -> new SweepRunner(grid("players = 2", "colour = red"), csv, 1));
+                assertEquals("Line 2 of grid: unknown setting colour", e.getMessage());
+                e = assertThrows(IllegalArgumentException.class, () -> new SweepRunner(grid("players 2"), csv, 1));
+                assertEquals("Line 1 of grid: expected name = values", e.getMessage());
+                e = assertThrows(IllegalArgumentException.class, () -> new SweepRunner(grid("games = 3, 4", "players = 2"), csv, 1));
+                assertEquals("Line 1 of grid: games takes a single value", e.getMessage());
+                assertThrows(IllegalArgumentException.class, () -> new SweepRunner(grid("games = 3"), csv, 1));
+                assertThrows(IllegalArgumentException.class, () -> new SweepRunner(grid("players = 0"), csv, 1));
+        }
+
+        @Test
+        public void testSweepAppendsRowsAndResumes() throws Exception {
+                File csv = new File(dir, "results.csv");
+                File spec = grid("players = 2, 3", "distribution = winnable", "engine = threads, tasks", "workers = 2", "games = 3",
+                                "time-limit = 5000");
+                assertEquals(4, new SweepRunner(spec, csv, 2).run());
+                List<String> rows = rows(csv);
+                assertEquals(SweepRunner.HEADER, rows.get(0));
+                assertEquals(5, rows.size());
+                for (String row : rows.subList(1, 5)) {
+                        String[] f = row.split(",", -1);
+                        assertEquals(SweepRunner.COLUMNS, f.length, row);
+                        assertEquals("3", f[7]);
+                        assertEquals("0", f[9], row);
+                        assertTrue(Double.parseDouble(f[11]) > 0);
+                        assertTrue(Long.parseLong(f[12]) <= Long.parseLong(f[13]));
+                }
+
+                // a rerun has nothing left to do
+                assertEquals(0, new SweepRunner(spec, csv, 2).run());
+                assertEquals(rows, rows(csv));
+
+                // an interrupted run leaves a cut-off row behind; that point and a lost one are redone
+                String lost = rows.get(2);
+                StringBuilder damaged = new StringBuilder();
+                for (String row : rows)
+                        if (!row.equals(lost))
+                                damaged.append(row).append('\n');
+                damaged.append(rows.get(4), 0, 12);
+                Files.write(csv.toPath(), damaged.toString().getBytes(StandardCharsets.US_ASCII));
+                List<String> cut = rows(csv);
+                String half = cut.get(cut.size() - 1);
+                assertEquals(1, new SweepRunner(spec, csv, 2).run());
+                List<String> resumed = rows(csv);
+                assertEquals(5, resumed.size());
+                assertFalse(resumed.contains(half));
+                assertTrue(resumed.get(4).startsWith(lost.substring(0, lost.indexOf(",3,1,") + 5)));
+        }
+
+        @Test
+        public void testUnfinishedGamesAreAbortedAtTheTimeLimit() throws Exception {
+                File csv = new File(dir, "results.csv");
+                File spec = grid("players = 3", "distribution = unwinnable", "games = 2", "time-limit = 100");
+                assertEquals(1, new SweepRunner(spec, csv, 1).run());
+                String[] f = rows(csv).get(1).split(",", -1);
+                assertEquals("2", f[9]);
+                // aborted games are counted but stay out of the rate and the percentiles
+                assertEquals("0.000", f[11]);
+                assertEquals("", f[12]);
+                assertEquals("", f[13]);
+        }
+
+        @Test
+        public void testPercentile() {
+                long[] sorted = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 };
+                assertEquals(5, SweepRunner.percentile(sorted, 0.5));
+                assertEquals(10, SweepRunner.percentile(sorted, 0.99));
+                assertEquals(1, SweepRunner.percentile(new long[] { 1 }, 0.99));
+                assertEquals(0, SweepRunner.percentile(new long[0], 0.5));
+        }
+}
@@ -0,0 +1,86 @@
+package cardgame;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.util.*;
+
+public class TaskEngineTest {
+
+        private static CardGame gameWithArchive() throws IOException {
+                File archive = File.createTempFile("tasks", ".cga");
+                archive.deleteOnExit();
+                CardGame game = new CardGame();
+                game.outputArchive = new OutputArchive(archive);
+                game.archiveFile = archive;
+                return game;
+        }
+
+        private static List<Card> cards(int... values) {
+                List<Card> pack = new ArrayList<>();
+                for (int v : values)
+                        pack.add(new Card(v));
+                return pack;
+        }
+
+        private static int totalCards(CardGame game) {
+                int total = 0;
+                for (CardDeck d : game.decks)
+                        total += d.size();
+                for (Player p : game.players)
+                        total += p.getHand().size();
+                return total;
+        }
+
+        @Test
+        public void testDeterministicWinnerOnTwoWorkers() throws Exception {
+                CardGame game = gameWithArchive();
+                // player 1 holds three 1s and finds the fourth as the second card of deck 1;
+                // every other value is unique, so nobody else can ever win
+                game.initialiseGame(3, cards(
+                                1, 10, 20, 1, 11, 21, 1, 12, 22, 9, 13, 23,
+                                5, 14, 24, 1, 15, 25, 6, 16, 26, 7, 17, 27));
+                game.configure(new String[] { "--engine=tasks", "--workers=2" });
+                game.playGame();
+                assertEquals(1, game.getWinnerId());
+                assertEquals(24, totalCards(game));
+                game.closeOutputArchive();
+                String log = OutputArchive.readEntry(game.archiveFile, "player1_output.txt");
+                assertTrue(log.contains("player 1 wins"));
+                assertTrue(log.contains("player 1 final hand: 1 1 1 1"));
+                assertTrue(OutputArchive.readEntry(game.archiveFile, "player2_output.txt").contains("player 2 exits"));
+        }
+
+        @Test
+        public void testLargeRingEndsWhenGameIsOverFromOutside() throws Exception {
+                CardGame game = gameWithArchive();
+                int n = 3000;
+                game.initialiseGameParallel(n,
+                                new PackGenerator(n, PackGenerator.Distribution.UNWINNABLE, 1, 1L).generateCards());
+                TaskEngine engine = new TaskEngine(game, 4);
+                assertEquals(4, engine.getParallelism());
+                Thread runner = new Thread(() -> {
+                        try {
+                                engine.run();
+                        } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                        }
+                });
+                runner.start();
+                Thread.sleep(200);
+                game.declareWinner(7);
+                runner.join(10000);
+                assertFalse(runner.isAlive());
+                assertEquals(8 * n, totalCards(game));
+                assertTrue(game.getTurnMetrics().cardsMoved > 0);
+                game.closeOutputArchive();
+                assertTrue(OutputArchive.readEntry(game.archiveFile, "player2999_output.txt").contains("player 2999 exits"));
+        }
+
+        @Test
+        public void testParseEngineMode() {
+                assertEquals(EngineMode.TASKS, EngineMode.parse("Tasks"));
+                assertThrows(IllegalArgumentException.class, () -> EngineMode.parse("fibers"));
+        }
+}
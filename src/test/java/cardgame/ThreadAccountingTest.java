@@ -0,0 +1,86 @@
+package cardgame;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.util.*;
+
+public class ThreadAccountingTest {
+
+        private static CardGame playBriefly(String... options) throws Exception {
+                File archive = File.createTempFile("accounting", ".cga");
+                archive.deleteOnExit();
+                CardGame game = new CardGame();
+                game.outputArchive = new OutputArchive(archive);
+                game.configure(options);
+                game.turnDelayMillis = 0;
+                game.initialiseGame(3, new PackGenerator(3, PackGenerator.Distribution.UNWINNABLE, 1, 17L).generateCards());
+                Thread runner = new Thread(game::playGame);
+                runner.start();
+                // end the game only once every player has taken a turn, however slowly the threads get scheduled
+                long deadline = System.nanoTime() + 10000000000L;
+                while (!everyPlayerMoved(game) && System.nanoTime() < deadline)
+                        Thread.sleep(1);
+                game.declareWinner(1);
+                runner.join(10000);
+                game.closeOutputArchive();
+                return game;
+        }
+
+        private static boolean everyPlayerMoved(CardGame game) {
+                for (Player p : game.players)
+                        if (p.cardsMoved == 0)
+                                return false;
+                return true;
+        }
+
+        private static void assertCharged(CardGame game) {
+                for (Player p : game.players) {
+                        assertTrue(p.cardsMoved > 0, "player " + p.id + " never moved a card");
+                        // every turn builds log strings, so no player can have allocated nothing
+                        assertTrue(p.allocatedBytes > 0, "player " + p.id);
+                        assertTrue(p.cpuNanos >= 0);
+                }
+        }
+
+        @Test
+        public void testPlayerThreadsAreCharged() throws Exception {
+                assumeAccounting();
+                CardGame game = playBriefly("--accounting");
+                assertTrue(game.isAccounting());
+                assertCharged(game);
+                String report = ThreadAccounting.report(game.players);
+                assertTrue(report.startsWith("Allocation and CPU per turn:"));
+                assertTrue(report.contains("  player 2: turns " + game.players.get(1).cardsMoved + ", allocated "));
+                assertTrue(report.contains("  all players: turns " + game.getTurnMetrics().cardsMoved));
+                assertTrue(report.contains(" per turn), cpu "));
+        }
+
+        @Test
+        public void testTaskEngineChargesEachRun() throws Exception {
+                assumeAccounting();
+                assertCharged(playBriefly("--accounting", "--engine=tasks", "--workers=2"));
+        }
+
+        @Test
+        public void testNothingIsChargedByDefault() throws Exception {
+                CardGame game = playBriefly();
+                assertFalse(game.isAccounting());
+                for (Player p : game.players) {
+                        assertEquals(0, p.allocatedBytes);
+                        assertEquals(0, p.cpuNanos);
+                }
+        }
+
+        @Test
+        public void testReportWithoutTurns() throws IOException {
+                Player idle = new Player(1, new CardDeck(1), new CardDeck(2), new CardGame());
+                assertTrue(ThreadAccounting.report(Collections.singletonList(idle))
+                                .contains("player 1: turns 0, allocated 0 bytes (- per turn)"));
+        }
+
+        private static void assumeAccounting() {
+                org.junit.jupiter.api.Assumptions.assumeTrue(ThreadAccounting.enable(), "JVM cannot measure allocation");
+        }
+}
@@ -0,0 +1,55 @@
+package cardgame;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.*;
+
+public class TurnMetricsTest {
+
+        private static Player player(int id, long acquisitions, long holds, long moved) throws IOException {
+                Player p = new Player(id, new CardDeck(id), new CardDeck(id + 1), new CardGame());
+                p.lockAcquisitions = acquisitions;
+                p.lockHolds = holds;
+                p.cardsMoved = moved;
+                return p;
+        }
+
+        @Test
+        public void testTotalsAndRatios() throws IOException {
+                List<Player> players = Arrays.asList(player(1, 4, 2, 8), player(2, 2, 1, 4));
+                TurnMetrics m = new TurnMetrics(players, 4, 1000000000L);
+                assertEquals(12, m.cardsMoved);
+                assertEquals(6, m.lockAcquisitions);
+                assertEquals(0.5, m.getAcquisitionsPerCard(), 1e-9);
+                assertEquals(4.0, m.getCardsPerHold(), 1e-9);
+                assertEquals(12.0, m.getCardsPerSecond(), 1e-9);
+                assertEquals(4, m.minCardsMoved);
+                assertEquals(8, m.maxCardsMoved);
+        }
+
+        @Test
+        public void testFairnessIndex() throws IOException {
+                TurnMetrics even = new TurnMetrics(Arrays.asList(player(1, 2, 1, 5), player(2, 2, 1, 5)), 1, 1);
+                assertEquals(1.0, even.fairnessIndex, 1e-9);
+                TurnMetrics skewed = new TurnMetrics(Arrays.asList(player(1, 2, 1, 10), player(2, 0, 0, 0)), 1, 1);
+                assertEquals(0.5, skewed.fairnessIndex, 1e-9);
+        }
+
+        @Test
+        public void testEmptyGameReport() {
+                TurnMetrics m = new TurnMetrics(Collections.emptyList(), 1, 0);
+                assertEquals(0, m.getAcquisitionsPerCard(), 1e-9);
+                assertEquals(0, m.getCardsPerSecond(), 1e-9);
+                assertTrue(m.toReport().contains("turn quantum: 1"));
+        }
+
+        @Test
+        public void testQuiesceTimeIsReportedWhenKnown() {
+                assertFalse(new TurnMetrics(Collections.emptyList(), 1, 0).toReport().contains("quiesce"));
+                TurnMetrics m = new TurnMetrics(Collections.emptyList(), 1, 0, 2500000L);
+                assertEquals(2500000L, m.quiesceNanos);
+                assertTrue(m.toReport().endsWith("time to quiesce: 2.500 ms"));
+        }
+}
@@ -0,0 +1,93 @@
+package cardgame;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.file.Path;
+import java.util.*;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class JfrGameEventListenerTest {
+
+        private static List<Card> cards(int... values) {
+                List<Card> pack = new ArrayList<>();
+                for (int v : values)
+                        pack.add(new Card(v));
+                return pack;
+        }
+
+        // player 1 draws its fourth 1 on its second turn; every other value is unique
+        private static List<RecordedEvent> playRecorded(boolean enableEvents) throws Exception {
+                File archive = File.createTempFile("jfr", ".cga");
+                archive.deleteOnExit();
+                CardGame game = new CardGame();
+                game.outputArchive = new OutputArchive(archive);
+                game.configure(new String[] { "--jfr", "--turn-delay=0" });
+                assertTrue(game.events instanceof JfrGameEventListener);
+                game.initialiseGame(3, cards(
+                                1, 10, 20, 1, 11, 21, 1, 12, 22, 9, 13, 23,
+                                5, 14, 24, 1, 15, 25, 6, 16, 26, 7, 17, 27));
+
+                Path dump = File.createTempFile("game", ".jfr").toPath();
+                dump.toFile().deleteOnExit();
+                try (Recording recording = new Recording()) {
+                        if (enableEvents) {
+                                recording.enable("cardgame.Turn");
+                                recording.enable("cardgame.LockFailure");
+                                recording.enable("cardgame.WinnerDeclared");
+                                recording.enable("cardgame.PlayerExit");
+                        }
+                        recording.start();
+                        game.playGame();
+                        recording.stop();
+                        recording.dump(dump);
+                }
+                game.closeOutputArchive();
+                List<RecordedEvent> events = new ArrayList<>();
+                for (RecordedEvent e : RecordingFile.readAllEvents(dump))
+                        if (e.getEventType().getName().startsWith("cardgame."))
+                                events.add(e);
+                return events;
+        }
+
+        @Test
+        public void testEventsAreRecordedWhenEnabled() throws Exception {
+                List<RecordedEvent> events = playRecorded(true);
+                List<RecordedEvent> winners = new ArrayList<>();
+                Set<Integer> exited = new HashSet<>();
+                boolean winningTurn = false;
+                for (RecordedEvent e : events) {
+                        switch (e.getEventType().getName()) {
+                        case "cardgame.WinnerDeclared":
+                                winners.add(e);
+                                break;
+                        case "cardgame.PlayerExit":
+                                exited.add(e.getInt("player"));
+                                if (e.getInt("player") == 1)
+                                        assertEquals("1 1 1 1", e.getString("finalHand"));
+                                break;
+                        case "cardgame.Turn":
+                                if (e.getInt("player") == 1 && e.getInt("drawn") == 1) {
+                                        assertEquals(1, e.getInt("fromDeck"));
+                                        assertEquals(2, e.getInt("toDeck"));
+                                        winningTurn = true;
+                                }
+                                break;
+                        default:
+                                break;
+                        }
+                }
+                assertEquals(1, winners.size());
+                assertEquals(1, winners.get(0).getInt("winner"));
+                assertEquals(new HashSet<>(Arrays.asList(1, 2, 3)), exited);
+                assertTrue(winningTurn);
+        }
+
+        @Test
+        public void testEventsAreOffByDefault() throws Exception {
+                assertTrue(playRecorded(false).isEmpty());
+        }
+}
@@ -0,0 +1,29 @@
+package cardgame;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VectorBatchEngineTest {
+
+        @Test
+        public void testSameResultsAsScalarEngine() {
+                for (int n = 2; n <= 7; n++) {
+                        BatchEngine.PackSource packs = BatchEngine.generated(n, PackGenerator.Distribution.UNIFORM, 11L * n);
+                        BatchEngine scalar = new BatchEngine(n, 40, 11L * n, 60, packs);
+                        BatchEngine vector = BatchEngine.create(n, 40, 11L * n, 60, packs, true);
+                        assertTrue(vector instanceof VectorBatchEngine);
+                        BatchEngine.Result expected = scalar.run(500);
+                        BatchEngine.Result actual = vector.run(500);
+                        assertArrayEquals(expected.winners, actual.winners, "n " + n);
+                        assertArrayEquals(expected.turns, actual.turns, "n " + n);
+                }
+        }
+
+        @Test
+        public void testMatchesCompactEngineGameByGame() {
+                BatchEngine.PackSource packs = BatchEngine.generated(4, PackGenerator.Distribution.SKEWED, 5L);
+                VectorBatchEngine engine = new VectorBatchEngine(4, 32, 5L, 30, packs);
+                assertTrue(engine.lanes % VectorBatchEngine.vectorLanes() == 0);
+                BatchEngineTest.assertMatchesCompactEngine(engine, packs, engine.run(200));
+        }
+}